@@ -0,0 +1,21 @@
+-- Create analytics_buckets table (pre-aggregated booking/revenue curves)
+-- One row per granularity (HOUR, DAY, MONTH) + bucket start + route + airline
+-- Incremented by every backend node from booking/payment events; past days are
+-- recomputed by the analytics backfill (POST /api/admin/analytics/backfill)
+
+CREATE TABLE IF NOT EXISTS analytics_buckets (
+    granularity VARCHAR(10) NOT NULL,          -- HOUR, DAY, MONTH
+    bucket_start TIMESTAMP NOT NULL,
+    route VARCHAR(20) NOT NULL,                -- Origin-destination of the first segment, e.g. SGN-HAN
+    airline VARCHAR(100) NOT NULL,
+    bookings BIGINT NOT NULL DEFAULT 0,        -- Bookings created
+    confirmed_bookings BIGINT NOT NULL DEFAULT 0,
+    cancelled_bookings BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(19, 2) NOT NULL DEFAULT 0, -- Successful payments minus refunds
+    updated_at TIMESTAMP,
+    
+    PRIMARY KEY (granularity, bucket_start, route, airline)
+);
+
+CREATE INDEX IF NOT EXISTS idx_analytics_buckets_route ON analytics_buckets(granularity, route, bucket_start);
+CREATE INDEX IF NOT EXISTS idx_analytics_buckets_airline ON analytics_buckets(granularity, airline, bucket_start);
@@ -0,0 +1,23 @@
+-- Create booking_reminders ledger and scheduler_leases tables
+-- booking_reminders: one row per reminder email sent (never sent twice, survives restarts)
+-- scheduler_leases: only one backend node runs a scheduled job at a time
+
+CREATE TABLE IF NOT EXISTS booking_reminders (
+    id VARCHAR(255) PRIMARY KEY,
+    booking_id VARCHAR(255) NOT NULL,
+    reminder_type VARCHAR(20) NOT NULL, -- DAY_BEFORE, URGENT
+    departure_time TIMESTAMP,
+    sent_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    CONSTRAINT uk_booking_reminders_booking_type UNIQUE (booking_id, reminder_type),
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_reminders_departure ON booking_reminders(departure_time);
+
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(255),
+    locked_until TIMESTAMP NOT NULL,
+    locked_at TIMESTAMP
+);
@@ -0,0 +1,16 @@
+-- Create email_dead_letters table
+-- Emails that could not be sent after all retries (or were dropped on queue overflow/shutdown)
+
+CREATE TABLE IF NOT EXISTS email_dead_letters (
+    id VARCHAR(255) PRIMARY KEY,
+    recipient VARCHAR(255),
+    subject VARCHAR(255),
+    template VARCHAR(255),
+    body TEXT,                  -- Rendered HTML (NULL if rendering failed)
+    attempts INTEGER,
+    reason VARCHAR(50),         -- SEND_FAILED, RENDER_FAILED, QUEUE_FULL, SHUTDOWN
+    last_error TEXT,
+    failed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_dead_letters_failed_at ON email_dead_letters(failed_at);
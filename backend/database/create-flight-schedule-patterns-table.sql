@@ -0,0 +1,41 @@
+-- Create flight_schedule_patterns table (recurring schedules expanded into flights)
+-- FlightScheduleService generates the flights of active patterns over a rolling horizon
+-- (flight.schedule.horizon-days, default 60) and propagates pattern edits to the
+-- future generated flights with set-based UPDATE/DELETE on flights.schedule_pattern_id
+
+CREATE TABLE IF NOT EXISTS flight_schedule_patterns (
+    id VARCHAR(36) PRIMARY KEY,
+    flight_number VARCHAR(255) NOT NULL,
+    airline VARCHAR(255) NOT NULL,
+    origin VARCHAR(10) NOT NULL,
+    destination VARCHAR(10) NOT NULL,
+    depart_time TIME NOT NULL,                -- local departure time
+    duration_minutes INTEGER NOT NULL,
+    days_of_week VARCHAR(7) NOT NULL,         -- ISO days as digits, 1 = Monday ... 7 = Sunday ("12345" = Mon-Fri)
+    valid_from DATE NOT NULL,
+    valid_to DATE NOT NULL,
+    cabin_class VARCHAR(255) NOT NULL,
+    base_fare NUMERIC(10, 2),
+    taxes NUMERIC(10, 2),
+    total_seats INTEGER,
+    aircraft_type VARCHAR(255),
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    generated_until DATE,                     -- last day flights have been generated for
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- Daily horizon extension: active patterns not yet generated up to the horizon
+CREATE INDEX IF NOT EXISTS idx_flight_schedule_patterns_active_generated
+    ON flight_schedule_patterns(active, generated_until);
+
+-- Flights generated from a pattern (NULL for flights created one by one)
+ALTER TABLE flights ADD COLUMN IF NOT EXISTS schedule_pattern_id VARCHAR(36);
+
+CREATE INDEX IF NOT EXISTS idx_flights_schedule_pattern_depart
+    ON flights(schedule_pattern_id, depart_time)
+    WHERE schedule_pattern_id IS NOT NULL;
+
+-- "Is this generated flight booked?" when a pattern edit removes its day:
+-- EXISTS (SELECT 1 FROM flight_segments WHERE flight_number = ? AND depart_time = ?)
+CREATE INDEX IF NOT EXISTS idx_flight_segments_flight_depart ON flight_segments(flight_number, depart_time);
@@ -0,0 +1,17 @@
+-- Create outbox_events table (transactional outbox)
+-- Side effects of a payment (ticket, emails, admin notification) are written here
+-- in the payment transaction and executed afterwards by the outbox relay
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id VARCHAR(255) PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,   -- ISSUE_TICKET, BOOKING_CONFIRMATION_EMAIL, PAYMENT_RECEIPT_EMAIL, ADMIN_APPROVAL_NOTIFICATION
+    aggregate_id VARCHAR(255) NOT NULL, -- Booking ID or payment ID
+    status VARCHAR(20) NOT NULL,       -- PENDING, PROCESSING, DONE, FAILED
+    attempts INTEGER DEFAULT 0,
+    next_attempt_at TIMESTAMP,         -- Retry time (PENDING) or claim expiry (PROCESSING)
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_status_next ON outbox_events(status, next_attempt_at);
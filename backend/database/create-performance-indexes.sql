@@ -0,0 +1,48 @@
+-- Performance indexes
+-- Safe to run multiple times (IF NOT EXISTS)
+-- Each index is also declared on its entity (@Table(indexes)), so schema
+-- auto-generation creates the same set; keep the two in sync
+
+-- "My bookings" keyset pagination: WHERE user_id = ? ORDER BY created_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_bookings_user_created ON bookings(user_id, created_at);
+
+-- Batch loading segments for a page of bookings: WHERE booking_id IN (...)
+CREATE INDEX IF NOT EXISTS idx_flight_segments_booking_id ON flight_segments(booking_id);
+
+-- Hold expiry: WHERE status IN ('PENDING','HOLD') AND hold_expires_at < now ORDER BY hold_expires_at
+CREATE INDEX IF NOT EXISTS idx_bookings_status_hold_expires ON bookings(status, hold_expires_at);
+
+-- Cascading releases on expiry: WHERE booking_id IN (...)
+CREATE INDEX IF NOT EXISTS idx_seat_locks_booking_id ON seat_locks(booking_id);
+CREATE INDEX IF NOT EXISTS idx_seat_selections_booking_id ON seat_selections(booking_id);
+
+-- Reminder window: WHERE depart_time >= ? AND depart_time < ?
+CREATE INDEX IF NOT EXISTS idx_flight_segments_depart_time ON flight_segments(depart_time);
+
+-- "Is this the booking's first segment?": WHERE booking_id = ? AND depart_time < ?
+CREATE INDEX IF NOT EXISTS idx_flight_segments_booking_depart ON flight_segments(booking_id, depart_time);
+
+-- Settlement reconciliation: WHERE payment_method = ? AND created_at >= ? AND created_at < ?
+CREATE INDEX IF NOT EXISTS idx_payments_method_created ON payments(payment_method, created_at);
+
+-- Admin pending notifications: JOIN bookings ON id = booking_id ... ORDER BY sent_at DESC
+-- (polling for changes: WHERE (sent_at, id) > cursor ORDER BY sent_at, id)
+CREATE INDEX IF NOT EXISTS idx_notifications_booking_id ON notifications(booking_id);
+CREATE INDEX IF NOT EXISTS idx_notifications_sent_at ON notifications(sent_at);
+
+-- Dashboard: SELECT status, COUNT(*), SUM(total_amount) ... GROUP BY status (index-only scan)
+CREATE INDEX IF NOT EXISTS idx_bookings_status_amount ON bookings(status, total_amount);
+
+-- Dashboard: revenue of bookings confirmed today / bookings created today
+CREATE INDEX IF NOT EXISTS idx_bookings_status_updated ON bookings(status, updated_at);
+CREATE INDEX IF NOT EXISTS idx_bookings_status_created ON bookings(status, created_at);
+CREATE INDEX IF NOT EXISTS idx_bookings_created_at ON bookings(created_at);
+
+-- Analytics backfill: successful payments by last update
+CREATE INDEX IF NOT EXISTS idx_payments_status_updated ON payments(status, updated_at);
+
+-- Booking export: passengers of each booking (LATERAL string_agg per booking)
+CREATE INDEX IF NOT EXISTS idx_passengers_booking_id ON passengers(booking_id);
+
+-- Flight import duplicate check: WHERE flight_number IN (...) AND depart_time >= ? AND depart_time < ?
+CREATE INDEX IF NOT EXISTS idx_flights_number_depart ON flights(flight_number, depart_time);
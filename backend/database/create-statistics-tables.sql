@@ -0,0 +1,23 @@
+-- Create stat_counters and daily_stat_rollups tables (admin dashboard statistics)
+-- stat_counters: running totals (bookings per status + amount, users, flights), O(1) dashboard read
+-- daily_stat_rollups: per-day counts/amounts for historical charts (no bookings scan)
+-- Both are incremented with upserts by every backend node and rebuilt nightly from the source tables
+
+CREATE TABLE IF NOT EXISTS stat_counters (
+    metric VARCHAR(100) PRIMARY KEY,          -- bookings.<STATUS>, users.total, users.<STATUS>, flights.total
+    count_value BIGINT NOT NULL DEFAULT 0,
+    amount_value NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS daily_stat_rollups (
+    stat_date DATE NOT NULL,
+    metric VARCHAR(100) NOT NULL,             -- bookings.created, bookings.<STATUS>, payments.<STATUS>, users.registered, flights.added
+    count_value BIGINT NOT NULL DEFAULT 0,
+    amount_value NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    
+    PRIMARY KEY (stat_date, metric)
+);
+
+CREATE INDEX IF NOT EXISTS idx_daily_stat_rollups_metric_date ON daily_stat_rollups(metric, stat_date);
@@ -0,0 +1,21 @@
+-- Update payment_webhooks table for asynchronous, deduplicated webhook ingestion
+-- event_id: provider event ID (or payload hash), unique per provider
+-- status: RECEIVED -> PROCESSING -> PROCESSED / FAILED / IGNORED
+-- claimed_at: when a worker took the webhook (PROCESSING rows older than the timeout are re-claimed)
+
+ALTER TABLE payment_webhooks ADD COLUMN IF NOT EXISTS event_id VARCHAR(255);
+ALTER TABLE payment_webhooks ADD COLUMN IF NOT EXISTS event_type VARCHAR(255);
+ALTER TABLE payment_webhooks ADD COLUMN IF NOT EXISTS status VARCHAR(20);
+ALTER TABLE payment_webhooks ADD COLUMN IF NOT EXISTS last_error TEXT;
+ALTER TABLE payment_webhooks ADD COLUMN IF NOT EXISTS processed_at TIMESTAMP;
+ALTER TABLE payment_webhooks ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP;
+
+-- Existing rows were processed synchronously
+UPDATE payment_webhooks SET event_id = id WHERE event_id IS NULL;
+UPDATE payment_webhooks SET status = 'PROCESSED' WHERE status IS NULL;
+
+-- Claimed before claimed_at existed: let the recovery sweep see them
+UPDATE payment_webhooks SET claimed_at = received_at WHERE status = 'PROCESSING' AND claimed_at IS NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payment_webhooks_provider_event ON payment_webhooks(provider, event_id);
+CREATE INDEX IF NOT EXISTS idx_payment_webhooks_status_received ON payment_webhooks(status, received_at);
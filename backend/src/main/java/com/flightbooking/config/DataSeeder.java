@@ -2,6 +2,7 @@ package com.flightbooking.config;
 
 import com.flightbooking.entity.Flight;
 import com.flightbooking.repository.FlightRepository;
+import com.flightbooking.service.FlightImportService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -29,7 +30,8 @@ public class DataSeeder {
     private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
     
     @Bean
-    public CommandLineRunner seedFlightData(FlightRepository flightRepository) {
+    public CommandLineRunner seedFlightData(FlightRepository flightRepository,
+                                            FlightImportService flightImportService) {
         return args -> {
             // Check if flights already exist
             if (flightRepository.count() > 0) {
@@ -125,8 +127,8 @@ public class DataSeeder {
                 }
             }
             
-            // Save all flights
-            flightRepository.saveAll(flights);
+            // Save all flights (JDBC batch insert, one transaction)
+            flightImportService.insertFlights(flights);
             logger.info("Seeded {} flights successfully", flights.size());
         };
     }
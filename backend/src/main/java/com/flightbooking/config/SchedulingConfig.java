@@ -0,0 +1,43 @@
+package com.flightbooking.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Scheduler pool for all @Scheduled jobs
+ * 
+ * Boot's default scheduler has a single thread, so a nightly batch (settlement
+ * reconciliation, schedule horizon, counter rebuild) would stall the short-interval
+ * jobs for its whole run: outbox relay (1 s), statistics flush (5 s), T-3h reminders
+ * (30 s), hold expiry (60 s). With a pool, a long job only holds its own thread.
+ * 
+ * Size it above the number of jobs that can overlap (nightly jobs + frequent ones).
+ */
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SchedulingConfig.class);
+    
+    @Value("${scheduling.pool-size:8}")
+    private int poolSize;
+    
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduler-");
+        scheduler.setErrorHandler(e -> logger.error("Scheduled job failed", e));
+        return scheduler;
+    }
+    
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(taskScheduler());
+    }
+}
@@ -2,9 +2,13 @@ package com.flightbooking.config;
 
 import com.flightbooking.dto.ErrorResponse;
 import com.flightbooking.filter.JwtAuthenticationFilter;
+import com.flightbooking.filter.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -38,6 +42,7 @@ import java.util.List;
  * - JWT-based authentication
  * - Public endpoints: /api/users/register, /api/users/login, /api/flights/search
  * - Protected endpoints: All others require valid JWT
+ * - Rate limiting (RateLimitFilter) right after JWT authentication
  */
 @Configuration
 @EnableWebSecurity
@@ -47,9 +52,16 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    
+    /**
+     * BCrypt cost (log2 rounds) for new hashes; stored hashes with a different
+     * cost are re-hashed on the user's next successful login (AuthService)
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
     
     /**
@@ -75,8 +87,8 @@ public class SecurityConfig {
         // Allow credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
         
-        // Expose Authorization header to frontend
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        // Expose Authorization header (plus idempotent replay marker, Retry-After, Location) to frontend
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "Idempotent-Replayed", "Retry-After", "Location"));
         
         // Cache preflight response for 1 hour
         configuration.setMaxAge(3600L);
@@ -157,6 +169,17 @@ public class SecurityConfig {
         };
     }
     
+    /**
+     * RateLimitFilter must only run inside the security chain (after the JWT filter),
+     * not again as a plain servlet filter
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+    
     /**
      * Security Filter Chain
      */
@@ -176,6 +199,9 @@ public class SecurityConfig {
             
             // Authorization rules
             .authorizeHttpRequests(auth -> auth
+                // ✅ Async dispatches (DeferredResult/CompletableFuture) were already authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                
                 // ✅ Public endpoints (no authentication required)
                 .requestMatchers(
                     "/api/auth/register",
@@ -200,7 +226,10 @@ public class SecurityConfig {
             )
             
             // Add JWT filter before Spring Security's authentication filter
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            
+            // Rate limit per userId (set by the JWT filter) or client IP
+            .addFilterAfter(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,22 @@
+package com.flightbooking.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    
+    /**
+     * Timeout for async responses without their own timeout
+     * (streamed booking exports can run for minutes; the container default is 30 seconds)
+     */
+    @Value("${web.async.request-timeout-ms:3600000}")
+    private long asyncRequestTimeoutMs;
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeoutMs);
+    }
+}
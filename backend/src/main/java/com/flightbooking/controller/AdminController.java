@@ -1,12 +1,27 @@
 package com.flightbooking.controller;
 
+import com.flightbooking.dto.AnalyticsBackfillStatusDTO;
+import com.flightbooking.dto.AnalyticsPointDTO;
 import com.flightbooking.dto.BookingDTO;
+import com.flightbooking.dto.CursorPage;
+import com.flightbooking.dto.DailyStatDTO;
 import com.flightbooking.dto.DashboardStats;
 import com.flightbooking.dto.FlightDTO;
+import com.flightbooking.dto.FlightImportResultDTO;
+import com.flightbooking.dto.FlightSchedulePatternDTO;
+import com.flightbooking.dto.PendingNotificationDTO;
 import com.flightbooking.dto.UserDTO;
+import com.flightbooking.exception.BusinessException;
+import com.flightbooking.service.AdminEventBus;
+import com.flightbooking.service.AnalyticsBackfillService;
 import com.flightbooking.service.AdminService;
+import com.flightbooking.service.AnalyticsService;
+import com.flightbooking.service.BookingExportService;
 import com.flightbooking.service.BookingService;
+import com.flightbooking.service.FlightImportService;
+import com.flightbooking.service.FlightScheduleService;
 import com.flightbooking.service.FlightService;
+import com.flightbooking.service.StatisticsService;
 import com.flightbooking.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,10 +30,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +65,10 @@ public class AdminController {
     
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
     
+    private static final int MAX_NOTIFICATION_PAGE_SIZE = 500;
+    
+    private static final int MAX_DAILY_STATS_DAYS = 366;
+    
     @Autowired
     private AdminService adminService;
     
@@ -51,9 +81,30 @@ public class AdminController {
     @Autowired
     private FlightService flightService;
     
+    @Autowired
+    private FlightImportService flightImportService;
+    
+    @Autowired
+    private FlightScheduleService flightScheduleService;
+    
     @Autowired
     private com.flightbooking.repository.NotificationRepository notificationRepository;
     
+    @Autowired
+    private AdminEventBus adminEventBus;
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private AnalyticsService analyticsService;
+    
+    @Autowired
+    private AnalyticsBackfillService analyticsBackfillService;
+    
+    @Autowired
+    private BookingExportService bookingExportService;
+    
     /**
      * Get dashboard statistics
      * GET /api/admin/dashboard
@@ -65,6 +116,81 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
     
+    /**
+     * Daily statistics of one metric (for charts)
+     * GET /api/admin/stats/daily?metric=bookings.created&from=2024-01-01&to=2024-01-31
+     * 
+     * Metrics: bookings.created, bookings.<STATUS> (transitions into the status that day),
+     * payments.<STATUS>, users.registered, flights.added
+     */
+    @GetMapping("/stats/daily")
+    public ResponseEntity<List<DailyStatDTO>> getDailyStats(
+            @RequestParam String metric,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from) || from.plusDays(MAX_DAILY_STATS_DAYS).isBefore(to)) {
+            throw new BusinessException("INVALID_DATE_RANGE",
+                "Date range must be ascending and at most " + MAX_DAILY_STATS_DAYS + " days");
+        }
+        return ResponseEntity.ok(statisticsService.getDailyStats(metric, from, to));
+    }
+    
+    /**
+     * Recompute the dashboard counters from the source tables
+     * POST /api/admin/stats/rebuild
+     */
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, String>> rebuildStats() {
+        logger.info("Admin: Rebuilding statistics counters");
+        statisticsService.rebuild();
+        
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Statistics counters rebuilt");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Booking/revenue curves from pre-aggregated time buckets
+     * GET /api/admin/analytics?granularity=DAY&from=2024-01-01T00:00:00&to=2024-02-01T00:00:00
+     *     &route=SGN-HAN&airline=VietJet Air&groupBy=ROUTE
+     * 
+     * granularity: HOUR, DAY or MONTH; route/airline filter (optional);
+     * groupBy: ROUTE or AIRLINE for one curve per value (optional)
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<List<AnalyticsPointDTO>> getAnalytics(
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String route,
+            @RequestParam(required = false) String airline,
+            @RequestParam(required = false) String groupBy) {
+        logger.debug("Admin: Fetching {} analytics {} - {} (route {}, airline {}, groupBy {})",
+            granularity, from, to, route, airline, groupBy);
+        return ResponseEntity.ok(analyticsService.getSeries(granularity, from, to, route, airline, groupBy));
+    }
+    
+    /**
+     * Backfill analytics buckets for past days (runs in the background)
+     * POST /api/admin/analytics/backfill?from=2023-01-01&to=2023-12-31
+     */
+    @PostMapping("/analytics/backfill")
+    public ResponseEntity<AnalyticsBackfillStatusDTO> startAnalyticsBackfill(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Admin: Starting analytics backfill {} - {}", from, to);
+        return ResponseEntity.accepted().body(analyticsBackfillService.start(from, to));
+    }
+    
+    /**
+     * Progress of the last analytics backfill on this node
+     * GET /api/admin/analytics/backfill
+     */
+    @GetMapping("/analytics/backfill")
+    public ResponseEntity<AnalyticsBackfillStatusDTO> getAnalyticsBackfillStatus() {
+        return ResponseEntity.ok(analyticsBackfillService.getStatus());
+    }
+    
     /**
      * Get all bookings (with pagination and filters)
      * GET /api/admin/bookings?page=0&size=20&status=CONFIRMED
@@ -90,31 +216,135 @@ public class AdminController {
         return ResponseEntity.ok(bookings);
     }
     
+    /**
+     * Export bookings for finance (streamed, constant memory)
+     * GET /api/admin/bookings/export?format=csv&from=2024-01-01T00:00:00&to=2024-02-01T00:00:00&status=CONFIRMED&status=TICKETED
+     * 
+     * format: csv (default) or ndjson; from/to filter on createdAt (to exclusive); status may repeat
+     */
+    @GetMapping("/bookings/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) 
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) 
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "status", required = false) List<String> statuses) {
+        String exportFormat = bookingExportService.normalizeFormat(format);
+        logger.info("Admin: Exporting bookings as {} (from {}, to {}, statuses {})", exportFormat, from, to, statuses);
+        
+        StreamingResponseBody body = out -> bookingExportService.export(out, exportFormat, from, to, statuses);
+        String fileName = "bookings-" + LocalDate.now() + "." + exportFormat;
+        MediaType contentType = BookingExportService.FORMAT_NDJSON.equals(exportFormat)
+            ? MediaType.parseMediaType("application/x-ndjson")
+            : MediaType.parseMediaType("text/csv; charset=UTF-8");
+        
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+    
     /**
      * Get pending approval notifications
-     * GET /api/admin/notifications/pending
+     * GET /api/admin/notifications/pending?page=0&size=100
+     * 
+     * Notifications of bookings in PENDING_PAYMENT, newest first.
      */
     @GetMapping("/notifications/pending")
-    public ResponseEntity<List<com.flightbooking.entity.Notification>> getPendingNotifications() {
-        logger.info("Admin: Fetching pending notifications");
-        
-        // Get all notifications for bookings with PENDING_PAYMENT status
-        List<com.flightbooking.entity.Notification> notifications = 
-            notificationRepository.findAll().stream()
-                .filter(n -> {
-                    try {
-                        BookingDTO booking = bookingService.getAdminBookingById(n.getBookingId());
-                        return "PENDING_PAYMENT".equals(booking.getStatus());
-                    } catch (Exception e) {
-                        return false;
-                    }
-                })
-                .sorted((a, b) -> b.getSentAt().compareTo(a.getSentAt()))
-                .collect(java.util.stream.Collectors.toList());
+    public ResponseEntity<List<PendingNotificationDTO>> getPendingNotifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        logger.debug("Admin: Fetching pending notifications (page {}, size {})", page, size);
+        
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_NOTIFICATION_PAGE_SIZE));
+        List<PendingNotificationDTO> notifications = notificationRepository.findByBookingStatus("PENDING_PAYMENT", pageable);
         
         return ResponseEntity.ok(notifications);
     }
     
+    /**
+     * Poll for new pending approval notifications
+     * GET /api/admin/notifications/pending/changes?since=2024-01-01T10:00:00&size=100
+     * GET /api/admin/notifications/pending/changes?cursor=...&size=100
+     * 
+     * Notifications of bookings in PENDING_PAYMENT, oldest first, starting at "since"
+     * (inclusive) or right after "cursor". nextCursor is always the position of the last
+     * notification returned (or the cursor passed in, if none were), so keep polling with it;
+     * hasMore = the page was full, fetch again right away.
+     */
+    @GetMapping("/notifications/pending/changes")
+    public ResponseEntity<CursorPage<PendingNotificationDTO>> getPendingNotificationChanges(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) 
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(defaultValue = "100") int size) {
+        logger.debug("Admin: Polling pending notifications (cursor {}, since {}, size {})", cursor, since, size);
+        
+        NotificationCursor position;
+        if (cursor != null && !cursor.trim().isEmpty()) {
+            position = decodeNotificationCursor(cursor.trim());
+        } else if (since != null) {
+            // Empty id sorts before every id: notifications sent exactly at "since" are included
+            position = new NotificationCursor(since, "");
+        } else {
+            throw new BusinessException("INVALID_CURSOR", "Either cursor or since is required");
+        }
+        
+        int pageSize = Math.min(Math.max(size, 1), MAX_NOTIFICATION_PAGE_SIZE);
+        // Fetch one extra row to know if there is a next page without a COUNT query
+        List<PendingNotificationDTO> rows = notificationRepository.findByBookingStatusAfter(
+            "PENDING_PAYMENT", position.sentAt(), position.id(), PageRequest.of(0, pageSize + 1));
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<PendingNotificationDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        if (!items.isEmpty()) {
+            PendingNotificationDTO last = items.get(items.size() - 1);
+            position = new NotificationCursor(last.getSentAt(), last.getId());
+        }
+        
+        return ResponseEntity.ok(new CursorPage<>(items, encodeNotificationCursor(position), hasMore));
+    }
+    
+    /**
+     * Cursor = Base64URL("sentAt|id") of the last notification seen
+     */
+    private String encodeNotificationCursor(NotificationCursor position) {
+        String raw = position.sentAt() + "|" + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private NotificationCursor decodeNotificationCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Missing cursor separator");
+            }
+            return new NotificationCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("INVALID_CURSOR", "Invalid pagination cursor");
+        }
+    }
+    
+    private record NotificationCursor(LocalDateTime sentAt, String id) {}
+    
+    /**
+     * Live approval-queue events (Server-Sent Events)
+     * GET /api/admin/events/stream
+     * 
+     * Events: APPROVAL_NEEDED, BOOKING_APPROVED, BOOKING_CANCELLED (RESYNC = reload the list)
+     * On reconnect, send the Last-Event-ID header (or lastEventId parameter) to receive missed events
+     */
+    @GetMapping(value = "/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        logger.info("Admin: Subscribing to event stream (last event id {})", lastEventId);
+        return adminEventBus.subscribe(lastEventId);
+    }
+    
     /**
      * Get booking by ID (admin can see any booking)
      * GET /api/admin/bookings/{id}
@@ -264,6 +494,82 @@ public class AdminController {
         return ResponseEntity.ok(created);
     }
     
+    /**
+     * Bulk import a flight schedule (streamed, validated in parallel, batch inserted)
+     * POST /api/admin/flights/import?format=csv
+     * Body: CSV with a header line, or a JSON array of flights (format=json)
+     * 
+     * Duplicates (same flight number and cabin class on the same day) and invalid rows
+     * are skipped and reported; the other rows are inserted
+     */
+    @PostMapping("/flights/import")
+    public ResponseEntity<FlightImportResultDTO> importFlights(
+            @RequestParam(defaultValue = "csv") String format,
+            InputStream body) {
+        String importFormat = flightImportService.normalizeFormat(format);
+        logger.info("Admin: Importing flights as {}", importFormat);
+        return ResponseEntity.ok(flightImportService.importFlights(body, importFormat));
+    }
+    
+    /**
+     * Get schedule patterns
+     * GET /api/admin/schedules?page=0&size=20
+     */
+    @GetMapping("/schedules")
+    public ResponseEntity<Page<FlightSchedulePatternDTO>> getSchedulePatterns(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("flightNumber"));
+        return ResponseEntity.ok(flightScheduleService.getPatterns(pageable));
+    }
+    
+    /**
+     * Get schedule pattern
+     * GET /api/admin/schedules/{id}
+     */
+    @GetMapping("/schedules/{id}")
+    public ResponseEntity<FlightSchedulePatternDTO> getSchedulePattern(@PathVariable String id) {
+        return ResponseEntity.ok(flightScheduleService.getPattern(id));
+    }
+    
+    /**
+     * Create schedule pattern; its flights are generated up to the rolling horizon
+     * POST /api/admin/schedules
+     */
+    @PostMapping("/schedules")
+    public ResponseEntity<FlightSchedulePatternDTO> createSchedulePattern(@RequestBody FlightSchedulePatternDTO patternDTO) {
+        logger.info("Admin: Creating schedule pattern {}", patternDTO.getFlightNumber());
+        return ResponseEntity.ok(flightScheduleService.createPattern(patternDTO));
+    }
+    
+    /**
+     * Replace schedule pattern; future generated flights are updated to match
+     * PUT /api/admin/schedules/{id}
+     */
+    @PutMapping("/schedules/{id}")
+    public ResponseEntity<FlightSchedulePatternDTO> updateSchedulePattern(
+            @PathVariable String id,
+            @RequestBody FlightSchedulePatternDTO patternDTO) {
+        logger.info("Admin: Updating schedule pattern {}", id);
+        return ResponseEntity.ok(flightScheduleService.updatePattern(id, patternDTO));
+    }
+    
+    /**
+     * Deactivate schedule pattern; future flights are removed (cancelled if booked)
+     * DELETE /api/admin/schedules/{id}
+     */
+    @DeleteMapping("/schedules/{id}")
+    public ResponseEntity<Map<String, String>> deactivateSchedulePattern(@PathVariable String id) {
+        logger.info("Admin: Deactivating schedule pattern {}", id);
+        flightScheduleService.deactivatePattern(id);
+        
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Schedule pattern deactivated successfully");
+        response.put("scheduleId", id);
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Update flight
      * PUT /api/admin/flights/{id}
@@ -11,6 +11,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Authentication Controller
  * 
@@ -65,14 +67,15 @@ public class AuthController {
      * - Returns 401 if credentials invalid
      * - JWT token contains userId, email, role
      * - Token expires in 24 hours (configurable)
+     * - The BCrypt check runs on AuthService's worker pool; the request thread is
+     *   released until it completes (503 with Retry-After when the pool is saturated)
      * 
      * @param request LoginRequest (email, password)
      * @return LoginResponse (accessToken)
      */
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        LoginResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request).thenApply(ResponseEntity::ok);
     }
 }
 
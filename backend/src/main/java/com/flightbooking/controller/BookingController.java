@@ -1,9 +1,17 @@
 package com.flightbooking.controller;
 
 import com.flightbooking.dto.BookingDTO;
+import com.flightbooking.dto.BookingIntakeStatusDTO;
+import com.flightbooking.dto.BookingSummaryDTO;
+import com.flightbooking.dto.BulkBookingResultDTO;
 import com.flightbooking.dto.CreateBookingRequest;
+import com.flightbooking.dto.CursorPage;
 import com.flightbooking.dto.UpdateBookingStatusRequest;
+import com.flightbooking.service.BookingIntakeService;
 import com.flightbooking.service.BookingService;
+import com.flightbooking.service.BulkBookingService;
+import com.flightbooking.service.IdempotencyService;
+import com.flightbooking.util.JwtPrincipal;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +21,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
 
 import java.util.List;
 
@@ -40,7 +49,18 @@ public class BookingController {
     private BookingService bookingService;
     
     @Autowired
-    private com.flightbooking.util.JwtUtil jwtUtil;
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private BookingIntakeService bookingIntakeService;
+    
+    @Autowired
+    private BulkBookingService bulkBookingService;
+    
+    /**
+     * Max time a status request may wait for the booking to be written
+     */
+    private static final long MAX_STATUS_WAIT_SECONDS = 30;
     
     /**
      * Create new booking
@@ -50,12 +70,17 @@ public class BookingController {
      * - userId is extracted from JWT token (SecurityContext), NOT from request body
      * - Requires authentication (JWT token in Authorization header)
      * - Returns 401 if user not authenticated or not found
+     * - Optional Idempotency-Key header: retries with the same key return the
+     *   original booking instead of creating a duplicate PENDING booking
      * 
      * @param request CreateBookingRequest with flight segments and passengers (NO userId)
+     * @param idempotencyKey Client-generated key for safe retries (optional)
      * @return Created booking with 201 status
      */
     @PostMapping
-    public ResponseEntity<BookingDTO> createBooking(@Valid @RequestBody CreateBookingRequest request) {
+    public ResponseEntity<BookingDTO> createBooking(
+            @Valid @RequestBody CreateBookingRequest request,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         logger.info("🔍 === CREATE BOOKING REQUEST ===");
         
         // ✅ CRITICAL: Get userId from JWT token (SecurityContext)
@@ -105,38 +130,158 @@ public class BookingController {
             logger.warn("   ⚠️ User ID is not a valid UUID format: {}", userId);
         }
         
-        // ✅ Get email from JWT token for auto-create user if needed
-        String email = null;
-        try {
-            ServletRequestAttributes attributes = 
-                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            
-            if (attributes != null) {
-                jakarta.servlet.http.HttpServletRequest httpRequest = attributes.getRequest();
-                String authHeader = httpRequest.getHeader("Authorization");
-                
-                if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                    String token = authHeader.substring(7);
-                    email = jwtUtil.extractEmail(token);
-                    logger.info("✅ Extracted email from JWT token: {}", email);
-                } else {
-                    logger.warn("⚠️ Authorization header not found or invalid format");
-                }
-            } else {
-                logger.warn("⚠️ RequestContextHolder attributes is null");
-            }
-        } catch (Exception e) {
-            logger.error("❌ Failed to extract email from JWT token: {}", e.getMessage(), e);
-        }
+        // ✅ Email for auto-create user if needed (from the JwtPrincipal, the token is not parsed again)
+        String email = extractEmailFromToken();
         
         logger.info("Creating booking - User ID: {}, Email: {}", userId, email != null ? email : "NULL");
         
         // Service will throw exception if validation fails
         // GlobalExceptionHandler will catch and return proper error response
-        BookingDTO booking = bookingService.createBooking(request, userId, email);
+        // Retries with the same Idempotency-Key get the stored response (no DB writes)
+        final String emailFromToken = email;
+        return idempotencyService.execute("bookings:create:" + userId, idempotencyKey, request, () -> {
+            BookingDTO booking = bookingService.createBooking(request, userId, emailFromToken);
+            logger.info("Booking created successfully: {} (code: {})", booking.getId(), booking.getBookingCode());
+            return ResponseEntity.status(HttpStatus.CREATED).body(booking);
+        });
+    }
+    
+    /**
+     * Create booking asynchronously (for traffic spikes)
+     * POST /api/bookings/async
+     * 
+     * Request is validated and queued; the booking is written by a background worker.
+     * - 202 Accepted with trackingId and Location of the status endpoint
+     * - 400 if request is invalid (checked before queueing)
+     * - 503 + Retry-After if the intake queue is full
+     * 
+     * @param request CreateBookingRequest (same body as POST /api/bookings)
+     * @return Intake status (QUEUED)
+     */
+    @PostMapping("/async")
+    public ResponseEntity<BookingIntakeStatusDTO> createBookingAsync(@Valid @RequestBody CreateBookingRequest request) {
+        String userId = requireCurrentUserId();
+        String email = extractEmailFromToken();
         
-        logger.info("Booking created successfully: {} (code: {})", booking.getId(), booking.getBookingCode());
-        return ResponseEntity.status(HttpStatus.CREATED).body(booking);
+        BookingIntakeStatusDTO status = bookingIntakeService.submit(request, userId, email);
+        
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/bookings/async/" + status.getTrackingId()))
+            .body(status);
+    }
+    
+    /**
+     * Create many bookings in one request (agencies, group desks)
+     * POST /api/bookings/bulk
+     * 
+     * Body is a JSON array of CreateBookingRequest (max 500 by default).
+     * Partial success: every item gets its own result; valid items are
+     * created even if others fail validation or persistence.
+     * 
+     * @param requests Booking requests
+     * @return Per-item results with counts
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkBookingResultDTO> createBookingsBulk(@RequestBody List<CreateBookingRequest> requests) {
+        String userId = requireCurrentUserId();
+        String email = extractEmailFromToken();
+        
+        logger.info("Bulk booking request - User ID: {}, items: {}", userId, requests != null ? requests.size() : 0);
+        BulkBookingResultDTO result = bulkBookingService.createBookings(requests, userId, email);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Get outcome of an async booking request
+     * GET /api/bookings/async/{trackingId}?waitSeconds=10
+     * 
+     * waitSeconds = 0 (default): return current status immediately (polling)
+     * waitSeconds > 0: hold the request until the booking is written or the wait
+     * runs out (long polling, max 30s), then return the status at that moment
+     * 
+     * @param trackingId Tracking ID from POST /api/bookings/async
+     * @param waitSeconds How long to wait for completion
+     * @return Intake status (QUEUED, PROCESSING, COMPLETED with booking, FAILED with error)
+     */
+    @GetMapping("/async/{trackingId}")
+    public DeferredResult<ResponseEntity<BookingIntakeStatusDTO>> getAsyncBookingStatus(
+            @PathVariable String trackingId,
+            @RequestParam(defaultValue = "0") long waitSeconds) {
+        String userId = requireCurrentUserId();
+        
+        // Ownership check happens here, on the request thread
+        BookingIntakeStatusDTO current = bookingIntakeService.getStatus(trackingId, userId);
+        long wait = Math.min(Math.max(waitSeconds, 0), MAX_STATUS_WAIT_SECONDS);
+        
+        DeferredResult<ResponseEntity<BookingIntakeStatusDTO>> result = 
+            new DeferredResult<>(wait > 0 ? wait * 1000 : null);
+        
+        if (wait == 0 || isFinished(current)) {
+            result.setResult(ResponseEntity.ok(current));
+            return result;
+        }
+        
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(bookingIntakeService.getStatus(trackingId, userId))));
+        bookingIntakeService.awaitCompletion(trackingId, userId)
+            .thenAccept(status -> result.setResult(ResponseEntity.ok(status)));
+        return result;
+    }
+    
+    private boolean isFinished(BookingIntakeStatusDTO status) {
+        return BookingIntakeService.STATUS_COMPLETED.equals(status.getStatus()) 
+            || BookingIntakeService.STATUS_FAILED.equals(status.getStatus());
+    }
+    
+    private String requireCurrentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth.getName() == null || auth.getName().trim().isEmpty()) {
+            throw new org.springframework.security.authentication.AuthenticationCredentialsNotFoundException(
+                "User not authenticated. Please login to create booking.");
+        }
+        return auth.getName();
+    }
+    
+    /**
+     * Email of the caller, from the JwtPrincipal that JwtAuthenticationFilter put in the
+     * authentication details (the token is never parsed again here); null if not authenticated
+     */
+    private String extractEmailFromToken() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getDetails() instanceof JwtPrincipal principal) {
+            return principal.email();
+        }
+        return null;
+    }
+    
+    /**
+     * Get current user's bookings (cursor-paginated, newest first)
+     * GET /api/bookings/my?cursor=...&size=20
+     * 
+     * Returns lightweight summaries; use GET /api/bookings/{id} for full details.
+     * Pass nextCursor from the response as cursor to load the next page.
+     * 
+     * @param cursor Cursor from previous page (omit for first page)
+     * @param size Page size (default 20, max 100)
+     * @return Page of booking summaries
+     */
+    @GetMapping("/my")
+    public ResponseEntity<CursorPage<BookingSummaryDTO>> getMyBookings(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth.getName() == null) {
+            throw new org.springframework.security.authentication.AuthenticationCredentialsNotFoundException(
+                "User not authenticated. Please login to view bookings.");
+        }
+        
+        String userId = auth.getName();
+        logger.info("Fetching bookings page for user: {} (size: {}, cursor: {})", userId, size, cursor != null);
+        
+        CursorPage<BookingSummaryDTO> page = bookingService.getMyBookings(userId, cursor, size);
+        
+        logger.info("Returned {} bookings for user: {}, hasMore: {}", page.getItems().size(), userId, page.isHasMore());
+        return ResponseEntity.ok(page);
     }
     
     /**
@@ -157,24 +302,8 @@ public class BookingController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserId = auth != null && auth.isAuthenticated() ? auth.getName() : null;
         
-        // Try to get email from JWT token for admin check
-        String currentUserEmail = null;
-        try {
-            if (auth != null && auth.isAuthenticated()) {
-                ServletRequestAttributes attributes = 
-                    (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes != null) {
-                    jakarta.servlet.http.HttpServletRequest httpRequest = attributes.getRequest();
-                    String authHeader = httpRequest.getHeader("Authorization");
-                    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                        String token = authHeader.substring(7);
-                        currentUserEmail = jwtUtil.extractEmail(token);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to extract email from token: {}", e.getMessage());
-        }
+        // Email for the admin check (from the JwtPrincipal the filter already parsed)
+        String currentUserEmail = extractEmailFromToken();
         
         logger.info("Current user ID: {}, Email: {}", currentUserId, currentUserEmail);
         
@@ -203,24 +332,8 @@ public class BookingController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserId = auth != null && auth.isAuthenticated() ? auth.getName() : null;
         
-        // Try to get email from JWT token for admin check
-        String currentUserEmail = null;
-        try {
-            if (auth != null && auth.isAuthenticated()) {
-                ServletRequestAttributes attributes = 
-                    (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes != null) {
-                    jakarta.servlet.http.HttpServletRequest httpRequest = attributes.getRequest();
-                    String authHeader = httpRequest.getHeader("Authorization");
-                    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                        String token = authHeader.substring(7);
-                        currentUserEmail = jwtUtil.extractEmail(token);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to extract email from token: {}", e.getMessage());
-        }
+        // Email for the admin check (from the JwtPrincipal the filter already parsed)
+        String currentUserEmail = extractEmailFromToken();
         
         // Service will check ownership and throw exception if unauthorized
         BookingDTO booking = bookingService.getBookingByCode(bookingCode, currentUserId, currentUserEmail);
@@ -247,24 +360,8 @@ public class BookingController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserId = auth != null && auth.isAuthenticated() ? auth.getName() : null;
         
-        // Try to get email from JWT token for admin check
-        String currentUserEmail = null;
-        try {
-            if (auth != null && auth.isAuthenticated()) {
-                ServletRequestAttributes attributes = 
-                    (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes != null) {
-                    jakarta.servlet.http.HttpServletRequest httpRequest = attributes.getRequest();
-                    String authHeader = httpRequest.getHeader("Authorization");
-                    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                        String token = authHeader.substring(7);
-                        currentUserEmail = jwtUtil.extractEmail(token);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to extract email from token: {}", e.getMessage());
-        }
+        // Email for the admin check (from the JwtPrincipal the filter already parsed)
+        String currentUserEmail = extractEmailFromToken();
         
         // Service will check ownership and throw exception if unauthorized
         List<BookingDTO> bookings = bookingService.getBookingsByUserId(userId, currentUserId, currentUserEmail);
@@ -294,24 +391,8 @@ public class BookingController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserId = auth != null && auth.isAuthenticated() ? auth.getName() : null;
         
-        // Try to get email from JWT token for admin check
-        String currentUserEmail = null;
-        try {
-            if (auth != null && auth.isAuthenticated()) {
-                ServletRequestAttributes attributes = 
-                    (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes != null) {
-                    jakarta.servlet.http.HttpServletRequest httpRequest = attributes.getRequest();
-                    String authHeader = httpRequest.getHeader("Authorization");
-                    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                        String token = authHeader.substring(7);
-                        currentUserEmail = jwtUtil.extractEmail(token);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to extract email from token: {}", e.getMessage());
-        }
+        // Email for the admin check (from the JwtPrincipal the filter already parsed)
+        String currentUserEmail = extractEmailFromToken();
         
         // Service will validate status transition and check ownership
         BookingDTO booking = bookingService.updateBookingStatus(id, request.getStatus(), currentUserId, currentUserEmail);
@@ -338,24 +419,8 @@ public class BookingController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserId = auth != null && auth.isAuthenticated() ? auth.getName() : null;
         
-        // Try to get email from JWT token for admin check
-        String currentUserEmail = null;
-        try {
-            if (auth != null && auth.isAuthenticated()) {
-                ServletRequestAttributes attributes = 
-                    (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes != null) {
-                    jakarta.servlet.http.HttpServletRequest httpRequest = attributes.getRequest();
-                    String authHeader = httpRequest.getHeader("Authorization");
-                    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                        String token = authHeader.substring(7);
-                        currentUserEmail = jwtUtil.extractEmail(token);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to extract email from token: {}", e.getMessage());
-        }
+        // Email for the admin check (from the JwtPrincipal the filter already parsed)
+        String currentUserEmail = extractEmailFromToken();
         
         // Service will check ownership and business rules
         bookingService.cancelBooking(id, currentUserId, currentUserEmail);
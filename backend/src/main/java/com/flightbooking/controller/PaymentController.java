@@ -3,12 +3,11 @@ package com.flightbooking.controller;
 import com.flightbooking.dto.PaymentCreateRequest;
 import com.flightbooking.dto.PaymentResponse;
 import com.flightbooking.entity.Payment;
+import com.flightbooking.service.IdempotencyService;
 import com.flightbooking.service.PaymentService;
+import com.flightbooking.service.PaymentWebhookService;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.model.Event;
-import com.stripe.model.EventDataObjectDeserializer;
-import com.stripe.model.StripeObject;
-import com.stripe.model.checkout.Session;
 import com.stripe.net.Webhook;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -17,6 +16,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -45,6 +48,12 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+    
     @Value("${stripe.webhook.secret:}")
     private String stripeWebhookSecret;
     
@@ -55,18 +64,34 @@ public class PaymentController {
      * Request: { "bookingId": "...", "paymentMethod": "STRIPE" }
      * Response: { "paymentId": "...", "checkoutUrl": "...", ... }
      * 
+     * Optional Idempotency-Key header: retries with the same key return the
+     * original payment instead of creating a duplicate. Keys are scoped per user,
+     * so the header is only accepted from an authenticated caller
+     * 
      * GlobalExceptionHandler will catch and handle exceptions
      */
     @PostMapping("/create")
-    public ResponseEntity<PaymentResponse> createPayment(@Valid @RequestBody PaymentCreateRequest request) {
+    public ResponseEntity<PaymentResponse> createPayment(
+            @Valid @RequestBody PaymentCreateRequest request,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         logger.info("Received payment create request for booking: {}", request.getBookingId());
         
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken);
+        if (!authenticated && idempotencyKey != null && !idempotencyKey.trim().isEmpty()) {
+            // An unauthenticated scope would be shared by every client: they would replay each other's responses
+            throw new AuthenticationCredentialsNotFoundException("Idempotency-Key requires an authenticated user");
+        }
+        String userId = authenticated ? auth.getName() : "anonymous";
+        
         // Service will throw exception if validation fails
         // GlobalExceptionHandler will catch and return proper error response
-        PaymentResponse response = paymentService.createPayment(request);
-        
-        logger.info("Payment created successfully: {}", response.getPaymentId());
-        return ResponseEntity.ok(response);
+        // Retries with the same Idempotency-Key get the stored response (no DB writes)
+        return idempotencyService.execute("payments:create:" + userId, idempotencyKey, request, () -> {
+            PaymentResponse response = paymentService.createPayment(request);
+            logger.info("Payment created successfully: {}", response.getPaymentId());
+            return ResponseEntity.ok(response);
+        });
     }
     
     /**
@@ -114,6 +139,8 @@ public class PaymentController {
      * - payment_intent.payment_failed: Payment failed
      * 
      * Webhook signature verification ensures authenticity
+     * The event is stored and acknowledged immediately, then processed
+     * asynchronously (PaymentWebhookService); Stripe retries of the same event are ignored
      */
     @PostMapping("/webhook/stripe")
     public ResponseEntity<String> handleStripeWebhook(
@@ -146,85 +173,15 @@ public class PaymentController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid payload");
         }
         
-        // Handle different event types
+        // Store and acknowledge - processing happens asynchronously, duplicates are dropped
         try {
-            switch (event.getType()) {
-                case "checkout.session.completed":
-                    handleCheckoutSessionCompleted(event);
-                    break;
-                    
-                case "payment_intent.succeeded":
-                    handlePaymentIntentSucceeded(event);
-                    break;
-                    
-                case "payment_intent.payment_failed":
-                    handlePaymentIntentFailed(event);
-                    break;
-                    
-                default:
-                    logger.info("Unhandled Stripe event type: {}", event.getType());
-            }
-            
-            return ResponseEntity.ok("Webhook processed");
+            paymentWebhookService.receiveStripeEvent(event, payload);
+            return ResponseEntity.ok("Webhook received");
             
         } catch (Exception e) {
-            logger.error("Error processing Stripe webhook: {}", e.getMessage(), e);
+            logger.error("Error storing Stripe webhook: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error processing webhook");
         }
     }
-    
-    /**
-     * Handle checkout.session.completed event
-     * Triggered when customer successfully completes payment
-     */
-    private void handleCheckoutSessionCompleted(Event event) {
-        EventDataObjectDeserializer dataObjectDeserializer = event.getDataObjectDeserializer();
-        StripeObject stripeObject;
-        
-        if (dataObjectDeserializer.getObject().isPresent()) {
-            stripeObject = dataObjectDeserializer.getObject().get();
-        } else {
-            logger.error("Failed to deserialize Stripe object");
-            return;
-        }
-        
-        if (stripeObject instanceof Session) {
-            Session session = (Session) stripeObject;
-            String bookingId = session.getMetadata().get("booking_id");
-            String paymentIntentId = session.getPaymentIntent();
-            
-            logger.info("Checkout session completed for booking: {}", bookingId);
-            logger.info("Payment Intent ID: {}", paymentIntentId);
-            
-            // Find payment by transaction ID (session ID) or payment intent ID
-            // Update payment status to SUCCESS
-            // This will trigger booking confirmation in PaymentService
-            try {
-                // For now, we'll log this
-                // In production, update payment status here
-                logger.info("Payment successful for booking: {}", bookingId);
-                // paymentService.updatePaymentStatus(paymentId, "SUCCESS", null);
-            } catch (Exception e) {
-                logger.error("Error updating payment status: {}", e.getMessage());
-            }
-        }
-    }
-    
-    /**
-     * Handle payment_intent.succeeded event
-     */
-    private void handlePaymentIntentSucceeded(Event event) {
-        logger.info("Payment Intent succeeded");
-        // Additional logic if needed
-    }
-    
-    /**
-     * Handle payment_intent.payment_failed event
-     */
-    private void handlePaymentIntentFailed(Event event) {
-        logger.info("Payment Intent failed");
-        // Update payment status to FAILED
-        // Optionally notify user
-    }
 }
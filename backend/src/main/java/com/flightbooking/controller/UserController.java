@@ -4,6 +4,7 @@ import com.flightbooking.dto.LoginRequest;
 import com.flightbooking.dto.LoginResponse;
 import com.flightbooking.dto.RegisterRequest;
 import com.flightbooking.dto.UserDTO;
+import com.flightbooking.service.AuthService;
 import com.flightbooking.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/users")
@@ -21,6 +23,9 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private AuthService authService;
+    
     @PostMapping("/register")
     public ResponseEntity<UserDTO> register(@Valid @RequestBody RegisterRequest request) {
         // Let GlobalExceptionHandler handle exceptions
@@ -29,11 +34,10 @@ public class UserController {
     }
     
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        // Let GlobalExceptionHandler handle exceptions
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest request) {
+        // Let GlobalExceptionHandler handle exceptions (also when the future fails)
         // ✅ Now returns JWT token + user info
-        LoginResponse response = userService.login(request);
-        return ResponseEntity.ok(response);
+        return authService.login(request).thenApply(ResponseEntity::ok);
     }
     
     @GetMapping("/{id}")
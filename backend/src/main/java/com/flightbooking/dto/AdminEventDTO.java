@@ -0,0 +1,28 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Admin Event DTO
+ * 
+ * One entry of the admin event stream (GET /api/admin/events/stream)
+ * Types: APPROVAL_NEEDED, BOOKING_APPROVED, BOOKING_CANCELLED
+ * id is the sequence within the node's run; the SSE event id is "<epoch>-<id>"
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdminEventDTO {
+    private long id;
+    private String type;
+    private String bookingId;
+    private String bookingCode;
+    private String bookingStatus;
+    private LocalDateTime occurredAt;
+}
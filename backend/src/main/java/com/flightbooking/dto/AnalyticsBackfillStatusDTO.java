@@ -0,0 +1,30 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Analytics Backfill Status DTO
+ * 
+ * Progress of the last analytics backfill run on this node
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsBackfillStatusDTO {
+    private boolean running;
+    private LocalDate from;
+    private LocalDate to;
+    private LocalDate lastCompletedDay;
+    private long daysCompleted;
+    private long rowsRead;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private String error;
+}
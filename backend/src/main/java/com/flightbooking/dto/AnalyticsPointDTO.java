@@ -0,0 +1,27 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Analytics Point DTO
+ * 
+ * One time bucket of a booking/revenue curve (filled directly by a JPQL
+ * constructor expression over analytics_buckets)
+ * dimension is the route or airline when grouped, otherwise "ALL"
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsPointDTO {
+    private LocalDateTime bucketStart;
+    private String dimension;
+    private Long bookings;
+    private Long confirmedBookings;
+    private Long cancelledBookings;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,39 @@
+package com.flightbooking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking Intake Status DTO
+ * 
+ * Outcome of an asynchronous booking request (POST /api/bookings/async)
+ * Status: QUEUED -> PROCESSING -> COMPLETED | FAILED
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingIntakeStatusDTO {
+    private String trackingId;
+    private String status;
+    
+    /**
+     * Created booking (only when status = COMPLETED)
+     */
+    private BookingDTO booking;
+    
+    /**
+     * Failure reason (only when status = FAILED)
+     */
+    private String errorCode;
+    private String errorMessage;
+    
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,42 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Booking Summary DTO
+ * 
+ * Lightweight booking row for list views ("my bookings")
+ * Only carries first segment route/time and counts - full details
+ * (segments, passengers, seats) are loaded via GET /api/bookings/{id}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingSummaryDTO {
+    private String id;
+    private String bookingCode;
+    private String status;
+    private BigDecimal totalAmount;
+    private String currency;
+    private LocalDateTime holdExpiresAt;
+    private LocalDateTime createdAt;
+    
+    /**
+     * First flight segment (route and departure)
+     */
+    private String airline;
+    private String flightNumber;
+    private String origin;
+    private String destination;
+    private LocalDateTime departTime;
+    
+    private int segmentCount;
+    private int passengerCount;
+}
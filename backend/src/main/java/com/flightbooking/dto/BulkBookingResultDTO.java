@@ -0,0 +1,44 @@
+package com.flightbooking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Bulk Booking Result DTO
+ * 
+ * Response of POST /api/bookings/bulk
+ * One item per request in the uploaded array (same order, by index)
+ * Partial success: valid bookings are created even if others fail
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkBookingResultDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<Item> results;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+        /**
+         * Position of the request in the uploaded array (0-based)
+         */
+        private int index;
+        private boolean success;
+        private String bookingId;
+        private String bookingCode;
+        private String errorCode;
+        private String errorMessage;
+    }
+}
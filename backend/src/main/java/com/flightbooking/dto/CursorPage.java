@@ -0,0 +1,24 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Cursor Page
+ * 
+ * One page of a keyset-paginated list
+ * Pass nextCursor back as ?cursor=... to get the following page
+ * nextCursor is null when there are no more items
+ * (polling feeds keep returning it, with hasMore = false, to resume from later)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
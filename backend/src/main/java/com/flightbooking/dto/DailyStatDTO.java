@@ -0,0 +1,23 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Daily Stat DTO
+ * 
+ * One day of a statistics metric (admin charts)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyStatDTO {
+    private LocalDate date;
+    private String metric;
+    private Long count;
+    private BigDecimal amount;
+}
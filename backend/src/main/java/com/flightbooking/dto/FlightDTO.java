@@ -27,5 +27,6 @@ public class FlightDTO {
     private String status;
     private String aircraftType;
     private Integer durationMinutes;
+    private String schedulePatternId;
 }
 
@@ -0,0 +1,45 @@
+package com.flightbooking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Flight Import Result DTO
+ * 
+ * Response of POST /api/admin/flights/import
+ * Partial success: valid, non-duplicate rows are inserted even if others fail
+ * Only the first max-errors rejected rows are listed (errorsTruncated = true if more)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FlightImportResultDTO {
+    private long total;
+    private long inserted;
+    private long duplicates;
+    private long failed;
+    private long durationMs;
+    private boolean errorsTruncated;
+    private List<Error> errors;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Error {
+        /**
+         * CSV: line number (header = 1); JSON: position in the array (1-based)
+         */
+        private long row;
+        private String flightNumber;
+        private String errorCode;
+        private String errorMessage;
+    }
+}
@@ -0,0 +1,45 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Flight Schedule Pattern DTO
+ * 
+ * Request/response of /api/admin/schedules
+ * e.g. VN123 SGN-HAN, departTime 07:00, daysOfWeek [MONDAY..FRIDAY], validFrom/validTo 6 months apart
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FlightSchedulePatternDTO {
+    private String id;
+    private String flightNumber;
+    private String airline;
+    private String origin;
+    private String destination;
+    private LocalTime departTime;
+    private Integer durationMinutes;
+    private List<DayOfWeek> daysOfWeek;
+    private LocalDate validFrom;
+    private LocalDate validTo;
+    private String cabinClass;
+    private BigDecimal baseFare;
+    private BigDecimal taxes;
+    private Integer totalSeats;
+    private String aircraftType;
+    private Boolean active;
+    private LocalDate generatedUntil;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
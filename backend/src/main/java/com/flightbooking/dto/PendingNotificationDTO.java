@@ -0,0 +1,30 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pending Notification DTO
+ * 
+ * Admin approval notification together with the booking fields the admin
+ * panel shows (filled directly by a JPQL constructor expression, no entity loading)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingNotificationDTO {
+    private String id;
+    private String bookingId;
+    private String channel;
+    private String recipient;
+    private String content;
+    private LocalDateTime sentAt;
+    private String bookingCode;
+    private String bookingStatus;
+    private BigDecimal totalAmount;
+    private String currency;
+}
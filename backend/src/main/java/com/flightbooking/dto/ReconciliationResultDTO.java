@@ -0,0 +1,30 @@
+package com.flightbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reconciliation Result DTO
+ * 
+ * Summary of one settlement file reconciled against the payments table
+ * (the mismatches themselves are written to the report file)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationResultDTO {
+    private String settlementFile;
+    private String reportFile;
+    private String provider;
+    private long settlementRows;
+    private long paymentRows;
+    private long matched;
+    private long mismatches;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,77 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated booking/revenue numbers for one time bucket, route and airline
+ * Maintained by AnalyticsService from booking and payment events; historical
+ * buckets are filled by AnalyticsBackfillService
+ */
+@Entity
+@Table(name = "analytics_buckets",
+       indexes = {
+           @Index(name = "idx_analytics_buckets_route", columnList = "granularity, route, bucket_start"),
+           @Index(name = "idx_analytics_buckets_airline", columnList = "granularity, airline, bucket_start")
+       })
+@IdClass(AnalyticsBucket.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsBucket {
+    @Id
+    @Column(length = 10)
+    private String granularity; // HOUR, DAY, MONTH
+    
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+    
+    /**
+     * Origin-destination of the booking's first segment (e.g. "SGN-HAN")
+     */
+    @Id
+    @Column(length = 20)
+    private String route;
+    
+    @Id
+    @Column(length = 100)
+    private String airline;
+    
+    /**
+     * Bookings created
+     */
+    @Column(nullable = false)
+    private Long bookings;
+    
+    @Column(name = "confirmed_bookings", nullable = false)
+    private Long confirmedBookings;
+    
+    @Column(name = "cancelled_bookings", nullable = false)
+    private Long cancelledBookings;
+    
+    /**
+     * Successful payments minus refunds
+     */
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String granularity;
+        private LocalDateTime bucketStart;
+        private String route;
+        private String airline;
+    }
+}
@@ -10,7 +10,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings",
+       indexes = {
+           @Index(name = "idx_bookings_user_created", columnList = "user_id,created_at"),
+           @Index(name = "idx_bookings_status_hold_expires", columnList = "status,hold_expires_at"),
+           @Index(name = "idx_bookings_status_amount", columnList = "status,total_amount"),
+           @Index(name = "idx_bookings_status_updated", columnList = "status,updated_at"),
+           @Index(name = "idx_bookings_status_created", columnList = "status,created_at"),
+           @Index(name = "idx_bookings_created_at", columnList = "created_at")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
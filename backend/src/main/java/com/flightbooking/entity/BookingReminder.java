@@ -0,0 +1,40 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger of reminder emails already sent (one row per booking + reminder type)
+ * The unique constraint guarantees a reminder is sent at most once, across restarts and nodes
+ */
+@Entity
+@Table(name = "booking_reminders",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_booking_reminders_booking_type", columnNames = {"booking_id", "reminder_type"})
+       },
+       indexes = {
+           @Index(name = "idx_booking_reminders_departure", columnList = "departure_time")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingReminder {
+    @Id
+    private String id;
+    
+    @Column(name = "booking_id", nullable = false)
+    private String bookingId;
+    
+    @Column(name = "reminder_type", nullable = false, length = 20)
+    private String reminderType; // DAY_BEFORE, URGENT
+    
+    @Column(name = "departure_time")
+    private LocalDateTime departureTime;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
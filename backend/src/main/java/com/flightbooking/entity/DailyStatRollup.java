@@ -0,0 +1,54 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Daily rollup of a statistics metric (one row per day + metric)
+ * Written by StatisticsService; used for historical charts instead of scanning bookings
+ */
+@Entity
+@Table(name = "daily_stat_rollups",
+       indexes = {
+           @Index(name = "idx_daily_stat_rollups_metric_date", columnList = "metric, stat_date")
+       })
+@IdClass(DailyStatRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyStatRollup {
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+    
+    /**
+     * Metric name (e.g. "bookings.created", "bookings.CONFIRMED", "payments.SUCCESS")
+     */
+    @Id
+    @Column(length = 100)
+    private String metric;
+    
+    @Column(name = "count_value", nullable = false)
+    private Long countValue;
+    
+    @Column(name = "amount_value", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amountValue;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate statDate;
+        private String metric;
+    }
+}
@@ -0,0 +1,56 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email that could not be delivered after all retries
+ * (or was dropped because the dispatch queue was full / app was shutting down)
+ * Kept for inspection and manual re-send
+ */
+@Entity
+@Table(name = "email_dead_letters",
+       indexes = {
+           @Index(name = "idx_email_dead_letters_failed_at", columnList = "failed_at")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDeadLetter {
+    @Id
+    private String id;
+    
+    private String recipient;
+    
+    private String subject;
+    
+    private String template;
+    
+    /**
+     * Rendered HTML body (null if rendering itself failed)
+     */
+    @Column(columnDefinition = "TEXT")
+    private String body;
+    
+    private Integer attempts;
+    
+    /**
+     * SEND_FAILED, RENDER_FAILED, QUEUE_FULL, SHUTDOWN
+     */
+    private String reason;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        failedAt = LocalDateTime.now();
+    }
+}
@@ -9,7 +9,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "flights")
+@Table(name = "flights",
+       indexes = {
+           @Index(name = "idx_flights_number_depart", columnList = "flight_number,depart_time"),
+           @Index(name = "idx_flights_schedule_pattern_depart", columnList = "schedule_pattern_id,depart_time")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -58,6 +62,12 @@ public class Flight {
     @Column(name = "duration_minutes")
     private Integer durationMinutes;
     
+    /**
+     * FlightSchedulePattern this flight was generated from (null if created on its own)
+     */
+    @Column(name = "schedule_pattern_id", length = 36)
+    private String schedulePatternId;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -0,0 +1,104 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Recurring flight schedule (e.g. VN123 SGN-HAN daily 07:00, Mon-Fri, for 6 months)
+ * Expanded into Flight rows over a rolling horizon by FlightScheduleService;
+ * generated flights carry the pattern's id in Flight.schedulePatternId
+ */
+@Entity
+@Table(name = "flight_schedule_patterns",
+       indexes = {
+           @Index(name = "idx_flight_schedule_patterns_active_generated", columnList = "active,generated_until")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightSchedulePattern {
+    
+    @Id
+    private String id;
+    
+    @Column(name = "flight_number", nullable = false)
+    private String flightNumber;
+    
+    @Column(nullable = false)
+    private String airline;
+    
+    @Column(nullable = false, length = 10)
+    private String origin;
+    
+    @Column(nullable = false, length = 10)
+    private String destination;
+    
+    /**
+     * Local departure time of every generated flight
+     */
+    @Column(name = "depart_time", nullable = false)
+    private LocalTime departTime;
+    
+    @Column(name = "duration_minutes", nullable = false)
+    private Integer durationMinutes;
+    
+    /**
+     * ISO days of week the flight operates, as digits (1 = Monday ... 7 = Sunday), e.g. "12345"
+     */
+    @Column(name = "days_of_week", nullable = false, length = 7)
+    private String daysOfWeek;
+    
+    @Column(name = "valid_from", nullable = false)
+    private LocalDate validFrom;
+    
+    @Column(name = "valid_to", nullable = false)
+    private LocalDate validTo;
+    
+    @Column(name = "cabin_class", nullable = false)
+    private String cabinClass;
+    
+    @Column(name = "base_fare", precision = 10, scale = 2)
+    private BigDecimal baseFare;
+    
+    @Column(precision = 10, scale = 2)
+    private BigDecimal taxes;
+    
+    @Column(name = "total_seats")
+    private Integer totalSeats;
+    
+    @Column(name = "aircraft_type")
+    private String aircraftType;
+    
+    @Column(nullable = false)
+    private Boolean active;
+    
+    /**
+     * Last day flights have been generated for (null = none yet)
+     */
+    @Column(name = "generated_until")
+    private LocalDate generatedUntil;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
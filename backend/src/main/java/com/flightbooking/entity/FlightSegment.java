@@ -10,7 +10,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "flight_segments")
+@Table(name = "flight_segments",
+       indexes = {
+           @Index(name = "idx_flight_segments_booking_id", columnList = "booking_id"),
+           @Index(name = "idx_flight_segments_booking_depart", columnList = "booking_id,depart_time"),
+           @Index(name = "idx_flight_segments_depart_time", columnList = "depart_time"),
+           @Index(name = "idx_flight_segments_flight_depart", columnList = "flight_number,depart_time")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -8,7 +8,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+       indexes = {
+           @Index(name = "idx_notifications_booking_id", columnList = "booking_id"),
+           @Index(name = "idx_notifications_sent_at", columnList = "sent_at")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,66 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Side effect to run after a transaction commits (transactional outbox)
+ * Written in the same transaction as the business change, drained by OutboxRelay
+ */
+@Entity
+@Table(name = "outbox_events",
+       indexes = {
+           @Index(name = "idx_outbox_events_status_next", columnList = "status, next_attempt_at")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    private String id;
+    
+    /**
+     * ISSUE_TICKET, BOOKING_CONFIRMATION_EMAIL, PAYMENT_RECEIPT_EMAIL, ADMIN_APPROVAL_NOTIFICATION
+     * (PAYMENT_EMAILS: both emails, only in events stored before they were split)
+     */
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+    
+    /**
+     * Booking ID or payment ID, depending on event type
+     */
+    @Column(name = "aggregate_id", nullable = false)
+    private String aggregateId;
+    
+    /**
+     * PENDING, PROCESSING, DONE, FAILED
+     */
+    @Column(nullable = false, length = 20)
+    private String status;
+    
+    private Integer attempts;
+    
+    /**
+     * PENDING: earliest retry time; PROCESSING: claim expiry (crashed relay -> claimable again)
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -10,7 +10,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "passengers")
+@Table(name = "passengers",
+       indexes = {
+           @Index(name = "idx_passengers_booking_id", columnList = "booking_id")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
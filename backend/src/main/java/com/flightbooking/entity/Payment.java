@@ -30,7 +30,11 @@ import java.util.List;
  * - BANK_TRANSFER: Direct bank transfer
  */
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+       indexes = {
+           @Index(name = "idx_payments_method_created", columnList = "payment_method,created_at"),
+           @Index(name = "idx_payments_status_updated", columnList = "status,updated_at")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
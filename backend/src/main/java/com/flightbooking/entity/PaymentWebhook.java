@@ -8,7 +8,13 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment_webhooks")
+@Table(name = "payment_webhooks",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_payment_webhooks_provider_event", columnNames = {"provider", "event_id"})
+       },
+       indexes = {
+           @Index(name = "idx_payment_webhooks_status_received", columnList = "status, received_at")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,14 +27,41 @@ public class PaymentWebhook {
     
     private String provider;
     
+    /**
+     * Provider's event ID (or payload hash if the provider sends none) - used for deduplication
+     */
+    @Column(name = "event_id")
+    private String eventId;
+    
+    @Column(name = "event_type")
+    private String eventType;
+    
     @Column(columnDefinition = "JSONB")
     private String payload;
     
     private Boolean verified;
     
+    /**
+     * RECEIVED, PROCESSING, PROCESSED, FAILED, IGNORED
+     */
+    @Column(length = 20)
+    private String status;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
     @Column(name = "received_at")
     private LocalDateTime receivedAt;
     
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    /**
+     * When a worker claimed it (status PROCESSING); a stale claim is taken over by the recovery sweep
+     */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_id", insertable = false, updatable = false)
     private Payment payment;
@@ -0,0 +1,36 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease for a scheduled job: only the node holding an unexpired lease runs the job
+ * Lets several backend instances share one database without running jobs twice
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+    /**
+     * Job name (e.g. "booking-reminders")
+     */
+    @Id
+    private String name;
+    
+    /**
+     * Node that holds (or last held) the lease
+     */
+    private String owner;
+    
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+    
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+}
@@ -27,7 +27,8 @@ import java.time.LocalDateTime;
        indexes = {
            @Index(name = "idx_seat_locks_flight_seat", columnList = "flight_number,seat_number"),
            @Index(name = "idx_seat_locks_expires_at", columnList = "expires_at"),
-           @Index(name = "idx_seat_locks_status", columnList = "status")
+           @Index(name = "idx_seat_locks_status", columnList = "status"),
+           @Index(name = "idx_seat_locks_booking_id", columnList = "booking_id")
        })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,37 @@
+package com.flightbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running total for the admin dashboard (one row per metric)
+ * Incremented by StatisticsService as bookings, payments, users and flights change;
+ * rebuilt from the source tables by a nightly job
+ */
+@Entity
+@Table(name = "stat_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatCounter {
+    /**
+     * Metric name (e.g. "bookings.CONFIRMED", "users.total", "flights.total")
+     */
+    @Id
+    @Column(length = 100)
+    private String metric;
+    
+    @Column(name = "count_value", nullable = false)
+    private Long countValue;
+    
+    @Column(name = "amount_value", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amountValue;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
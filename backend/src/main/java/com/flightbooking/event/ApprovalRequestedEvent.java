@@ -0,0 +1,31 @@
+package com.flightbooking.event;
+
+/**
+ * Approval Requested Event
+ * 
+ * Published when an admin approval notification is created for a booking
+ * (payment submitted, or automatic confirmation failed)
+ */
+public class ApprovalRequestedEvent {
+    
+    private final String bookingId;
+    private final String bookingCode;
+    
+    public ApprovalRequestedEvent(String bookingId, String bookingCode) {
+        this.bookingId = bookingId;
+        this.bookingCode = bookingCode;
+    }
+    
+    public String getBookingId() {
+        return bookingId;
+    }
+    
+    public String getBookingCode() {
+        return bookingCode;
+    }
+    
+    @Override
+    public String toString() {
+        return "ApprovalRequestedEvent{bookingId=" + bookingId + ", bookingCode=" + bookingCode + "}";
+    }
+}
@@ -0,0 +1,50 @@
+package com.flightbooking.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Booking Status Changed Event
+ * 
+ * Published whenever a booking moves to a new status
+ * (create, confirm, ticket, cancel, finalize, expire, admin actions)
+ * previousStatus is null for a newly created booking
+ * 
+ * Listeners should use @TransactionalEventListener so they only
+ * see changes that were actually committed
+ */
+public class BookingStatusChangedEvent {
+    
+    private final String bookingId;
+    private final String previousStatus;
+    private final String newStatus;
+    private final BigDecimal totalAmount;
+    
+    public BookingStatusChangedEvent(String bookingId, String previousStatus, String newStatus,
+                                     BigDecimal totalAmount) {
+        this.bookingId = bookingId;
+        this.previousStatus = previousStatus;
+        this.newStatus = newStatus;
+        this.totalAmount = totalAmount;
+    }
+    
+    public String getBookingId() {
+        return bookingId;
+    }
+    
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+    
+    public String getNewStatus() {
+        return newStatus;
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+    
+    @Override
+    public String toString() {
+        return "BookingStatusChangedEvent{bookingId=" + bookingId + ", " + previousStatus + " -> " + newStatus + "}";
+    }
+}
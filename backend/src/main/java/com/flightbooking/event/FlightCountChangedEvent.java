@@ -0,0 +1,25 @@
+package com.flightbooking.event;
+
+/**
+ * Flight Count Changed Event
+ * 
+ * Published when flights are added (admin create, bulk import, seeding) or deleted
+ * delta is positive for added flights, negative for deleted ones
+ */
+public class FlightCountChangedEvent {
+    
+    private final int delta;
+    
+    public FlightCountChangedEvent(int delta) {
+        this.delta = delta;
+    }
+    
+    public int getDelta() {
+        return delta;
+    }
+    
+    @Override
+    public String toString() {
+        return "FlightCountChangedEvent{delta=" + delta + "}";
+    }
+}
@@ -0,0 +1,53 @@
+package com.flightbooking.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Payment Status Changed Event
+ * 
+ * Published when a payment is created or moves to a new status
+ * (webhook update, admin approval)
+ * previousStatus is null for a newly created payment
+ */
+public class PaymentStatusChangedEvent {
+    
+    private final String paymentId;
+    private final String bookingId;
+    private final String previousStatus;
+    private final String newStatus;
+    private final BigDecimal amount;
+    
+    public PaymentStatusChangedEvent(String paymentId, String bookingId, String previousStatus, String newStatus,
+                                     BigDecimal amount) {
+        this.paymentId = paymentId;
+        this.bookingId = bookingId;
+        this.previousStatus = previousStatus;
+        this.newStatus = newStatus;
+        this.amount = amount;
+    }
+    
+    public String getPaymentId() {
+        return paymentId;
+    }
+    
+    public String getBookingId() {
+        return bookingId;
+    }
+    
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+    
+    public String getNewStatus() {
+        return newStatus;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    @Override
+    public String toString() {
+        return "PaymentStatusChangedEvent{paymentId=" + paymentId + ", " + previousStatus + " -> " + newStatus + "}";
+    }
+}
@@ -0,0 +1,36 @@
+package com.flightbooking.event;
+
+/**
+ * User Role Changed Event
+ * 
+ * Published when an admin changes the role of a user
+ */
+public class UserRoleChangedEvent {
+    
+    private final String userId;
+    private final String previousRole;
+    private final String newRole;
+    
+    public UserRoleChangedEvent(String userId, String previousRole, String newRole) {
+        this.userId = userId;
+        this.previousRole = previousRole;
+        this.newRole = newRole;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public String getPreviousRole() {
+        return previousRole;
+    }
+    
+    public String getNewRole() {
+        return newRole;
+    }
+    
+    @Override
+    public String toString() {
+        return "UserRoleChangedEvent{userId=" + userId + ", " + previousRole + " -> " + newRole + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.flightbooking.event;
+
+/**
+ * User Status Changed Event
+ * 
+ * Published when a user is created (registration, auto-created from token)
+ * or an admin changes the account status
+ * previousStatus is null for a newly created user
+ */
+public class UserStatusChangedEvent {
+    
+    private final String userId;
+    private final String previousStatus;
+    private final String newStatus;
+    
+    public UserStatusChangedEvent(String userId, String previousStatus, String newStatus) {
+        this.userId = userId;
+        this.previousStatus = previousStatus;
+        this.newStatus = newStatus;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+    
+    public String getNewStatus() {
+        return newStatus;
+    }
+    
+    @Override
+    public String toString() {
+        return "UserStatusChangedEvent{userId=" + userId + ", " + previousStatus + " -> " + newStatus + "}";
+    }
+}
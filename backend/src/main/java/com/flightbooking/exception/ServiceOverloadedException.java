@@ -0,0 +1,30 @@
+package com.flightbooking.exception;
+
+/**
+ * Service Overloaded Exception
+ * 
+ * Thrown when the server sheds load instead of queueing more work
+ * Examples:
+ * - Async booking intake queue is full
+ * 
+ * Mapped to 503 Service Unavailable with a Retry-After header
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private final String errorCode;
+    private final long retryAfterSeconds;
+    
+    public ServiceOverloadedException(String errorCode, String message, long retryAfterSeconds) {
+        super(message);
+        this.errorCode = errorCode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public String getErrorCode() {
+        return errorCode;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
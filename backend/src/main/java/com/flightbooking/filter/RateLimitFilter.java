@@ -0,0 +1,174 @@
+package com.flightbooking.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightbooking.dto.ErrorResponse;
+import com.flightbooking.service.RateLimitService;
+import com.flightbooking.service.RateLimitService.Limit;
+import com.flightbooking.util.JwtPrincipal;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate Limit Filter
+ * 
+ * Per-user / per-IP token buckets (RateLimitService) for the endpoints scrapers and
+ * bots abuse. Runs in the security chain after JwtAuthenticationFilter, so:
+ * - authenticated requests are limited per userId (JwtPrincipal)
+ * - anonymous requests are limited per client IP
+ * 
+ * Endpoint groups (rate-limit.<group>.per-second / .burst):
+ * - search:    GET/POST /api/flights/search                     (5/s, burst 20)
+ * - seat-lock: POST /api/seat-selections/lock                   (0.5/s, burst 5)
+ * - booking:   POST /api/bookings, /api/bookings/async, /bulk   (1/s, burst 10)
+ * 
+ * Over the limit: 429 Too Many Requests with Retry-After (seconds).
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    
+    @Autowired
+    private RateLimitService rateLimitService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * Use the first X-Forwarded-For address as client IP (only behind a trusted proxy)
+     */
+    @Value("${rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+    
+    @Value("${rate-limit.search.per-second:5}")
+    private double searchPerSecond;
+    
+    @Value("${rate-limit.search.burst:20}")
+    private int searchBurst;
+    
+    @Value("${rate-limit.seat-lock.per-second:0.5}")
+    private double seatLockPerSecond;
+    
+    @Value("${rate-limit.seat-lock.burst:5}")
+    private int seatLockBurst;
+    
+    @Value("${rate-limit.booking.per-second:1}")
+    private double bookingPerSecond;
+    
+    @Value("${rate-limit.booking.burst:10}")
+    private int bookingBurst;
+    
+    /**
+     * Request path -> endpoint group (exact match, one hash lookup per request)
+     */
+    private final Map<String, EndpointGroup> groups = new HashMap<>();
+    
+    @PostConstruct
+    void init() {
+        register(new EndpointGroup("search", null, Limit.of(searchPerSecond, searchBurst)),
+            "/api/flights/search");
+        register(new EndpointGroup("seat-lock", "POST", Limit.of(seatLockPerSecond, seatLockBurst)),
+            "/api/seat-selections/lock");
+        register(new EndpointGroup("booking", "POST", Limit.of(bookingPerSecond, bookingBurst)),
+            "/api/bookings", "/api/bookings/async", "/api/bookings/bulk");
+    }
+    
+    private void register(EndpointGroup group, String... paths) {
+        for (String path : paths) {
+            groups.put(path, group);
+        }
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, 
+                                    HttpServletResponse response, 
+                                    FilterChain filterChain) throws ServletException, IOException {
+        
+        EndpointGroup group = enabled ? groups.get(request.getRequestURI()) : null;
+        if (group == null
+                || "OPTIONS".equals(request.getMethod())
+                || (group.method() != null && !group.method().equals(request.getMethod()))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        String subject = subject(request);
+        long waitNanos = rateLimitService.tryAcquire(group.name(), subject, group.limit());
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        logger.debug("Rate limit {} exceeded by {} on {} {}, retry after {}s", 
+            group.name(), subject, request.getMethod(), request.getRequestURI(), retryAfterSeconds);
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+            .timestamp(LocalDateTime.now())
+            .status(HttpStatus.TOO_MANY_REQUESTS.value())
+            .error("TOO_MANY_REQUESTS")
+            .errorCode("RATE_LIMITED")
+            .message("Too many requests. Please retry after " + retryAfterSeconds + " seconds.")
+            .path(request.getRequestURI())
+            .build();
+        
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(), errorResponse);
+    }
+    
+    /**
+     * ":u:<userId>" for authenticated requests, ":ip:<address>" otherwise
+     */
+    private String subject(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getDetails() instanceof JwtPrincipal principal) {
+            return ":u:" + principal.userId();
+        }
+        return ":ip:" + clientIp(request);
+    }
+    
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma >= 0 ? forwardedFor.substring(0, comma) : forwardedFor).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+    
+    /**
+     * Endpoints sharing one limit
+     * 
+     * @param method Only this HTTP method is limited (null = all)
+     */
+    private record EndpointGroup(String name, String method, Limit limit) {
+    }
+}
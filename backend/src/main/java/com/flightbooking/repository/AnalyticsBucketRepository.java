@@ -0,0 +1,176 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.dto.AnalyticsPointDTO;
+import com.flightbooking.entity.AnalyticsBucket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface AnalyticsBucketRepository extends JpaRepository<AnalyticsBucket, AnalyticsBucket.Key> {
+    
+    /**
+     * Add deltas to one bucket (atomic upsert, safe with several nodes flushing)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO analytics_buckets " +
+                   "(granularity, bucket_start, route, airline, bookings, confirmed_bookings, cancelled_bookings, revenue, updated_at) " +
+                   "VALUES (:granularity, :bucketStart, :route, :airline, :bookings, :confirmed, :cancelled, :revenue, :now) " +
+                   "ON CONFLICT (granularity, bucket_start, route, airline) DO UPDATE " +
+                   "SET bookings = analytics_buckets.bookings + EXCLUDED.bookings, " +
+                   "    confirmed_bookings = analytics_buckets.confirmed_bookings + EXCLUDED.confirmed_bookings, " +
+                   "    cancelled_bookings = analytics_buckets.cancelled_bookings + EXCLUDED.cancelled_bookings, " +
+                   "    revenue = analytics_buckets.revenue + EXCLUDED.revenue, " +
+                   "    updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int increment(@Param("granularity") String granularity,
+                  @Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("route") String route,
+                  @Param("airline") String airline,
+                  @Param("bookings") long bookings,
+                  @Param("confirmed") long confirmed,
+                  @Param("cancelled") long cancelled,
+                  @Param("revenue") BigDecimal revenue,
+                  @Param("now") LocalDateTime now);
+    
+    /**
+     * Remove buckets in [from, to) before they are recomputed (backfill)
+     */
+    @Modifying
+    @Query("DELETE FROM AnalyticsBucket a " +
+           "WHERE a.granularity IN :granularities AND a.bucketStart >= :from AND a.bucketStart < :to")
+    int deleteRange(@Param("granularities") Collection<String> granularities,
+                    @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+    
+    /**
+     * All buckets starting at bucketStart (backfill: the DAY buckets of a day before it is recomputed)
+     */
+    List<AnalyticsBucket> findByGranularityAndBucketStart(String granularity, LocalDateTime bucketStart);
+    
+    /**
+     * Rebuild MONTH buckets in [from, to) from the DAY buckets (from/to are month starts)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO analytics_buckets " +
+                   "(granularity, bucket_start, route, airline, bookings, confirmed_bookings, cancelled_bookings, revenue, updated_at) " +
+                   "SELECT 'MONTH', date_trunc('month', bucket_start), route, airline, " +
+                   "       SUM(bookings), SUM(confirmed_bookings), SUM(cancelled_bookings), SUM(revenue), :now " +
+                   "FROM analytics_buckets " +
+                   "WHERE granularity = 'DAY' AND bucket_start >= :from AND bucket_start < :to " +
+                   "GROUP BY date_trunc('month', bucket_start), route, airline",
+           nativeQuery = true)
+    int rollupMonths(@Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to,
+                     @Param("now") LocalDateTime now);
+    
+    /**
+     * Curve over all routes/airlines, optionally filtered (null = any)
+     * Reads only pre-aggregated rows (primary key / idx_analytics_buckets_* range scan)
+     */
+    @Query("SELECT new com.flightbooking.dto.AnalyticsPointDTO(a.bucketStart, 'ALL', " +
+           "  SUM(a.bookings), SUM(a.confirmedBookings), SUM(a.cancelledBookings), SUM(a.revenue)) " +
+           "FROM AnalyticsBucket a " +
+           "WHERE a.granularity = :granularity AND a.bucketStart >= :from AND a.bucketStart < :to " +
+           "AND (:route IS NULL OR a.route = :route) AND (:airline IS NULL OR a.airline = :airline) " +
+           "GROUP BY a.bucketStart ORDER BY a.bucketStart")
+    List<AnalyticsPointDTO> findSeries(@Param("granularity") String granularity,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("route") String route,
+                                       @Param("airline") String airline);
+    
+    /**
+     * One curve per route, optionally filtered (null = any)
+     */
+    @Query("SELECT new com.flightbooking.dto.AnalyticsPointDTO(a.bucketStart, a.route, " +
+           "  SUM(a.bookings), SUM(a.confirmedBookings), SUM(a.cancelledBookings), SUM(a.revenue)) " +
+           "FROM AnalyticsBucket a " +
+           "WHERE a.granularity = :granularity AND a.bucketStart >= :from AND a.bucketStart < :to " +
+           "AND (:route IS NULL OR a.route = :route) AND (:airline IS NULL OR a.airline = :airline) " +
+           "GROUP BY a.bucketStart, a.route ORDER BY a.bucketStart, a.route")
+    List<AnalyticsPointDTO> findSeriesByRoute(@Param("granularity") String granularity,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("route") String route,
+                                              @Param("airline") String airline);
+    
+    /**
+     * One curve per airline, optionally filtered (null = any)
+     */
+    @Query("SELECT new com.flightbooking.dto.AnalyticsPointDTO(a.bucketStart, a.airline, " +
+           "  SUM(a.bookings), SUM(a.confirmedBookings), SUM(a.cancelledBookings), SUM(a.revenue)) " +
+           "FROM AnalyticsBucket a " +
+           "WHERE a.granularity = :granularity AND a.bucketStart >= :from AND a.bucketStart < :to " +
+           "AND (:route IS NULL OR a.route = :route) AND (:airline IS NULL OR a.airline = :airline) " +
+           "GROUP BY a.bucketStart, a.airline ORDER BY a.bucketStart, a.airline")
+    List<AnalyticsPointDTO> findSeriesByAirline(@Param("granularity") String granularity,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                @Param("route") String route,
+                                                @Param("airline") String airline);
+    
+    /**
+     * Booking and payment facts that happened in [from, to), with the route/airline of
+     * the booking's first segment (backfill source, one chunk = one day):
+     * - CREATED: booking created (bookings.created_at)
+     * - CONFIRMED / CANCELLED: booking now confirmed-or-later / cancelled, at its last update
+     *   (approximation: there is no status history, so a booking counts once, on the day of
+     *   its last update; the live counters count the transition to CONFIRMED when it happens)
+     * - PAID: successful payment, at its last update
+     * Read through a server-side cursor; must be consumed inside a transaction and closed.
+     * Uses idx_bookings_created_at, idx_bookings_status_updated, idx_payments_status_updated
+     * and idx_flight_segments_booking_depart.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT e.kind AS \"kind\", CAST(EXTRACT(HOUR FROM e.occurred_at) AS INTEGER) AS \"hourOfDay\", " +
+                   "       e.amount AS \"amount\", fs.origin AS \"origin\", fs.destination AS \"destination\", " +
+                   "       fs.airline AS \"airline\" " +
+                   "FROM (" +
+                   "  SELECT 'CREATED' AS kind, b.created_at AS occurred_at, b.total_amount AS amount, b.id AS booking_id " +
+                   "  FROM bookings b WHERE b.created_at >= :from AND b.created_at < :to " +
+                   "  UNION ALL " +
+                   "  SELECT CASE WHEN b.status = 'CANCELLED' THEN 'CANCELLED' ELSE 'CONFIRMED' END, " +
+                   "         COALESCE(b.updated_at, b.created_at), b.total_amount, b.id " +
+                   "  FROM bookings b " +
+                   "  WHERE b.status IN ('CONFIRMED', 'TICKETED', 'FINALIZED', 'COMPLETED', 'CANCELLED') " +
+                   "  AND ((b.updated_at >= :from AND b.updated_at < :to) " +
+                   "    OR (b.updated_at IS NULL AND b.created_at >= :from AND b.created_at < :to)) " +
+                   "  UNION ALL " +
+                   "  SELECT 'PAID', COALESCE(p.updated_at, p.created_at), p.amount, p.booking_id " +
+                   "  FROM payments p " +
+                   "  WHERE p.status = 'SUCCESS' " +
+                   "  AND ((p.updated_at >= :from AND p.updated_at < :to) " +
+                   "    OR (p.updated_at IS NULL AND p.created_at >= :from AND p.created_at < :to))" +
+                   ") e " +
+                   "LEFT JOIN LATERAL (" +
+                   "  SELECT s.origin, s.destination, s.airline FROM flight_segments s " +
+                   "  WHERE s.booking_id = e.booking_id ORDER BY s.depart_time LIMIT 1" +
+                   ") fs ON TRUE",
+           nativeQuery = true)
+    Stream<BackfillRow> streamBackfillRows(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+    
+    interface BackfillRow {
+        String getKind();
+        Integer getHourOfDay();
+        BigDecimal getAmount();
+        String getOrigin();
+        String getDestination();
+        String getAirline();
+    }
+}
@@ -0,0 +1,36 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.entity.BookingReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface BookingReminderRepository extends JpaRepository<BookingReminder, String> {
+    
+    /**
+     * Record a reminder as sent. Does nothing if another node/run already recorded it.
+     * @return 1 if this caller claimed the reminder, 0 if it was already claimed
+     */
+    @Modifying
+    @Query(value = "INSERT INTO booking_reminders (id, booking_id, reminder_type, departure_time, sent_at) " +
+                   "VALUES (:id, :bookingId, :reminderType, :departureTime, :now) " +
+                   "ON CONFLICT (booking_id, reminder_type) DO NOTHING",
+           nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("bookingId") String bookingId,
+              @Param("reminderType") String reminderType,
+              @Param("departureTime") LocalDateTime departureTime,
+              @Param("now") LocalDateTime now);
+    
+    /**
+     * Drop ledger rows for flights that departed long ago
+     */
+    @Modifying
+    @Query("DELETE FROM BookingReminder r WHERE r.departureTime < :cutoff")
+    int deleteByDepartureTimeBefore(@Param("cutoff") LocalDateTime cutoff);
+}
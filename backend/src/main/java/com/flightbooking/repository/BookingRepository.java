@@ -4,9 +4,13 @@ import com.flightbooking.entity.Booking;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,15 +20,136 @@ public interface BookingRepository extends JpaRepository<Booking, String> {
     List<Booking> findByUserId(String userId);
     List<Booking> findByStatus(String status);
     
+    /**
+     * First page of a user's bookings, newest first (keyset pagination).
+     * Uses index idx_bookings_user_created (user_id, created_at).
+     */
+    @Query("SELECT b FROM Booking b WHERE b.userId = :userId " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findFirstPageByUserId(@Param("userId") String userId, Pageable pageable);
+    
+    /**
+     * Next page of a user's bookings after cursor (createdAt, id), newest first.
+     */
+    @Query("SELECT b FROM Booking b WHERE b.userId = :userId " +
+           "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findPageByUserIdAfterCursor(@Param("userId") String userId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") String id,
+                                              Pageable pageable);
+    
     /**
      * Find bookings with status in given list and holdExpiresAt before given time.
      * Used for expiring hold bookings.
      */
     List<Booking> findByStatusInAndHoldExpiresAtBefore(List<String> statuses, LocalDateTime expirationTime);
     
+    /**
+     * Expire one chunk of hold bookings in a single statement and return them
+     * (ID, status before expiry, amount).
+     * Oldest holds first; rows locked by another transaction are skipped (no waiting),
+     * so concurrent runs never block each other.
+     * Uses index idx_bookings_status_hold_expires (status, hold_expires_at).
+     */
+    @Query(value = "UPDATE bookings b SET status = 'EXPIRED', updated_at = :now " +
+                   "FROM (" +
+                   "  SELECT id, status FROM bookings " +
+                   "  WHERE status IN (:statuses) AND hold_expires_at < :now " +
+                   "  ORDER BY hold_expires_at " +
+                   "  LIMIT :limit " +
+                   "  FOR UPDATE SKIP LOCKED" +
+                   ") expired " +
+                   "WHERE b.id = expired.id " +
+                   "RETURNING b.id AS \"id\", expired.status AS \"previousStatus\", b.total_amount AS \"totalAmount\"",
+           nativeQuery = true)
+    List<ExpiredBooking> expireHoldBookingsChunk(@Param("statuses") Collection<String> statuses,
+                                                 @Param("now") LocalDateTime now,
+                                                 @Param("limit") int limit);
+    
+    /**
+     * Bookings whose FIRST segment departs in [windowStart, windowEnd) and that have
+     * no reminder of the given type yet.
+     * Uses idx_flight_segments_depart_time for the window and
+     * idx_flight_segments_booking_depart for the "no earlier segment" check.
+     */
+    @Query("SELECT fs.bookingId AS bookingId, b.bookingCode AS bookingCode, fs.departTime AS departTime " +
+           "FROM FlightSegment fs JOIN Booking b ON b.id = fs.bookingId " +
+           "WHERE fs.departTime >= :windowStart AND fs.departTime < :windowEnd " +
+           "AND b.status IN :statuses " +
+           "AND NOT EXISTS (SELECT 1 FROM FlightSegment earlier " +
+           "                WHERE earlier.bookingId = fs.bookingId AND earlier.departTime < fs.departTime) " +
+           "AND NOT EXISTS (SELECT 1 FROM BookingReminder r " +
+           "                WHERE r.bookingId = fs.bookingId AND r.reminderType = :reminderType) " +
+           "ORDER BY fs.departTime")
+    List<ReminderCandidate> findReminderCandidates(@Param("statuses") Collection<String> statuses,
+                                                   @Param("windowStart") LocalDateTime windowStart,
+                                                   @Param("windowEnd") LocalDateTime windowEnd,
+                                                   @Param("reminderType") String reminderType,
+                                                   Pageable pageable);
+    
+    /**
+     * Booking due for a reminder (projection of findReminderCandidates)
+     */
+    interface ReminderCandidate {
+        String getBookingId();
+        String getBookingCode();
+        LocalDateTime getDepartTime();
+    }
+    
     // Admin & Statistics methods (with pagination)
     Page<Booking> findByStatus(String status, Pageable pageable);
     Long countByStatus(String status);
     Long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    
+    /**
+     * Booking count and amount per status in one pass
+     * (index-only scan on idx_bookings_status_amount)
+     */
+    @Query("SELECT b.status AS status, COUNT(b) AS bookingCount, COALESCE(SUM(b.totalAmount), 0) AS totalAmount " +
+           "FROM Booking b GROUP BY b.status")
+    List<StatusTotals> aggregateByStatus();
+    
+    /**
+     * Sum of totalAmount for bookings in a status whose last update (confirmation)
+     * falls in [start, end]; createdAt is used when updatedAt is not set.
+     * Uses idx_bookings_status_updated and idx_bookings_status_created.
+     */
+    @Query("SELECT COALESCE(SUM(b.totalAmount), 0) FROM Booking b " +
+           "WHERE b.status = :status AND (" +
+           "  (b.updatedAt >= :start AND b.updatedAt <= :end) OR " +
+           "  (b.updatedAt IS NULL AND b.createdAt >= :start AND b.createdAt <= :end))")
+    BigDecimal sumAmountByStatusUpdatedBetween(@Param("status") String status,
+                                               @Param("start") LocalDateTime start,
+                                               @Param("end") LocalDateTime end);
+    
+    /**
+     * Count of bookings in a status whose last update falls in [start, end]
+     * (same window as sumAmountByStatusUpdatedBetween)
+     */
+    @Query("SELECT COUNT(b) FROM Booking b " +
+           "WHERE b.status = :status AND (" +
+           "  (b.updatedAt >= :start AND b.updatedAt <= :end) OR " +
+           "  (b.updatedAt IS NULL AND b.createdAt >= :start AND b.createdAt <= :end))")
+    long countByStatusUpdatedBetween(@Param("status") String status,
+                                     @Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+    
+    /**
+     * Booking expired by expireHoldBookingsChunk
+     */
+    interface ExpiredBooking {
+        String getId();
+        String getPreviousStatus();
+        BigDecimal getTotalAmount();
+    }
+    
+    /**
+     * Per-status totals (projection of aggregateByStatus)
+     */
+    interface StatusTotals {
+        String getStatus();
+        Long getBookingCount();
+        BigDecimal getTotalAmount();
+    }
 }
-
@@ -0,0 +1,58 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.entity.DailyStatRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyStatRollupRepository extends JpaRepository<DailyStatRollup, DailyStatRollup.Key> {
+    
+    /**
+     * Add a delta to one day of a metric (atomic upsert, safe with several nodes flushing)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_stat_rollups (stat_date, metric, count_value, amount_value, updated_at) " +
+                   "VALUES (:day, :metric, :count, :amount, :now) " +
+                   "ON CONFLICT (stat_date, metric) DO UPDATE " +
+                   "SET count_value = daily_stat_rollups.count_value + EXCLUDED.count_value, " +
+                   "    amount_value = daily_stat_rollups.amount_value + EXCLUDED.amount_value, " +
+                   "    updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int increment(@Param("day") LocalDate day,
+                  @Param("metric") String metric,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount,
+                  @Param("now") LocalDateTime now);
+    
+    /**
+     * Seed one day of a metric if it has no row yet (rows already counted are kept)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_stat_rollups (stat_date, metric, count_value, amount_value, updated_at) " +
+                   "VALUES (:day, :metric, :count, :amount, :now) " +
+                   "ON CONFLICT (stat_date, metric) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("day") LocalDate day,
+                       @Param("metric") String metric,
+                       @Param("count") long count,
+                       @Param("amount") BigDecimal amount,
+                       @Param("now") LocalDateTime now);
+    
+    /**
+     * All metrics of one day (primary key prefix)
+     */
+    List<DailyStatRollup> findByStatDate(LocalDate statDate);
+    
+    /**
+     * One metric over a date range, oldest first (idx_daily_stat_rollups_metric_date)
+     */
+    List<DailyStatRollup> findByMetricAndStatDateBetweenOrderByStatDate(String metric, LocalDate from, LocalDate to);
+}
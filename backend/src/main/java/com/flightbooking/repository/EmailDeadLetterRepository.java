@@ -0,0 +1,12 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.entity.EmailDeadLetter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailDeadLetterRepository extends JpaRepository<EmailDeadLetter, String> {
+    Page<EmailDeadLetter> findAllByOrderByFailedAtDesc(Pageable pageable);
+}
@@ -3,11 +3,15 @@ package com.flightbooking.repository;
 import com.flightbooking.entity.Flight;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 /**
@@ -21,6 +25,22 @@ import java.util.List;
 @Repository
 public interface FlightRepository extends JpaRepository<Flight, String>, JpaSpecificationExecutor<Flight> {
     
+    /**
+     * Future flights of a schedule pattern that fall outside it: before validFrom,
+     * after validTo or on a day not in daysOfWeek (ISO digits; "" = every day is outside)
+     */
+    String OFF_PATTERN_CONDITION =
+        "f.schedule_pattern_id = :patternId AND f.depart_time > :now AND f.status <> 'CANCELLED' " +
+        "AND (CAST(f.depart_time AS date) < :validFrom OR CAST(f.depart_time AS date) > :validTo " +
+        "  OR POSITION(CAST(CAST(EXTRACT(ISODOW FROM f.depart_time) AS INTEGER) AS VARCHAR) IN :daysOfWeek) = 0) ";
+    
+    /**
+     * Booked = a flight segment references it (segments reference flights by number and departure time)
+     */
+    String BOOKED_CONDITION =
+        "EXISTS (SELECT 1 FROM flight_segments s " +
+        "        WHERE s.flight_number = f.flight_number AND s.depart_time = f.depart_time) ";
+    
     /**
      * Find flights by flight number and depart time range
      * Used for checking duplicate flights
@@ -58,5 +78,82 @@ public interface FlightRepository extends JpaRepository<Flight, String>, JpaSpec
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate
     );
+    
+    /**
+     * Departure times of a pattern's flights in [from, to) (generator skips these days)
+     * Uses idx_flights_schedule_pattern_depart
+     */
+    @Query("SELECT f.departTime FROM Flight f " +
+           "WHERE f.schedulePatternId = :patternId AND f.departTime >= :from AND f.departTime < :to")
+    List<LocalDateTime> findDepartTimesBySchedulePattern(@Param("patternId") String patternId,
+                                                         @Param("from") LocalDateTime from,
+                                                         @Param("to") LocalDateTime to);
+    
+    /**
+     * Delete future flights of a pattern that no longer match it and have no bookings
+     */
+    @Modifying
+    @Query(value = "DELETE FROM flights f WHERE " + OFF_PATTERN_CONDITION + "AND NOT " + BOOKED_CONDITION,
+           nativeQuery = true)
+    int deleteUnbookedOffPattern(@Param("patternId") String patternId,
+                                 @Param("validFrom") LocalDate validFrom,
+                                 @Param("validTo") LocalDate validTo,
+                                 @Param("daysOfWeek") String daysOfWeek,
+                                 @Param("now") LocalDateTime now);
+    
+    /**
+     * Cancel future flights of a pattern that no longer match it but are booked
+     */
+    @Modifying
+    @Query(value = "UPDATE flights f SET status = 'CANCELLED', updated_at = :now " +
+                   "WHERE " + OFF_PATTERN_CONDITION + "AND " + BOOKED_CONDITION,
+           nativeQuery = true)
+    int cancelBookedOffPattern(@Param("patternId") String patternId,
+                               @Param("validFrom") LocalDate validFrom,
+                               @Param("validTo") LocalDate validTo,
+                               @Param("daysOfWeek") String daysOfWeek,
+                               @Param("now") LocalDateTime now);
+    
+    /**
+     * Apply a pattern's commercial fields to all its future flights
+     * Seats: available seats move by the change in total seats (never below 0)
+     */
+    @Modifying
+    @Query(value = "UPDATE flights f SET airline = :airline, cabin_class = :cabinClass, " +
+                   "  base_fare = :baseFare, taxes = :taxes, aircraft_type = :aircraftType, " +
+                   "  available_seats = GREATEST(COALESCE(f.available_seats, 0) + :totalSeats - COALESCE(f.total_seats, 0), 0), " +
+                   "  total_seats = :totalSeats, updated_at = :now " +
+                   "WHERE f.schedule_pattern_id = :patternId AND f.depart_time > :now AND f.status <> 'CANCELLED'",
+           nativeQuery = true)
+    int updateFaresFromPattern(@Param("patternId") String patternId,
+                               @Param("airline") String airline,
+                               @Param("cabinClass") String cabinClass,
+                               @Param("baseFare") BigDecimal baseFare,
+                               @Param("taxes") BigDecimal taxes,
+                               @Param("aircraftType") String aircraftType,
+                               @Param("totalSeats") Integer totalSeats,
+                               @Param("now") LocalDateTime now);
+    
+    /**
+     * Apply a pattern's flight number, route and times to its future unbooked flights
+     * (booked flights keep theirs: their segments reference them by number and departure time)
+     */
+    @Modifying
+    @Query(value = "UPDATE flights f SET flight_number = :flightNumber, origin = :origin, destination = :destination, " +
+                   "  depart_time = CAST(f.depart_time AS date) + CAST(:departTime AS time), " +
+                   "  arrive_time = CAST(f.depart_time AS date) + CAST(:departTime AS time) + :durationMinutes * INTERVAL '1 minute', " +
+                   "  duration_minutes = :durationMinutes, updated_at = :now " +
+                   "WHERE f.schedule_pattern_id = :patternId AND f.depart_time > :now AND f.status <> 'CANCELLED' " +
+                   "AND NOT " + BOOKED_CONDITION +
+                   "AND (f.flight_number <> :flightNumber OR f.origin <> :origin OR f.destination <> :destination " +
+                   "  OR CAST(f.depart_time AS time) <> CAST(:departTime AS time) " +
+                   "  OR f.duration_minutes IS DISTINCT FROM :durationMinutes)",
+           nativeQuery = true)
+    int updateTimesFromPattern(@Param("patternId") String patternId,
+                               @Param("flightNumber") String flightNumber,
+                               @Param("origin") String origin,
+                               @Param("destination") String destination,
+                               @Param("departTime") LocalTime departTime,
+                               @Param("durationMinutes") Integer durationMinutes,
+                               @Param("now") LocalDateTime now);
 }
-
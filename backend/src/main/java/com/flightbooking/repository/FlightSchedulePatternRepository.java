@@ -0,0 +1,35 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.entity.FlightSchedulePattern;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FlightSchedulePatternRepository extends JpaRepository<FlightSchedulePattern, String> {
+    
+    /**
+     * Active, still valid patterns whose flights are not yet generated up to the horizon
+     * (idx_flight_schedule_patterns_active_generated)
+     */
+    @Query("SELECT p.id FROM FlightSchedulePattern p " +
+           "WHERE p.active = true AND p.validTo >= :today " +
+           "AND (p.generatedUntil IS NULL OR (p.generatedUntil < p.validTo AND p.generatedUntil < :horizonEnd))")
+    List<String> findIdsDueForGeneration(@Param("today") LocalDate today,
+                                         @Param("horizonEnd") LocalDate horizonEnd);
+    
+    /**
+     * Load a pattern and lock its row until the transaction ends (SELECT ... FOR UPDATE),
+     * so horizon generation and admin edits of the same pattern run one after the other
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM FlightSchedulePattern p WHERE p.id = :id")
+    Optional<FlightSchedulePattern> findByIdForUpdate(@Param("id") String id);
+}
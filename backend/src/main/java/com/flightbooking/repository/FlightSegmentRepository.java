@@ -2,13 +2,46 @@ package com.flightbooking.repository;
 
 import com.flightbooking.entity.FlightSegment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface FlightSegmentRepository extends JpaRepository<FlightSegment, String> {
     List<FlightSegment> findByBookingId(String bookingId);
+    
+    /**
+     * Batch load segments for a page of bookings (avoids N+1)
+     */
+    List<FlightSegment> findByBookingIdIn(Collection<String> bookingIds);
+    
+    /**
+     * Departure time of the booking's first segment (uses idx_flight_segments_booking_depart)
+     */
+    @Query("SELECT MIN(fs.departTime) FROM FlightSegment fs WHERE fs.bookingId = :bookingId")
+    LocalDateTime findFirstDepartTime(@Param("bookingId") String bookingId);
+    
     List<FlightSegment> findByOriginAndDestination(String origin, String destination);
+    
+    /**
+     * Route, airline and departure of every segment of the given bookings
+     * (analytics dimensions for a whole flush in one query; uses idx_flight_segments_booking_id)
+     */
+    @Query("SELECT fs.bookingId AS bookingId, fs.origin AS origin, fs.destination AS destination, " +
+           "fs.airline AS airline, fs.departTime AS departTime " +
+           "FROM FlightSegment fs WHERE fs.bookingId IN :bookingIds")
+    List<RouteDimensions> findRouteDimensionsByBookingIdIn(@Param("bookingIds") Collection<String> bookingIds);
+    
+    interface RouteDimensions {
+        String getBookingId();
+        String getOrigin();
+        String getDestination();
+        String getAirline();
+        LocalDateTime getDepartTime();
+    }
 }
 
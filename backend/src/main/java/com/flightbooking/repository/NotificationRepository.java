@@ -1,13 +1,46 @@
 package com.flightbooking.repository;
 
+import com.flightbooking.dto.PendingNotificationDTO;
 import com.flightbooking.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, String> {
     List<Notification> findByBookingId(String bookingId);
+    
+    /**
+     * Notifications whose booking has the given status, newest first
+     * One join query (idx_notifications_booking_id), projected straight into the DTO
+     */
+    @Query("SELECT new com.flightbooking.dto.PendingNotificationDTO(" +
+           "n.id, n.bookingId, n.channel, n.recipient, n.content, n.sentAt, " +
+           "b.bookingCode, b.status, b.totalAmount, b.currency) " +
+           "FROM Notification n JOIN Booking b ON b.id = n.bookingId " +
+           "WHERE b.status = :status " +
+           "ORDER BY n.sentAt DESC, n.id DESC")
+    List<PendingNotificationDTO> findByBookingStatus(@Param("status") String status, Pageable pageable);
+    
+    /**
+     * Notifications whose booking has the given status, after position (sentAt, id), oldest first
+     * (incremental polling: keyset on (sentAt, id) so rows sharing a timestamp aren't skipped;
+     * uses idx_notifications_sent_at)
+     */
+    @Query("SELECT new com.flightbooking.dto.PendingNotificationDTO(" +
+           "n.id, n.bookingId, n.channel, n.recipient, n.content, n.sentAt, " +
+           "b.bookingCode, b.status, b.totalAmount, b.currency) " +
+           "FROM Notification n JOIN Booking b ON b.id = n.bookingId " +
+           "WHERE b.status = :status " +
+           "AND (n.sentAt > :sentAt OR (n.sentAt = :sentAt AND n.id > :id)) " +
+           "ORDER BY n.sentAt ASC, n.id ASC")
+    List<PendingNotificationDTO> findByBookingStatusAfter(@Param("status") String status,
+                                                          @Param("sentAt") LocalDateTime sentAt,
+                                                          @Param("id") String id,
+                                                          Pageable pageable);
 }
-
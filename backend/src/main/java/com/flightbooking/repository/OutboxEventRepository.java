@@ -0,0 +1,42 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String> {
+    
+    /**
+     * Claim a batch of due events and return their IDs.
+     * Claimed rows move to PROCESSING until claimUntil; rows locked by another
+     * relay are skipped, and rows of a relay that died are picked up after the claim expires.
+     * Uses index idx_outbox_events_status_next (status, next_attempt_at).
+     */
+    @Query(value = "UPDATE outbox_events SET status = 'PROCESSING', next_attempt_at = :claimUntil " +
+                   "WHERE id IN (" +
+                   "  SELECT id FROM outbox_events " +
+                   "  WHERE status IN ('PENDING', 'PROCESSING') AND next_attempt_at <= :now " +
+                   "  ORDER BY created_at " +
+                   "  LIMIT :limit " +
+                   "  FOR UPDATE SKIP LOCKED" +
+                   ") RETURNING id",
+           nativeQuery = true)
+    List<String> claimBatch(@Param("now") LocalDateTime now,
+                            @Param("claimUntil") LocalDateTime claimUntil,
+                            @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'DONE', e.processedAt = :now, e.lastError = null WHERE e.id = :id")
+    int markDone(@Param("id") String id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DONE' AND e.processedAt < :cutoff")
+    int deleteDoneBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,12 +2,23 @@ package com.flightbooking.repository;
 
 import com.flightbooking.entity.Passenger;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PassengerRepository extends JpaRepository<Passenger, String> {
     List<Passenger> findByBookingId(String bookingId);
+    
+    /**
+     * Passenger count per booking for a page of bookings
+     * Each row: [bookingId (String), count (Long)]
+     */
+    @Query("SELECT p.bookingId, COUNT(p) FROM Passenger p " +
+           "WHERE p.bookingId IN :bookingIds GROUP BY p.bookingId")
+    List<Object[]> countByBookingIds(@Param("bookingIds") Collection<String> bookingIds);
 }
 
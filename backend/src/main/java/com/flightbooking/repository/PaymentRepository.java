@@ -1,11 +1,19 @@
 package com.flightbooking.repository;
 
 import com.flightbooking.entity.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Payment Repository
@@ -44,4 +52,34 @@ public interface PaymentRepository extends JpaRepository<Payment, String> {
      * Check if booking has successful payment
      */
     boolean existsByBookingIdAndStatus(String bookingId, String status);
+    
+    /**
+     * Stream payments of one provider created in [from, to), ordered by ID in
+     * byte order (COLLATE "C", same order as String.compareTo) for merge-joining
+     * with a settlement file.
+     * Read through a server-side cursor (fetch size) as read-only projections:
+     * nothing is kept in the persistence context. Must be consumed inside a
+     * transaction and closed.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT id, amount, currency, status FROM payments " +
+                   "WHERE payment_method = :method AND created_at >= :from AND created_at < :to " +
+                   "ORDER BY id COLLATE \"C\"",
+           nativeQuery = true)
+    Stream<ReconciliationRow> streamForReconciliation(@Param("method") String method,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+    
+    /**
+     * Payment columns needed for reconciliation
+     */
+    interface ReconciliationRow {
+        String getId();
+        BigDecimal getAmount();
+        String getCurrency();
+        String getStatus();
+    }
 }
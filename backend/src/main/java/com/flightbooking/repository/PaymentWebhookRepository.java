@@ -1,13 +1,77 @@
 package com.flightbooking.repository;
 
 import com.flightbooking.entity.PaymentWebhook;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface PaymentWebhookRepository extends JpaRepository<PaymentWebhook, String> {
     List<PaymentWebhook> findByPaymentId(String paymentId);
+    
+    /**
+     * Store a webhook unless the same provider event was already stored
+     * (unique constraint uk_payment_webhooks_provider_event, no exception on duplicates)
+     * 
+     * @return 1 if stored, 0 if duplicate
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_webhooks " +
+                   "(id, payment_id, provider, event_id, event_type, payload, verified, status, received_at) " +
+                   "VALUES (:id, :paymentId, :provider, :eventId, :eventType, CAST(:payload AS JSONB), :verified, 'RECEIVED', :now) " +
+                   "ON CONFLICT (provider, event_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("paymentId") String paymentId,
+                       @Param("provider") String provider,
+                       @Param("eventId") String eventId,
+                       @Param("eventType") String eventType,
+                       @Param("payload") String payload,
+                       @Param("verified") boolean verified,
+                       @Param("now") LocalDateTime now);
+    
+    /**
+     * Take a stored webhook for processing (only one worker/node wins)
+     * 
+     * @return 1 if claimed, 0 if already taken
+     */
+    @Modifying
+    @Query("UPDATE PaymentWebhook w SET w.status = 'PROCESSING', w.claimedAt = :now " +
+           "WHERE w.id = :id AND (w.status = 'RECEIVED' OR (w.status = 'PROCESSING' AND w.claimedAt < :staleBefore))")
+    int claim(@Param("id") String id,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * Record the outcome, only if the claim is still ours (not taken over as stale)
+     */
+    @Modifying
+    @Query("UPDATE PaymentWebhook w SET w.status = :status, w.lastError = :lastError, w.processedAt = :now " +
+           "WHERE w.id = :id AND w.status = 'PROCESSING' AND w.claimedAt = :claimedAt")
+    int markProcessed(@Param("id") String id,
+                      @Param("claimedAt") LocalDateTime claimedAt,
+                      @Param("status") String status,
+                      @Param("lastError") String lastError,
+                      @Param("now") LocalDateTime now);
+    
+    /**
+     * Webhooks stored but never handed to a worker (queue was full, or the node stopped)
+     * Uses idx_payment_webhooks_status_received
+     */
+    List<PaymentWebhook> findByStatusAndReceivedAtBeforeOrderByReceivedAt(String status, 
+                                                                          LocalDateTime before, 
+                                                                          Pageable pageable);
+    
+    /**
+     * Webhooks claimed by a worker that never recorded an outcome (node crashed or was stopped)
+     */
+    List<PaymentWebhook> findByStatusAndClaimedAtBeforeOrderByClaimedAt(String status,
+                                                                        LocalDateTime before,
+                                                                        Pageable pageable);
 }
-
@@ -0,0 +1,39 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+    
+    /**
+     * Take the lease if it is free, expired, or already ours (atomic upsert).
+     * @return 1 if acquired, 0 if another owner holds it
+     */
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, locked_until, locked_at) " +
+                   "VALUES (:name, :owner, :lockedUntil, :now) " +
+                   "ON CONFLICT (name) DO UPDATE " +
+                   "SET owner = EXCLUDED.owner, locked_until = EXCLUDED.locked_until, locked_at = EXCLUDED.locked_at " +
+                   "WHERE scheduler_leases.locked_until <= :now OR scheduler_leases.owner = :owner",
+           nativeQuery = true)
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("lockedUntil") LocalDateTime lockedUntil,
+                   @Param("now") LocalDateTime now);
+    
+    /**
+     * Give the lease back early (only if we still own it)
+     */
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.lockedUntil = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -62,6 +63,15 @@ public interface SeatLockRepository extends JpaRepository<SeatLock, String> {
            "WHERE sl.status = 'LOCKED' AND sl.expiresAt <= :now")
     int releaseExpiredLocks(@Param("now") LocalDateTime now);
     
+    /**
+     * Release active locks for many bookings at once (bulk expiry/cancel)
+     */
+    @Modifying
+    @Query("UPDATE SeatLock sl SET sl.status = 'RELEASED', sl.updatedAt = :now " +
+           "WHERE sl.bookingId IN :bookingIds AND sl.status IN ('LOCKED', 'RESERVED')")
+    int releaseLocksForBookings(@Param("bookingIds") Collection<String> bookingIds,
+                                @Param("now") LocalDateTime now);
+    
     /**
      * Confirm locks for a booking
      */
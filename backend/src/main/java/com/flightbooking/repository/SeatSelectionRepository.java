@@ -2,8 +2,12 @@ package com.flightbooking.repository;
 
 import com.flightbooking.entity.SeatSelection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,5 +20,14 @@ public interface SeatSelectionRepository extends JpaRepository<SeatSelection, St
      * Check if seat is booked (confirmed) for a segment
      */
     boolean existsBySegmentIdAndSeatNumberAndStatus(String segmentId, String seatNumber, String status);
+    
+    /**
+     * Cancel seat selections for many bookings at once (bulk expiry)
+     * Frees the seats so they no longer show as booked
+     */
+    @Modifying
+    @Query("UPDATE SeatSelection ss SET ss.status = 'CANCELLED' " +
+           "WHERE ss.bookingId IN :bookingIds AND ss.status <> 'CANCELLED'")
+    int cancelForBookings(@Param("bookingIds") Collection<String> bookingIds);
 }
 
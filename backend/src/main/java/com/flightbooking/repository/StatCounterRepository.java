@@ -0,0 +1,54 @@
+package com.flightbooking.repository;
+
+import com.flightbooking.entity.StatCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface StatCounterRepository extends JpaRepository<StatCounter, String> {
+    
+    /**
+     * Add a delta to a counter (atomic upsert, safe with several nodes flushing)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stat_counters (metric, count_value, amount_value, updated_at) " +
+                   "VALUES (:metric, :count, :amount, :now) " +
+                   "ON CONFLICT (metric) DO UPDATE " +
+                   "SET count_value = stat_counters.count_value + EXCLUDED.count_value, " +
+                   "    amount_value = stat_counters.amount_value + EXCLUDED.amount_value, " +
+                   "    updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int increment(@Param("metric") String metric,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount,
+                  @Param("now") LocalDateTime now);
+    
+    /**
+     * Set a counter to an absolute value (rebuild)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stat_counters (metric, count_value, amount_value, updated_at) " +
+                   "VALUES (:metric, :count, :amount, :now) " +
+                   "ON CONFLICT (metric) DO UPDATE " +
+                   "SET count_value = EXCLUDED.count_value, " +
+                   "    amount_value = EXCLUDED.amount_value, " +
+                   "    updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int overwrite(@Param("metric") String metric,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount,
+                  @Param("now") LocalDateTime now);
+    
+    /**
+     * Zero every counter (rebuild; statuses with no rows left must read 0)
+     */
+    @Modifying
+    @Query("UPDATE StatCounter c SET c.countValue = 0, c.amountValue = 0, c.updatedAt = :now")
+    int resetAll(@Param("now") LocalDateTime now);
+}
@@ -2,8 +2,12 @@ package com.flightbooking.repository;
 
 import com.flightbooking.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,5 +17,26 @@ public interface UserRepository extends JpaRepository<User, String> {
     
     // Admin methods
     Long countByStatus(String status);
+    
+    /**
+     * User count per status in one GROUP BY query (statistics rebuild)
+     */
+    @Query("SELECT u.status AS status, COUNT(u) AS userCount FROM User u GROUP BY u.status")
+    List<StatusCount> countGroupByStatus();
+    
+    /**
+     * Replace a password hash (BCrypt cost upgrade on login)
+     * Only applies if the stored hash is still the one that was verified
+     *
+     * @return Number of rows updated (0 if the password changed in the meantime)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") String id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+    
+    interface StatusCount {
+        String getStatus();
+        Long getUserCount();
+    }
 }
 
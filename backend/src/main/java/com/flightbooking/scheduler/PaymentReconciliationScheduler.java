@@ -0,0 +1,111 @@
+package com.flightbooking.scheduler;
+
+import com.flightbooking.service.PaymentReconciliationService;
+import com.flightbooking.service.SchedulerLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Payment Reconciliation Scheduler
+ * 
+ * Nightly reconciliation of provider settlement files:
+ * - Picks up files named PROVIDER_yyyy-MM-dd.csv from the inbox directory
+ *   (e.g. STRIPE_2024-05-01.csv = Stripe payments created on 2024-05-01)
+ * - Writes mismatches to <report-dir>/<file>.mismatches.csv
+ * - Moves reconciled files to <inbox-dir>/processed
+ * 
+ * Disabled while payment.reconciliation.inbox-dir is not set
+ */
+@Component
+public class PaymentReconciliationScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationScheduler.class);
+    
+    private static final String RECONCILIATION_LEASE = "payment-reconciliation";
+    private static final Duration LEASE_DURATION = Duration.ofHours(2);
+    
+    @Autowired
+    private PaymentReconciliationService paymentReconciliationService;
+    
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+    
+    @Value("${payment.reconciliation.inbox-dir:}")
+    private String inboxDir;
+    
+    @Value("${payment.reconciliation.report-dir:}")
+    private String reportDir;
+    
+    /**
+     * Reconcile all waiting settlement files
+     * Runs daily at 02:00
+     */
+    @Scheduled(cron = "0 0 2 * * *")
+    public void reconcileSettlementFiles() {
+        if (inboxDir == null || inboxDir.isBlank()) {
+            return;
+        }
+        if (!schedulerLeaseService.tryAcquire(RECONCILIATION_LEASE, LEASE_DURATION)) {
+            return;
+        }
+        
+        try {
+            Path inbox = Paths.get(inboxDir);
+            Path processed = Files.createDirectories(inbox.resolve("processed"));
+            Path reports = Files.createDirectories(reportDir == null || reportDir.isBlank() 
+                ? inbox.resolve("reports") : Paths.get(reportDir));
+            
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(inbox, "*.csv")) {
+                for (Path file : files) {
+                    reconcileFile(file, processed, reports);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error reading settlement inbox {}: {}", inboxDir, e.getMessage(), e);
+        } finally {
+            schedulerLeaseService.release(RECONCILIATION_LEASE);
+        }
+    }
+    
+    private void reconcileFile(Path file, Path processed, Path reports) {
+        String fileName = file.getFileName().toString();
+        String baseName = fileName.substring(0, fileName.length() - ".csv".length());
+        int separator = baseName.lastIndexOf('_');
+        
+        LocalDate settlementDate;
+        try {
+            settlementDate = separator > 0 ? LocalDate.parse(baseName.substring(separator + 1)) : null;
+        } catch (DateTimeParseException e) {
+            settlementDate = null;
+        }
+        if (settlementDate == null) {
+            logger.warn("Skipping settlement file with unexpected name (expected PROVIDER_yyyy-MM-dd.csv): {}", fileName);
+            return;
+        }
+        String provider = baseName.substring(0, separator).toUpperCase();
+        
+        try {
+            paymentReconciliationService.reconcile(file, provider, 
+                settlementDate.atStartOfDay(), settlementDate.plusDays(1).atStartOfDay(),
+                reports.resolve(baseName + ".mismatches.csv"));
+            Files.move(file, processed.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            // File stays in the inbox and is retried next night
+            logger.error("Reconciliation failed for {}: {}", fileName, e.getMessage(), e);
+        }
+    }
+}
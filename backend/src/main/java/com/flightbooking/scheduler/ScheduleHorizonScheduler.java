@@ -0,0 +1,52 @@
+package com.flightbooking.scheduler;
+
+import com.flightbooking.service.FlightScheduleService;
+import com.flightbooking.service.SchedulerLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Schedule Horizon Scheduler
+ *
+ * Rolls the generated flights of the schedule patterns forward by a day, every night
+ * (one node, under a lease)
+ */
+@Component
+public class ScheduleHorizonScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleHorizonScheduler.class);
+    
+    private static final String HORIZON_LEASE = "flight-schedule-horizon";
+    
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(30);
+    
+    @Autowired
+    private FlightScheduleService flightScheduleService;
+    
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+    
+    /**
+     * Generate flights of the schedule patterns up to the horizon
+     * Runs daily at 02:30
+     */
+    @Scheduled(cron = "0 30 2 * * *")
+    public void extendHorizon() {
+        if (!schedulerLeaseService.tryAcquire(HORIZON_LEASE, LEASE_DURATION)) {
+            return;
+        }
+        
+        try {
+            flightScheduleService.extendHorizon();
+        } catch (Exception e) {
+            logger.error("Error extending flight schedule horizon: {}", e.getMessage(), e);
+        } finally {
+            schedulerLeaseService.release(HORIZON_LEASE);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.flightbooking.scheduler;
+
+import com.flightbooking.service.AnalyticsService;
+import com.flightbooking.service.SchedulerLeaseService;
+import com.flightbooking.service.StatisticsService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Statistics Scheduler
+ *
+ * - Flushes this node's pending counter and analytics bucket deltas every few seconds
+ *   (every node flushes its own deltas; the upserts are additive)
+ * - Rebuilds the counters from the source tables nightly to correct drift
+ *   (one node, under a lease)
+ */
+@Component
+public class StatisticsScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsScheduler.class);
+    
+    private static final String REBUILD_LEASE = "statistics-rebuild";
+    
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(30);
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private AnalyticsService analyticsService;
+    
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+    
+    /**
+     * Persist pending counter deltas and refresh the dashboard snapshot
+     * Runs every 5 seconds by default
+     */
+    @Scheduled(fixedDelayString = "${statistics.flush-interval-ms:5000}")
+    public void flushCounters() {
+        try {
+            statisticsService.flush();
+        } catch (Exception e) {
+            logger.error("Error flushing statistics counters: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Persist pending analytics bucket deltas
+     * Runs every 10 seconds by default
+     */
+    @Scheduled(fixedDelayString = "${analytics.flush-interval-ms:10000}")
+    public void flushAnalytics() {
+        try {
+            analyticsService.flush();
+        } catch (Exception e) {
+            logger.error("Error flushing analytics buckets: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Recompute the running totals from the source tables
+     * Runs daily at 04:30
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    public void rebuildCounters() {
+        if (!schedulerLeaseService.tryAcquire(REBUILD_LEASE, LEASE_DURATION)) {
+            return;
+        }
+        
+        try {
+            statisticsService.rebuild();
+        } catch (Exception e) {
+            logger.error("Error rebuilding statistics counters: {}", e.getMessage(), e);
+        } finally {
+            schedulerLeaseService.release(REBUILD_LEASE);
+        }
+    }
+    
+    /**
+     * Don't lose the last few seconds of deltas on a clean shutdown
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            statisticsService.flush();
+        } catch (Exception e) {
+            logger.warn("Final statistics flush failed: {}", e.getMessage());
+        }
+        try {
+            analyticsService.flush();
+        } catch (Exception e) {
+            logger.warn("Final analytics flush failed: {}", e.getMessage());
+        }
+    }
+}
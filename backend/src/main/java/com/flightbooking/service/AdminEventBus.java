@@ -0,0 +1,278 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.AdminEventDTO;
+import com.flightbooking.event.ApprovalRequestedEvent;
+import com.flightbooking.event.BookingStatusChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Admin Event Bus
+ *
+ * Pushes approval-queue changes to admin panels over Server-Sent Events:
+ * - APPROVAL_NEEDED: admin approval notification created
+ * - BOOKING_APPROVED: booking confirmed (admin approval or successful payment)
+ * - BOOKING_CANCELLED: booking cancelled (admin or customer)
+ *
+ * Events are taken from committed transactions only. The last buffer-size
+ * events are kept in a ring buffer, so a reconnecting client sends its
+ * Last-Event-ID and gets what it missed. If it missed more than the buffer
+ * holds, it receives a RESYNC event and should reload the pending list.
+ *
+ * Event ids are "<epoch>-<sequence>": the epoch is drawn at startup, so an id
+ * issued by an earlier run of this node, or by another node, never matches and
+ * the client gets a RESYNC instead of a silent gap.
+ *
+ * The bus is per node: an admin only receives events of changes committed on the
+ * node that serves the stream. With several nodes behind a load balancer, admins
+ * still need the RESYNC/reload path (or sticky routing to a single writer).
+ *
+ * Delivery runs on one background thread (in event order), never on the
+ * thread that committed the change.
+ */
+@Service
+public class AdminEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminEventBus.class);
+
+    public static final String APPROVAL_NEEDED = "APPROVAL_NEEDED";
+    public static final String BOOKING_APPROVED = "BOOKING_APPROVED";
+    public static final String BOOKING_CANCELLED = "BOOKING_CANCELLED";
+    public static final String RESYNC = "RESYNC";
+
+    @Value("${admin.events.buffer-size:1000}")
+    private int bufferSize;
+
+    @Value("${admin.events.emitter-timeout-ms:1800000}") // 30 minutes, client reconnects
+    private long emitterTimeoutMs;
+
+    /**
+     * Prefix of this run's event ids
+     */
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+
+    /**
+     * Ring buffer of recent events, guarded by this
+     */
+    private AdminEventDTO[] ring;
+    private long nextEventId = 1;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private ExecutorService deliveryExecutor;
+
+    @PostConstruct
+    void start() {
+        ring = new AdminEventDTO[bufferSize];
+        deliveryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onApprovalRequested(ApprovalRequestedEvent event) {
+        publish(APPROVAL_NEEDED, event.getBookingId(), event.getBookingCode(), "PENDING_PAYMENT");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if ("CONFIRMED".equals(event.getNewStatus())) {
+            publish(BOOKING_APPROVED, event.getBookingId(), null, event.getNewStatus());
+        } else if ("CANCELLED".equals(event.getNewStatus())) {
+            publish(BOOKING_CANCELLED, event.getBookingId(), null, event.getNewStatus());
+        }
+    }
+
+    /**
+     * Add an event to the buffer and send it to all subscribers
+     */
+    public void publish(String type, String bookingId, String bookingCode, String bookingStatus) {
+        AdminEventDTO event;
+        synchronized (this) {
+            event = AdminEventDTO.builder()
+                    .id(nextEventId)
+                    .type(type)
+                    .bookingId(bookingId)
+                    .bookingCode(bookingCode)
+                    .bookingStatus(bookingStatus)
+                    .occurredAt(LocalDateTime.now())
+                    .build();
+            ring[(int) (nextEventId % bufferSize)] = event;
+            nextEventId++;
+        }
+
+        deliveryExecutor.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.send(event);
+            }
+        });
+    }
+
+    /**
+     * Open an event stream
+     *
+     * @param lastEventId Last event id the client received (null = only new events)
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Replay and registration run on the delivery thread, so no event is missed in between
+        deliveryExecutor.execute(() -> {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscriber, lastEventId);
+            } else {
+                synchronized (this) {
+                    subscriber.lastSentId = nextEventId - 1;
+                }
+            }
+            if (!subscriber.closed) {
+                subscribers.add(subscriber);
+            }
+        });
+
+        logger.debug("Admin event subscriber added (last event id {})", lastEventId);
+        return emitter;
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long lastSequence = sequenceOf(lastEventId);
+        List<AdminEventDTO> missed = new ArrayList<>();
+        boolean gap;
+        synchronized (this) {
+            long oldestBuffered = Math.max(1, nextEventId - bufferSize);
+            // Unknown epoch, or a sequence this run never issued: events may be missing
+            gap = lastSequence < 0 || lastSequence >= nextEventId || lastSequence + 1 < oldestBuffered;
+            if (!gap) {
+                for (long id = Math.max(lastSequence + 1, oldestBuffered); id < nextEventId; id++) {
+                    missed.add(ring[(int) (id % bufferSize)]);
+                }
+            }
+            subscriber.lastSentId = gap ? nextEventId - 1 : lastSequence;
+        }
+
+        if (gap) {
+            subscriber.sendResync(subscriber.lastSentId);
+        } else {
+            missed.forEach(subscriber::send);
+        }
+    }
+
+    /**
+     * Sequence of an event id issued by this run, -1 if it is from another run or node
+     */
+    private long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Keep idle connections open through proxies and drop dead ones
+     * Runs every 25 seconds
+     */
+    @Scheduled(fixedDelay = 25000)
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        deliveryExecutor.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.ping();
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void stop() {
+        deliveryExecutor.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * One open stream; only touched on the delivery thread
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private long lastSentId;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void send(AdminEventDTO event) {
+            if (closed || event.getId() <= lastSentId) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(epoch + "-" + event.getId())
+                        .name(event.getType())
+                        .data(event));
+                lastSentId = event.getId();
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private void sendResync(long eventId) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(epoch + "-" + eventId)
+                        .name(RESYNC)
+                        .data("Missed events are no longer buffered, reload the pending list"));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private void ping() {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            emitter.completeWithError(new IOException("Admin event stream closed"));
+        }
+    }
+}
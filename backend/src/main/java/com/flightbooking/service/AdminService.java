@@ -1,21 +1,13 @@
 package com.flightbooking.service;
 
 import com.flightbooking.dto.DashboardStats;
-import com.flightbooking.entity.Booking;
-import com.flightbooking.repository.BookingRepository;
-import com.flightbooking.repository.FlightRepository;
-import com.flightbooking.repository.PaymentRepository;
-import com.flightbooking.repository.UserRepository;
+import com.flightbooking.service.StatisticsService.Totals;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.util.List;
 
 /**
  * Admin Service
@@ -31,47 +23,37 @@ public class AdminService {
     private static final Logger logger = LoggerFactory.getLogger(AdminService.class);
     
     @Autowired
-    private UserRepository userRepository;
-    
-    @Autowired
-    private BookingRepository bookingRepository;
-    
-    @Autowired
-    private FlightRepository flightRepository;
-    
-    @Autowired
-    private PaymentRepository paymentRepository;
+    private StatisticsService statisticsService;
     
     /**
      * Get dashboard statistics
      * 
+     * Read from the running counters kept by StatisticsService (no database query)
+     * 
      * @return Dashboard stats with all key metrics
      */
     public DashboardStats getDashboardStats() {
         logger.info("Fetching dashboard statistics");
         
         // Total counts
-        Long totalUsers = userRepository.count();
-        Long totalBookings = bookingRepository.count();
-        Long totalFlights = flightRepository.count();
+        Long totalUsers = statisticsService.total(StatisticsService.USERS_TOTAL).count();
+        Long totalFlights = statisticsService.total(StatisticsService.FLIGHTS_TOTAL).count();
+        Long totalBookings = statisticsService.totalOfPrefix(StatisticsService.BOOKINGS_PREFIX).count();
         
-        // Total revenue (sum of all successful payments)
-        BigDecimal totalRevenue = calculateTotalRevenue();
+        // Total revenue = sum of confirmed bookings (payment was successful)
+        Totals confirmed = statisticsService.total(StatisticsService.BOOKINGS_PREFIX + "CONFIRMED");
+        BigDecimal totalRevenue = confirmed.amount();
         
-        // Today's stats
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
+        // Today's stats: bookings created today, amount of bookings confirmed today
+        Long bookingsToday = statisticsService.today(StatisticsService.BOOKINGS_CREATED).count();
+        BigDecimal revenueToday = statisticsService.today(StatisticsService.BOOKINGS_PREFIX + "CONFIRMED").amount();
         
-        Long bookingsToday = bookingRepository.countByCreatedAtBetween(startOfDay, endOfDay);
-        BigDecimal revenueToday = calculateRevenueBetween(startOfDay, endOfDay);
-        
-        // Bookings by status
-        Long confirmedBookings = bookingRepository.countByStatus("CONFIRMED");
-        Long pendingBookings = bookingRepository.countByStatus("PENDING_PAYMENT");
-        Long cancelledBookings = bookingRepository.countByStatus("CANCELLED");
+        Long confirmedBookings = confirmed.count();
+        Long pendingBookings = statisticsService.total(StatisticsService.BOOKINGS_PREFIX + "PENDING_PAYMENT").count();
+        Long cancelledBookings = statisticsService.total(StatisticsService.BOOKINGS_PREFIX + "CANCELLED").count();
         
         // Active users (could be enhanced with last login tracking)
-        Long activeUsers = userRepository.countByStatus("ACTIVE");
+        Long activeUsers = statisticsService.total(StatisticsService.USERS_PREFIX + "ACTIVE").count();
         
         return DashboardStats.builder()
                 .totalUsers(totalUsers)
@@ -83,85 +65,7 @@ public class AdminService {
                 .confirmedBookings(confirmedBookings)
                 .pendingBookings(pendingBookings)
                 .cancelledBookings(cancelledBookings)
-                .activeUsers(activeUsers != null ? activeUsers : totalUsers)
+                .activeUsers(activeUsers)
                 .build();
     }
-    
-    /**
-     * Calculate total revenue from all confirmed bookings
-     * Uses booking.totalAmount to ensure accuracy and avoid double counting
-     * Only counts bookings with status CONFIRMED (which means payment was successful)
-     */
-    private BigDecimal calculateTotalRevenue() {
-        try {
-            List<Booking> confirmedBookings = bookingRepository.findByStatus("CONFIRMED");
-            logger.debug("Found {} confirmed bookings for revenue calculation", confirmedBookings.size());
-            
-            BigDecimal total = confirmedBookings.stream()
-                    .filter(booking -> booking.getTotalAmount() != null)
-                    .map(Booking::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            logger.info("Total revenue calculated: {} VND", total);
-            return total;
-        } catch (Exception e) {
-            logger.error("Error calculating total revenue", e);
-            return BigDecimal.ZERO;
-        }
-    }
-    
-    /**
-     * Calculate revenue between two dates
-     * Uses confirmed bookings that were confirmed (updatedAt) within the date range
-     * Only counts bookings with status CONFIRMED
-     * 
-     * Note: We use updatedAt to determine when booking was confirmed (after payment)
-     * This is more accurate than createdAt which is when booking was initially created
-     */
-    private BigDecimal calculateRevenueBetween(LocalDateTime start, LocalDateTime end) {
-        try {
-            // Get all confirmed bookings
-            List<Booking> confirmedBookings = bookingRepository.findByStatus("CONFIRMED");
-            
-            // Filter by date range - use updatedAt (when booking was confirmed) for accuracy
-            BigDecimal revenue = confirmedBookings.stream()
-                    .filter(booking -> {
-                        // Use updatedAt to determine when booking was confirmed
-                        // If updatedAt is null, fallback to createdAt
-                        LocalDateTime checkDate = booking.getUpdatedAt() != null 
-                            ? booking.getUpdatedAt() 
-                            : booking.getCreatedAt();
-                        
-                        if (checkDate == null) {
-                            return false;
-                        }
-                        
-                        // Check if booking was confirmed within the date range (inclusive)
-                        // Include bookings confirmed at start or end time
-                        return (checkDate.isEqual(start) || checkDate.isAfter(start)) 
-                            && (checkDate.isEqual(end) || checkDate.isBefore(end));
-                    })
-                    .filter(booking -> booking.getTotalAmount() != null)
-                    .map(Booking::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            long count = confirmedBookings.stream()
-                    .filter(booking -> {
-                        LocalDateTime checkDate = booking.getUpdatedAt() != null 
-                            ? booking.getUpdatedAt() 
-                            : booking.getCreatedAt();
-                        return checkDate != null 
-                            && (checkDate.isEqual(start) || checkDate.isAfter(start)) 
-                            && (checkDate.isEqual(end) || checkDate.isBefore(end));
-                    })
-                    .count();
-            
-            logger.info("Revenue between {} and {}: {} VND (from {} confirmed bookings)", 
-                start, end, revenue, count);
-            return revenue;
-        } catch (Exception e) {
-            logger.error("Error calculating revenue between dates", e);
-            return BigDecimal.ZERO;
-        }
-    }
 }
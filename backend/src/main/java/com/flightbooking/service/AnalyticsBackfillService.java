@@ -0,0 +1,269 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.AnalyticsBackfillStatusDTO;
+import com.flightbooking.entity.AnalyticsBucket;
+import com.flightbooking.exception.BusinessException;
+import com.flightbooking.repository.AnalyticsBucketRepository;
+import com.flightbooking.repository.AnalyticsBucketRepository.BackfillRow;
+import com.flightbooking.service.AnalyticsService.BucketKey;
+import com.flightbooking.service.AnalyticsService.Granularity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Analytics Backfill Service
+ *
+ * Fills analytics_buckets for days before events were recorded:
+ * - One day per chunk, each in its own transaction: the day's HOUR and DAY
+ *   buckets are deleted, the day's bookings/payments are streamed through a
+ *   database cursor and aggregated in memory (one entry per hour/route/airline),
+ *   then written back
+ * - MONTH buckets of the covered closed months are then rebuilt from the DAY buckets.
+ *   The current month's MONTH bucket is still being incremented by AnalyticsService.flush,
+ *   so it is never rebuilt: each backfilled day of it adds (new DAY - old DAY) to it
+ *   with the same additive upsert the live flush uses
+ * - Runs in the background on one node (scheduler lease); progress is
+ *   available through getStatus()
+ *
+ * Only complete days (before today) can be backfilled, so it never races with
+ * the live counters of AnalyticsService for HOUR/DAY buckets.
+ *
+ * Known gap with the live counters: without a status history, "confirmed" is
+ * reconstructed as "status confirmed-or-later (or cancelled), at the booking's
+ * last update", while the live counters record the transition to CONFIRMED when
+ * it happens. A booking confirmed and later ticketed on another day is counted
+ * on the ticketing day by the backfill.
+ */
+@Service
+public class AnalyticsBackfillService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsBackfillService.class);
+    
+    private static final String BACKFILL_LEASE = "analytics-backfill";
+    
+    private static final List<String> DAY_GRANULARITIES = List.of(Granularity.HOUR.name(), Granularity.DAY.name());
+    
+    @Autowired
+    private AnalyticsBucketRepository analyticsBucketRepository;
+    
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${analytics.backfill.max-days:1100}")
+    private int maxDays;
+    
+    @Value("${analytics.backfill.lease-hours:6}")
+    private int leaseHours;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private ExecutorService executor;
+    
+    /**
+     * Last run on this node, guarded by this
+     */
+    private AnalyticsBackfillStatusDTO status = AnalyticsBackfillStatusDTO.builder().build();
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analytics-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Start a backfill of [from, to] in the background
+     *
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive, before today)
+     * @return Status of the started run
+     * @throws BusinessException if the range is invalid or a backfill is already running
+     */
+    public synchronized AnalyticsBackfillStatusDTO start(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new BusinessException("INVALID_DATE_RANGE", "'to' must not be before 'from'");
+        }
+        if (!to.isBefore(LocalDate.now())) {
+            throw new BusinessException("INVALID_DATE_RANGE", "Only days before today can be backfilled");
+        }
+        if (from.plusDays(maxDays).isBefore(to)) {
+            throw new BusinessException("INVALID_DATE_RANGE", "At most " + maxDays + " days per backfill");
+        }
+        if (status.isRunning()) {
+            throw new BusinessException("BACKFILL_RUNNING", "An analytics backfill is already running");
+        }
+        if (!schedulerLeaseService.tryAcquire(BACKFILL_LEASE, Duration.ofHours(leaseHours))) {
+            throw new BusinessException("BACKFILL_RUNNING", "An analytics backfill is running on another node");
+        }
+        
+        status = AnalyticsBackfillStatusDTO.builder()
+                .running(true)
+                .from(from)
+                .to(to)
+                .startedAt(LocalDateTime.now())
+                .build();
+        executor.execute(() -> run(from, to));
+        return getStatus();
+    }
+    
+    public synchronized AnalyticsBackfillStatusDTO getStatus() {
+        return status.toBuilder().build();
+    }
+    
+    private void run(LocalDate from, LocalDate to) {
+        logger.info("Analytics backfill started for {} - {}", from, to);
+        // Months before this one are closed: no live increments reach their MONTH bucket
+        LocalDateTime openMonth = Granularity.MONTH.truncate(LocalDateTime.now());
+        try {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                LocalDate chunkDay = day;
+                boolean inOpenMonth = !chunkDay.atStartOfDay().isBefore(openMonth);
+                Long rows = transactionTemplate.execute(tx -> backfillDay(chunkDay, inOpenMonth));
+                synchronized (this) {
+                    status.setLastCompletedDay(chunkDay);
+                    status.setDaysCompleted(status.getDaysCompleted() + 1);
+                    status.setRowsRead(status.getRowsRead() + (rows != null ? rows : 0));
+                }
+            }
+            
+            LocalDateTime firstMonth = Granularity.MONTH.truncate(from.atStartOfDay());
+            LocalDateTime afterLastMonth = Granularity.MONTH.next(Granularity.MONTH.truncate(to.atStartOfDay()));
+            LocalDateTime afterLastClosedMonth = afterLastMonth.isAfter(openMonth) ? openMonth : afterLastMonth;
+            if (firstMonth.isBefore(afterLastClosedMonth)) {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    analyticsBucketRepository.deleteRange(List.of(Granularity.MONTH.name()), firstMonth, afterLastClosedMonth);
+                    analyticsBucketRepository.rollupMonths(firstMonth, afterLastClosedMonth, LocalDateTime.now());
+                });
+            }
+            
+            logger.info("Analytics backfill finished for {} - {}: {} days, {} rows",
+                from, to, status.getDaysCompleted(), status.getRowsRead());
+        } catch (Exception e) {
+            logger.error("Analytics backfill failed after day {}: {}", status.getLastCompletedDay(), e.getMessage(), e);
+            synchronized (this) {
+                status.setError(e.getMessage());
+            }
+        } finally {
+            synchronized (this) {
+                status.setRunning(false);
+                status.setCompletedAt(LocalDateTime.now());
+            }
+            schedulerLeaseService.release(BACKFILL_LEASE);
+        }
+    }
+    
+    /**
+     * Recompute the HOUR and DAY buckets of one day (runs inside a transaction)
+     *
+     * @param inOpenMonth Also apply the change of the day's totals to the current MONTH bucket
+     * @return Number of source rows read
+     */
+    private long backfillDay(LocalDate day, boolean inOpenMonth) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+        
+        Map<BucketKey, long[]> buckets = new HashMap<>();
+        long rows = 0;
+        try (Stream<BackfillRow> stream = analyticsBucketRepository.streamBackfillRows(start, end)) {
+            Iterator<BackfillRow> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                BackfillRow row = iterator.next();
+                rows++;
+                
+                String route = AnalyticsService.routeOf(row.getOrigin(), row.getDestination());
+                String airline = row.getAirline() != null ? row.getAirline() : AnalyticsService.UNKNOWN;
+                LocalDateTime hour = start.plusHours(row.getHourOfDay());
+                long[] hourValues = buckets.computeIfAbsent(
+                        new BucketKey(Granularity.HOUR, hour, route, airline), key -> new long[4]);
+                long[] dayValues = buckets.computeIfAbsent(
+                        new BucketKey(Granularity.DAY, start, route, airline), key -> new long[4]);
+                
+                int column;
+                long value = 1;
+                switch (row.getKind()) {
+                    case "CREATED":
+                        column = 0;
+                        break;
+                    case "CONFIRMED":
+                        column = 1;
+                        break;
+                    case "CANCELLED":
+                        column = 2;
+                        break;
+                    default: // PAID
+                        column = 3;
+                        value = AnalyticsService.toMinor(row.getAmount());
+                }
+                hourValues[column] += value;
+                dayValues[column] += value;
+            }
+        }
+        
+        // MONTH delta = new DAY buckets - old DAY buckets, per route/airline
+        Map<BucketKey, long[]> monthDeltas = new HashMap<>();
+        if (inOpenMonth) {
+            LocalDateTime month = Granularity.MONTH.truncate(start);
+            for (AnalyticsBucket old : analyticsBucketRepository.findByGranularityAndBucketStart(Granularity.DAY.name(), start)) {
+                long[] delta = monthDeltas.computeIfAbsent(
+                        new BucketKey(Granularity.MONTH, month, old.getRoute(), old.getAirline()), key -> new long[4]);
+                delta[0] -= old.getBookings() != null ? old.getBookings() : 0;
+                delta[1] -= old.getConfirmedBookings() != null ? old.getConfirmedBookings() : 0;
+                delta[2] -= old.getCancelledBookings() != null ? old.getCancelledBookings() : 0;
+                delta[3] -= AnalyticsService.toMinor(old.getRevenue());
+            }
+            buckets.forEach((key, values) -> {
+                if (key.granularity() == Granularity.DAY) {
+                    long[] delta = monthDeltas.computeIfAbsent(
+                            new BucketKey(Granularity.MONTH, month, key.route(), key.airline()), k -> new long[4]);
+                    for (int i = 0; i < delta.length; i++) {
+                        delta[i] += values[i];
+                    }
+                }
+            });
+        }
+        
+        analyticsBucketRepository.deleteRange(DAY_GRANULARITIES, start, end);
+        LocalDateTime now = LocalDateTime.now();
+        buckets.forEach((key, values) -> analyticsBucketRepository.increment(key.granularity().name(),
+                key.bucketStart(), key.route(), key.airline(), values[0], values[1], values[2],
+                AnalyticsService.fromMinor(values[3]), now));
+        monthDeltas.forEach((key, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0 || delta[2] != 0 || delta[3] != 0) {
+                analyticsBucketRepository.increment(key.granularity().name(), key.bucketStart(), key.route(),
+                        key.airline(), delta[0], delta[1], delta[2], AnalyticsService.fromMinor(delta[3]), now);
+            }
+        });
+        
+        logger.debug("Backfilled analytics for {}: {} rows into {} buckets", day, rows, buckets.size());
+        return rows;
+    }
+    
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+}
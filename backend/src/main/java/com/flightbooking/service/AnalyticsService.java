@@ -0,0 +1,383 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.AnalyticsPointDTO;
+import com.flightbooking.event.BookingStatusChangedEvent;
+import com.flightbooking.event.PaymentStatusChangedEvent;
+import com.flightbooking.exception.BusinessException;
+import com.flightbooking.repository.AnalyticsBucketRepository;
+import com.flightbooking.repository.FlightSegmentRepository;
+import com.flightbooking.repository.FlightSegmentRepository.RouteDimensions;
+import com.flightbooking.util.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Analytics Service
+ *
+ * Booking and revenue curves (hourly/daily/monthly, per route and airline)
+ * served from pre-aggregated time buckets:
+ * - Booking events add to in-memory LongAdders per booking and hour
+ *   (created -> bookings, CONFIRMED -> confirmed, CANCELLED -> cancelled)
+ * - Payment events add revenue (SUCCESS) or take it back (REFUNDED)
+ * - flush() looks up the route/airline of each booking's first segment (cached,
+ *   misses in one batch query), rolls the deltas up into HOUR, DAY and MONTH
+ *   buckets and writes them to analytics_buckets with additive upserts
+ * - Queries read only analytics_buckets; bookings/flight_segments are never scanned
+ *
+ * Historical buckets (before the events were recorded) are filled by
+ * AnalyticsBackfillService.
+ */
+@Service
+public class AnalyticsService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+    
+    public static final String UNKNOWN = "UNKNOWN";
+    
+    /**
+     * Largest number of buckets one query may span
+     */
+    private static final long MAX_BUCKETS = 2000;
+    
+    /**
+     * Bookings per dimension lookup query (IN-list size)
+     */
+    private static final int DIMENSION_BATCH_SIZE = 500;
+    
+    private static final Dimensions UNKNOWN_DIMENSIONS = new Dimensions(UNKNOWN, UNKNOWN);
+    
+    @Autowired
+    private AnalyticsBucketRepository analyticsBucketRepository;
+    
+    @Autowired
+    private FlightSegmentRepository flightSegmentRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${analytics.dimension-cache-size:10000}")
+    private int dimensionCacheSize;
+    
+    @Value("${analytics.dimension-cache-ttl-minutes:60}")
+    private long dimensionCacheTtlMinutes;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    /**
+     * bookingId -> route/airline; a booking's segments don't change after creation
+     */
+    private ExpiringCache<String, Dimensions> dimensionCache;
+    
+    /**
+     * Deltas not yet written to analytics_buckets, per booking and hour
+     */
+    private final Map<PendingKey, BucketDelta> pending = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        dimensionCache = new ExpiringCache<>(dimensionCacheSize, Duration.ofMinutes(dimensionCacheTtlMinutes));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        long bookings = event.getPreviousStatus() == null ? 1 : 0;
+        long confirmed = "CONFIRMED".equals(event.getNewStatus()) ? 1 : 0;
+        long cancelled = "CANCELLED".equals(event.getNewStatus()) ? 1 : 0;
+        if (bookings + confirmed + cancelled == 0) {
+            return;
+        }
+        record(event.getBookingId(), bookings, confirmed, cancelled, 0);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        long amount = toMinor(event.getAmount());
+        if ("SUCCESS".equals(event.getNewStatus())) {
+            record(event.getBookingId(), 0, 0, 0, amount);
+        } else if ("REFUNDED".equals(event.getNewStatus()) && "SUCCESS".equals(event.getPreviousStatus())) {
+            record(event.getBookingId(), 0, 0, 0, -amount);
+        }
+    }
+    
+    private void record(String bookingId, long bookings, long confirmed, long cancelled, long revenueMinor) {
+        PendingKey key = new PendingKey(bookingId, Granularity.HOUR.truncate(LocalDateTime.now()));
+        BucketDelta delta = pending.computeIfAbsent(key, k -> new BucketDelta());
+        delta.bookings.add(bookings);
+        delta.confirmed.add(confirmed);
+        delta.cancelled.add(cancelled);
+        delta.revenueMinor.add(revenueMinor);
+    }
+    
+    /**
+     * Route/airline of each booking: from the cache, misses in one query per DIMENSION_BATCH_SIZE bookings
+     */
+    private Map<String, Dimensions> dimensionsOf(Collection<String> bookingIds) {
+        Map<String, Dimensions> dimensions = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String bookingId : bookingIds) {
+            Dimensions cached = dimensionCache.get(bookingId);
+            if (cached != null) {
+                dimensions.put(bookingId, cached);
+            } else {
+                missing.add(bookingId);
+            }
+        }
+        
+        for (int from = 0; from < missing.size(); from += DIMENSION_BATCH_SIZE) {
+            List<String> chunk = missing.subList(from, Math.min(from + DIMENSION_BATCH_SIZE, missing.size()));
+            Map<String, RouteDimensions> firstSegments = new HashMap<>();
+            for (RouteDimensions segment : flightSegmentRepository.findRouteDimensionsByBookingIdIn(chunk)) {
+                firstSegments.merge(segment.getBookingId(), segment, AnalyticsService::earlier);
+            }
+            for (String bookingId : chunk) {
+                RouteDimensions first = firstSegments.get(bookingId);
+                Dimensions resolved = first != null ? toDimensions(first) : UNKNOWN_DIMENSIONS;
+                dimensionCache.put(bookingId, resolved);
+                dimensions.put(bookingId, resolved);
+            }
+        }
+        return dimensions;
+    }
+    
+    /**
+     * Segment departing first (segments without a departure time lose)
+     */
+    private static RouteDimensions earlier(RouteDimensions a, RouteDimensions b) {
+        if (a.getDepartTime() == null) {
+            return b;
+        }
+        if (b.getDepartTime() == null) {
+            return a;
+        }
+        return b.getDepartTime().isBefore(a.getDepartTime()) ? b : a;
+    }
+    
+    static Dimensions toDimensions(RouteDimensions segment) {
+        return new Dimensions(routeOf(segment.getOrigin(), segment.getDestination()),
+                segment.getAirline() != null ? segment.getAirline() : UNKNOWN);
+    }
+    
+    static String routeOf(String origin, String destination) {
+        if (origin == null || destination == null) {
+            return UNKNOWN;
+        }
+        return origin + "-" + destination;
+    }
+    
+    /**
+     * Write pending deltas to analytics_buckets (one transaction)
+     * If the dimension lookup or the write fails the deltas are put back and retried on the next flush
+     *
+     * @return Number of buckets updated
+     */
+    public int flush() {
+        Map<PendingKey, long[]> drained = drain();
+        if (drained.isEmpty()) {
+            return 0;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Map<BucketKey, long[]> buckets;
+        try {
+            buckets = rollUp(drained);
+            transactionTemplate.executeWithoutResult(status -> buckets.forEach((key, values) ->
+                analyticsBucketRepository.increment(key.granularity().name(), key.bucketStart(),
+                        key.route(), key.airline(), values[0], values[1], values[2], fromMinor(values[3]), now)));
+        } catch (RuntimeException e) {
+            drained.forEach((key, values) -> {
+                BucketDelta delta = pending.computeIfAbsent(key, k -> new BucketDelta());
+                delta.bookings.add(values[0]);
+                delta.confirmed.add(values[1]);
+                delta.cancelled.add(values[2]);
+                delta.revenueMinor.add(values[3]);
+            });
+            throw e;
+        }
+        
+        logger.debug("Flushed {} analytics buckets ({} booking deltas)", buckets.size(), drained.size());
+        return buckets.size();
+    }
+    
+    /**
+     * Sum per-booking hourly deltas into the HOUR, DAY and MONTH buckets of each booking's route/airline
+     */
+    private Map<BucketKey, long[]> rollUp(Map<PendingKey, long[]> drained) {
+        Set<String> bookingIds = new HashSet<>();
+        for (PendingKey key : drained.keySet()) {
+            if (key.bookingId() != null) {
+                bookingIds.add(key.bookingId());
+            }
+        }
+        Map<String, Dimensions> dimensions = dimensionsOf(bookingIds);
+        
+        Map<BucketKey, long[]> buckets = new HashMap<>();
+        drained.forEach((key, values) -> {
+            Dimensions booking = key.bookingId() != null
+                ? dimensions.getOrDefault(key.bookingId(), UNKNOWN_DIMENSIONS)
+                : UNKNOWN_DIMENSIONS;
+            for (Granularity granularity : Granularity.values()) {
+                BucketKey bucket = new BucketKey(granularity, granularity.truncate(key.hour()), booking.route(), booking.airline());
+                long[] total = buckets.computeIfAbsent(bucket, k -> new long[4]);
+                for (int i = 0; i < total.length; i++) {
+                    total[i] += values[i];
+                }
+            }
+        });
+        return buckets;
+    }
+    
+    private Map<PendingKey, long[]> drain() {
+        Map<PendingKey, long[]> drained = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<PendingKey, BucketDelta> entry : pending.entrySet()) {
+            PendingKey key = entry.getKey();
+            BucketDelta delta = entry.getValue();
+            long[] values = {
+                delta.bookings.sumThenReset(),
+                delta.confirmed.sumThenReset(),
+                delta.cancelled.sumThenReset(),
+                delta.revenueMinor.sumThenReset()
+            };
+            if (values[0] != 0 || values[1] != 0 || values[2] != 0 || values[3] != 0) {
+                drained.put(key, values);
+            }
+            // Past hours receive no more events; drop their (now empty) adders
+            if (Granularity.HOUR.next(key.hour()).isBefore(now)) {
+                pending.remove(key, delta);
+            }
+        }
+        return drained;
+    }
+    
+    /**
+     * Booking/revenue curve from the pre-aggregated buckets
+     *
+     * @param granularity HOUR, DAY or MONTH
+     * @param from Start (inclusive, truncated to the bucket)
+     * @param to End (exclusive)
+     * @param route Only this route (e.g. "SGN-HAN"), null = all
+     * @param airline Only this airline, null = all
+     * @param groupBy null (one curve), ROUTE or AIRLINE (one curve per value)
+     */
+    @Transactional(readOnly = true)
+    public List<AnalyticsPointDTO> getSeries(String granularity, LocalDateTime from, LocalDateTime to,
+                                             String route, String airline, String groupBy) {
+        Granularity unit = Granularity.parse(granularity);
+        LocalDateTime start = unit.truncate(from);
+        if (!to.isAfter(start)) {
+            throw new BusinessException("INVALID_DATE_RANGE", "'to' must be after 'from'");
+        }
+        if (unit.unit().between(start, to) > MAX_BUCKETS) {
+            throw new BusinessException("RANGE_TOO_LARGE",
+                "At most " + MAX_BUCKETS + " " + unit + " buckets per query; use a coarser granularity");
+        }
+        
+        String routeFilter = route != null && !route.isBlank() ? route.trim().toUpperCase() : null;
+        String airlineFilter = airline != null && !airline.isBlank() ? airline.trim() : null;
+        
+        if (groupBy == null || groupBy.isBlank()) {
+            return analyticsBucketRepository.findSeries(unit.name(), start, to, routeFilter, airlineFilter);
+        }
+        switch (groupBy.toUpperCase()) {
+            case "ROUTE":
+                return analyticsBucketRepository.findSeriesByRoute(unit.name(), start, to, routeFilter, airlineFilter);
+            case "AIRLINE":
+                return analyticsBucketRepository.findSeriesByAirline(unit.name(), start, to, routeFilter, airlineFilter);
+            default:
+                throw new BusinessException("INVALID_GROUP_BY", "groupBy must be ROUTE or AIRLINE");
+        }
+    }
+    
+    static long toMinor(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0;
+    }
+    
+    static BigDecimal fromMinor(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, 2);
+    }
+    
+    /**
+     * Bucket size
+     */
+    public enum Granularity {
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS),
+        MONTH(ChronoUnit.MONTHS);
+        
+        private final ChronoUnit unit;
+        
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+        
+        public ChronoUnit unit() {
+            return unit;
+        }
+        
+        public LocalDateTime truncate(LocalDateTime time) {
+            if (this == MONTH) {
+                return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+            }
+            return time.truncatedTo(unit);
+        }
+        
+        /**
+         * Start of the bucket after the one starting at bucketStart
+         */
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return bucketStart.plus(1, unit);
+        }
+        
+        public static Granularity parse(String value) {
+            try {
+                return Granularity.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new BusinessException("INVALID_GRANULARITY", "granularity must be HOUR, DAY or MONTH");
+            }
+        }
+    }
+    
+    record Dimensions(String route, String airline) {
+    }
+    
+    /**
+     * @param bookingId Booking the events were for (null if unknown)
+     * @param hour Start of the hour the events happened in
+     */
+    record PendingKey(String bookingId, LocalDateTime hour) {
+    }
+    
+    record BucketKey(Granularity granularity, LocalDateTime bucketStart, String route, String airline) {
+    }
+    
+    private static final class BucketDelta {
+        private final LongAdder bookings = new LongAdder();
+        private final LongAdder confirmed = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder revenueMinor = new LongAdder();
+    }
+}
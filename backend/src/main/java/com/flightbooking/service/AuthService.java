@@ -5,19 +5,46 @@ import com.flightbooking.dto.LoginResponse;
 import com.flightbooking.dto.RegisterRequest;
 import com.flightbooking.dto.UserDTO;
 import com.flightbooking.entity.User;
+import com.flightbooking.event.UserRoleChangedEvent;
+import com.flightbooking.event.UserStatusChangedEvent;
+import com.flightbooking.exception.ServiceOverloadedException;
 import com.flightbooking.repository.UserRepository;
+import com.flightbooking.util.ExpiringCache;
 import com.flightbooking.util.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Authentication Service
@@ -27,8 +54,20 @@ import java.util.UUID;
  * - User login with password verification
  * - JWT token generation
  * 
+ * Login throughput:
+ * - email -> credentials (id, role, status, hash) are cached with a TTL in a
+ *   lock-free bounded cache (ExpiringCache, oldest dropped first); evicted when
+ *   the user's status or role changes. Only lookups are cached, never the
+ *   outcome of a password check
+ * - BCrypt checks run on a dedicated bounded pool (auth-bcrypt-N); login()
+ *   returns a future so request threads aren't held, and a full queue is
+ *   rejected with 503 instead of piling up
+ * - Hashes whose cost differs from security.bcrypt.strength are re-hashed
+ *   after the next successful login
+ * - auth.login.latency timer (p50/p95/p99, tagged by outcome)
+ * 
  * Security Features:
- * - Passwords are BCrypt hashed (strength 10)
+ * - Passwords are BCrypt hashed (strength security.bcrypt.strength, default 10)
  * - Passwords are NEVER exposed in responses
  * - Email uniqueness validation
  * - Account status checking (ACTIVE/INACTIVE)
@@ -39,6 +78,17 @@ public class AuthService {
     
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
     
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_INVALID = "invalid_credentials";
+    private static final String OUTCOME_INACTIVE = "inactive";
+    private static final String OUTCOME_REJECTED = "rejected";
+    private static final String OUTCOME_ERROR = "error";
+    
+    /**
+     * Seconds a client should wait before retrying when the BCrypt queue is full
+     */
+    private static final long OVERLOADED_RETRY_AFTER_SECONDS = 1;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -48,6 +98,83 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+    
+    /**
+     * BCrypt worker threads, 0 = one per CPU
+     */
+    @Value("${auth.login.bcrypt-threads:0}")
+    private int bcryptThreads;
+    
+    @Value("${auth.login.bcrypt-queue-capacity:200}")
+    private int bcryptQueueCapacity;
+    
+    @Value("${auth.login.credential-cache-size:10000}")
+    private int credentialCacheSize;
+    
+    @Value("${auth.login.credential-cache-ttl-seconds:300}")
+    private long credentialCacheTtlSeconds;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private ThreadPoolExecutor bcryptExecutor;
+    
+    /**
+     * email -> credentials of the account
+     */
+    private ExpiringCache<String, CachedCredential> credentialCache;
+    
+    /**
+     * Bumped on every eviction; a lookup that raced with one is not cached
+     */
+    private final AtomicLong credentialGeneration = new AtomicLong();
+    
+    private final Map<String, Timer> loginTimers = new HashMap<>();
+    private Counter cacheHitCounter;
+    private Counter cacheMissCounter;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        credentialCache = new ExpiringCache<>(credentialCacheSize, Duration.ofSeconds(credentialCacheTtlSeconds));
+        
+        int threads = bcryptThreads > 0 ? bcryptThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        bcryptExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(bcryptQueueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "auth-bcrypt-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        
+        Gauge.builder("auth.bcrypt.queue.depth", bcryptExecutor, executor -> executor.getQueue().size())
+            .description("Logins waiting for a BCrypt worker")
+            .register(meterRegistry);
+        for (String outcome : List.of(OUTCOME_SUCCESS, OUTCOME_INVALID, OUTCOME_INACTIVE, OUTCOME_REJECTED, OUTCOME_ERROR)) {
+            loginTimers.put(outcome, Timer.builder("auth.login.latency")
+                .description("Login latency from request to token (including BCrypt queue wait)")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+        }
+        cacheHitCounter = meterRegistry.counter("auth.credential.cache.hit");
+        cacheMissCounter = meterRegistry.counter("auth.credential.cache.miss");
+        
+        logger.info("Login BCrypt pool started: {} threads, queue capacity {}, cost {}",
+            threads, bcryptQueueCapacity, bcryptStrength);
+    }
+    
     /**
      * Register new user
      * 
@@ -131,6 +258,7 @@ public class AuthService {
             
             logger.info("✅ Verified: User exists in database. ID: {}, Email: {}", 
                 user.getId(), user.getEmail());
+            eventPublisher.publishEvent(new UserStatusChangedEvent(user.getId(), null, user.getStatus()));
                 
         } catch (org.springframework.dao.DataIntegrityViolationException e) {
             logger.error("❌ Database constraint violation when saving user");
@@ -167,46 +295,94 @@ public class AuthService {
      * Login user and generate JWT token
      * 
      * Process:
-     * 1. Find user by email
-     * 2. Verify password with BCrypt
+     * 1. Find user by email (credential cache, then database) on the calling thread
+     * 2. Verify password with BCrypt on the BCrypt pool
      * 3. Check account status (must be ACTIVE)
-     * 4. Generate JWT token with userId, email, role
-     * 5. Return accessToken ONLY
+     * 4. Re-hash the password if its BCrypt cost is not the configured one
+     * 5. Generate JWT token with userId, email, role
+     * 6. Return accessToken ONLY
      * 
      * @param request LoginRequest (email, password)
-     * @return LoginResponse (accessToken)
-     * @throws BadCredentialsException 401 if credentials invalid
-     * @throws ResponseStatusException 401 if account not active
+     * @return Future of LoginResponse (accessToken); fails with BadCredentialsException
+     *         if credentials invalid or ResponseStatusException 401 if account not active
+     * @throws BadCredentialsException 401 if the email is unknown
+     * @throws ServiceOverloadedException 503 if the BCrypt queue is full
      */
-    public LoginResponse login(LoginRequest request) {
+    public CompletableFuture<LoginResponse> login(LoginRequest request) {
         logger.info("Login attempt for email: {}", request.getEmail());
+        long startedAt = System.nanoTime();
         
-        // Find user by email
-        User user = userRepository.findByEmail(request.getEmail())
+        try {
+            CachedCredential credential = findCredential(request.getEmail());
+            return CompletableFuture.supplyAsync(() -> authenticate(credential, request.getPassword()), bcryptExecutor)
+                .whenComplete((response, error) -> recordLogin(startedAt, error));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Login rejected, BCrypt queue full ({} waiting): {}",
+                bcryptExecutor.getQueue().size(), request.getEmail());
+            ServiceOverloadedException overloaded = new ServiceOverloadedException("LOGIN_OVERLOADED",
+                "Too many logins in progress, please retry shortly", OVERLOADED_RETRY_AFTER_SECONDS);
+            recordLogin(startedAt, overloaded);
+            throw overloaded;
+        } catch (RuntimeException e) {
+            recordLogin(startedAt, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Credentials of the account with this email, from the cache or the database
+     * Unknown emails are not cached (the account may be registered right after)
+     */
+    private CachedCredential findCredential(String email) {
+        CachedCredential cached = credentialCache.get(email);
+        if (cached != null) {
+            cacheHitCounter.increment();
+            return cached;
+        }
+        cacheMissCounter.increment();
+        
+        long generation = credentialGeneration.get();
+        User user = userRepository.findByEmail(email)
             .orElseThrow(() -> {
-                logger.warn("Login failed: User not found: {}", request.getEmail());
+                logger.warn("Login failed: User not found: {}", email);
                 return new BadCredentialsException("Invalid email or password");
             });
         
+        CachedCredential credential = new CachedCredential(user.getId(), user.getEmail(), user.getRole(),
+            user.getStatus(), user.getPassword());
+        if (credentialGeneration.get() == generation) {
+            credentialCache.put(email, credential);
+        }
+        return credential;
+    }
+    
+    /**
+     * Password check and token generation (runs on the BCrypt pool)
+     */
+    private LoginResponse authenticate(CachedCredential credential, String rawPassword) {
         // ✅ CRITICAL: Compare password with BCrypt
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            logger.warn("Login failed: Invalid password for email: {}", request.getEmail());
+        if (!passwordEncoder.matches(rawPassword, credential.passwordHash())) {
+            logger.warn("Login failed: Invalid password for email: {}", credential.email());
             throw new BadCredentialsException("Invalid email or password");
         }
         
         // Check account status
-        if (!"ACTIVE".equals(user.getStatus())) {
-            logger.warn("Login failed: Account not active: {}", request.getEmail());
+        if (!"ACTIVE".equals(credential.status())) {
+            logger.warn("Login failed: Account not active: {}", credential.email());
             throw new ResponseStatusException(
                 HttpStatus.UNAUTHORIZED, 
                 "Account is not active"
             );
         }
         
+        if (bcryptCostOf(credential.passwordHash()) != bcryptStrength) {
+            rehash(credential, rawPassword);
+        }
+        
         // ✅ Generate JWT token
-        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole());
+        String token = jwtUtil.generateToken(credential.userId(), credential.email(), credential.role());
         
-        logger.info("Login successful for email: {} (ID: {})", user.getEmail(), user.getId());
+        logger.info("Login successful for email: {} (ID: {})", credential.email(), credential.userId());
         
         // ✅ Return ONLY accessToken (as per production requirement)
         LoginResponse response = new LoginResponse();
@@ -215,6 +391,78 @@ public class AuthService {
         return response;
     }
     
+    /**
+     * Store the password with the configured BCrypt cost
+     * Best effort: the login succeeds even if this fails, it's retried on the next login
+     */
+    private void rehash(CachedCredential credential, String rawPassword) {
+        try {
+            String newHash = passwordEncoder.encode(rawPassword);
+            Integer updated = transactionTemplate.execute(status ->
+                userRepository.updatePasswordHash(credential.userId(), credential.passwordHash(), newHash));
+            evictCredentials(credential.userId());
+            if (updated != null && updated > 0) {
+                logger.info("Re-hashed password of user {} from BCrypt cost {} to {}",
+                    credential.userId(), bcryptCostOf(credential.passwordHash()), bcryptStrength);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to re-hash password of user {}: {}", credential.userId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Cost of a BCrypt hash ($2a$10$...), -1 if it isn't one
+     */
+    static int bcryptCostOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private void recordLogin(long startedAt, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String outcome;
+        if (cause == null) {
+            outcome = OUTCOME_SUCCESS;
+        } else if (cause instanceof BadCredentialsException) {
+            outcome = OUTCOME_INVALID;
+        } else if (cause instanceof ResponseStatusException) {
+            outcome = OUTCOME_INACTIVE;
+        } else if (cause instanceof ServiceOverloadedException) {
+            outcome = OUTCOME_REJECTED;
+        } else {
+            outcome = OUTCOME_ERROR;
+        }
+        loginTimers.get(outcome).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        if (event.getPreviousStatus() != null) {
+            evictCredentials(event.getUserId());
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRoleChanged(UserRoleChangedEvent event) {
+        evictCredentials(event.getUserId());
+    }
+    
+    private void evictCredentials(String userId) {
+        credentialGeneration.incrementAndGet();
+        credentialCache.removeIf(credential -> credential.userId().equals(userId));
+    }
+    
+    @PreDestroy
+    void stop() {
+        bcryptExecutor.shutdownNow();
+    }
+    
     /**
      * Convert User entity to UserDTO
      * 
@@ -235,5 +483,8 @@ public class AuthService {
         // ✅ Password is NEVER set in DTO
         return dto;
     }
+    
+    private record CachedCredential(String userId, String email, String role, String status,
+                                    String passwordHash) {
+    }
 }
-
@@ -0,0 +1,128 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.BookingDTO;
+import com.flightbooking.dto.CreateBookingRequest;
+import com.flightbooking.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Booking Batch Writer
+ * 
+ * Writes several bookings per database transaction:
+ * - Whole chunk is tried in ONE transaction (one commit, one connection checkout)
+ * - If any booking in the chunk fails, the chunk is rolled back and each booking
+ *   is retried in its own transaction, so one bad request doesn't fail the others
+ * 
+ * Results are returned in the same order as the commands
+ */
+@Service
+public class BookingBatchWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BookingBatchWriter.class);
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Create all bookings, chunk-first with per-item fallback
+     * 
+     * @param commands Booking requests with the user they belong to
+     * @return One result per command (same order)
+     */
+    public List<BookingWriteResult> writeAll(List<BookingWriteCommand> commands) {
+        if (commands.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        try {
+            List<BookingDTO> created = transactionTemplate.execute(status -> {
+                List<BookingDTO> bookings = new ArrayList<>(commands.size());
+                for (BookingWriteCommand command : commands) {
+                    bookings.add(create(command));
+                }
+                return bookings;
+            });
+            
+            logger.debug("Wrote {} bookings in one transaction", commands.size());
+            List<BookingWriteResult> results = new ArrayList<>(commands.size());
+            for (BookingDTO booking : created) {
+                results.add(BookingWriteResult.success(booking));
+            }
+            return results;
+        } catch (RuntimeException e) {
+            if (commands.size() == 1) {
+                return List.of(BookingWriteResult.failure(e));
+            }
+            logger.warn("Batch of {} bookings rolled back ({}), retrying one by one", 
+                commands.size(), e.getMessage());
+        }
+        
+        List<BookingWriteResult> results = new ArrayList<>(commands.size());
+        for (BookingWriteCommand command : commands) {
+            try {
+                results.add(BookingWriteResult.success(transactionTemplate.execute(status -> create(command))));
+            } catch (RuntimeException e) {
+                logger.warn("Booking for user {} failed: {}", command.userId(), e.getMessage());
+                results.add(BookingWriteResult.failure(e));
+            }
+        }
+        return results;
+    }
+    
+    private BookingDTO create(BookingWriteCommand command) {
+        return bookingService.createBooking(command.request(), command.userId(), command.email());
+    }
+    
+    /**
+     * One booking to write
+     * 
+     * @param request Booking request (already validated by caller)
+     * @param userId User ID from JWT token
+     * @param email Email from JWT token (for auto-create user if needed)
+     */
+    public record BookingWriteCommand(CreateBookingRequest request, String userId, String email) {}
+    
+    /**
+     * Outcome of one booking write: booking on success, error code/message on failure
+     */
+    public record BookingWriteResult(BookingDTO booking, String errorCode, String errorMessage) {
+        
+        public boolean isSuccess() {
+            return booking != null;
+        }
+        
+        static BookingWriteResult success(BookingDTO booking) {
+            return new BookingWriteResult(booking, null, null);
+        }
+        
+        static BookingWriteResult failure(RuntimeException e) {
+            if (e instanceof BusinessException) {
+                return new BookingWriteResult(null, ((BusinessException) e).getErrorCode(), e.getMessage());
+            }
+            if (e instanceof AuthenticationException) {
+                return new BookingWriteResult(null, "UNAUTHORIZED", e.getMessage());
+            }
+            return new BookingWriteResult(null, "BOOKING_FAILED", "Failed to create booking");
+        }
+    }
+}
@@ -1,66 +1,125 @@
 package com.flightbooking.service;
 
-import com.flightbooking.entity.Booking;
+import com.flightbooking.event.BookingStatusChangedEvent;
 import com.flightbooking.repository.BookingRepository;
+import com.flightbooking.repository.BookingRepository.ExpiredBooking;
+import com.flightbooking.repository.SeatLockRepository;
+import com.flightbooking.repository.SeatSelectionRepository;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Service to handle booking expiration logic.
  * Separated from Scheduler for better transaction management and testability.
+ *
+ * Expiry runs in bounded chunks, each in its own short transaction:
+ * - One UPDATE ... RETURNING marks a chunk of expired holds as EXPIRED
+ * - Seat locks and seat selections of those bookings are released in bulk
+ *   (2 statements per chunk, no entity loading)
+ * - A BookingStatusChangedEvent per booking is delivered after the chunk commits
+ * - Rows locked by other transactions are skipped and picked up next run
  */
 @Service
 public class BookingExpirationService {
     
     private static final Logger logger = LoggerFactory.getLogger(BookingExpirationService.class);
     
+    private static final List<String> HOLD_STATUSES = List.of("PENDING", "HOLD");
+    
     @Autowired
     private BookingRepository bookingRepository;
     
+    @Autowired
+    private SeatLockRepository seatLockRepository;
+    
+    @Autowired
+    private SeatSelectionRepository seatSelectionRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${booking.expiration.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${booking.expiration.max-chunks-per-run:500}")
+    private int maxChunksPerRun;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
     /**
      * Expire all hold bookings that have passed their hold expiration time.
-     * This method is transactional - Spring will manage begin/commit/rollback.
-     * 
+     * Each chunk commits on its own, so a large backlog never holds one long transaction
+     * and progress is kept if a later chunk fails.
+     *
      * @return Number of bookings expired
      */
-    @Transactional
     public int expireHoldBookings() {
         LocalDateTime now = LocalDateTime.now();
+        int total = 0;
         
-        // Use custom query for better performance instead of findAll()
-        List<Booking> expiredBookings = bookingRepository
-            .findByStatusInAndHoldExpiresAtBefore(
-                List.of("PENDING", "HOLD"), 
-                now
-            );
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Integer expired = transactionTemplate.execute(status -> expireChunk(now));
+            int count = expired != null ? expired : 0;
+            total += count;
+            
+            if (count < chunkSize) {
+                break; // backlog cleared
+            }
+        }
         
-        if (expiredBookings.isEmpty()) {
+        if (total == 0) {
             logger.debug("No expired bookings found at {}", now);
+        } else {
+            logger.info("Successfully expired {} hold bookings", total);
+        }
+        return total;
+    }
+    
+    /**
+     * Expire one chunk and release its seats (runs inside a transaction)
+     */
+    private int expireChunk(LocalDateTime now) {
+        List<ExpiredBooking> expired = bookingRepository.expireHoldBookingsChunk(HOLD_STATUSES, now, chunkSize);
+        if (expired.isEmpty()) {
             return 0;
         }
         
-        logger.info("Found {} expired bookings to process", expiredBookings.size());
-        
-        // Update all expired bookings
-        for (Booking booking : expiredBookings) {
-            logger.debug("Expiring booking: {} (code: {}, holdExpiresAt: {})", 
-                booking.getId(), booking.getBookingCode(), booking.getHoldExpiresAt());
-            
-            booking.setStatus("EXPIRED");
-            bookingRepository.save(booking);
-            
-            // TODO: Release seats and baggage
-            // TODO: Send notification email to user
+        List<String> bookingIds = new ArrayList<>(expired.size());
+        for (ExpiredBooking booking : expired) {
+            bookingIds.add(booking.getId());
+            // Delivered after this chunk commits
+            eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                    booking.getId(), booking.getPreviousStatus(), "EXPIRED", booking.getTotalAmount()));
         }
         
-        logger.info("Successfully expired {} hold bookings", expiredBookings.size());
-        return expiredBookings.size();
+        // Booking creation does not decrement flight inventory, so releasing the
+        // seat locks/selections is what makes the seats bookable again
+        int releasedLocks = seatLockRepository.releaseLocksForBookings(bookingIds, now);
+        int cancelledSeats = seatSelectionRepository.cancelForBookings(bookingIds);
+        
+        logger.debug("Expired {} bookings, released {} seat locks, cancelled {} seat selections",
+            bookingIds.size(), releasedLocks, cancelledSeats);
+        
+        // TODO: Send notification email to user
+        return bookingIds.size();
     }
 }
-
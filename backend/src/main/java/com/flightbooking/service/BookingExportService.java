@@ -0,0 +1,304 @@
+package com.flightbooking.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightbooking.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Booking Export Service
+ *
+ * Streams bookings to finance as CSV or NDJSON in constant memory:
+ * - One flattened row per booking (segments and passengers aggregated in SQL)
+ * - Read through a forward-only JDBC cursor (fetch size) inside a read-only
+ *   transaction; no entities, no persistence context, no lazy loading
+ * - Each row is written to the output stream as soon as it is read and the
+ *   stream is flushed every flush-rows rows
+ *
+ * Filters: created_at range and a list of statuses (all optional).
+ * Rows are ordered by created_at, id (idx_bookings_created_at / idx_bookings_status_created).
+ */
+@Service
+public class BookingExportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BookingExportService.class);
+    
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+    
+    private static final String[] COLUMNS = {
+        "booking_id", "booking_code", "status", "total_amount", "currency", "created_at", "updated_at",
+        "user_email", "segment_count", "route", "flight_numbers", "airlines", "first_depart_time",
+        "passenger_count", "passenger_names"
+    };
+    
+    private static final String SELECT =
+        "SELECT b.id AS booking_id, b.booking_code, b.status, b.total_amount, b.currency, " +
+        "       b.created_at, b.updated_at, u.email AS user_email, " +
+        "       seg.segment_count, seg.route, seg.flight_numbers, seg.airlines, seg.first_depart_time, " +
+        "       pax.passenger_count, pax.passenger_names " +
+        "FROM bookings b " +
+        "LEFT JOIN users u ON u.id = b.user_id " +
+        "LEFT JOIN LATERAL (" +
+        "  SELECT COUNT(*) AS segment_count, " +
+        "         string_agg(s.origin || '-' || s.destination, ';' ORDER BY s.depart_time) AS route, " +
+        "         string_agg(s.flight_number, ';' ORDER BY s.depart_time) AS flight_numbers, " +
+        "         string_agg(DISTINCT s.airline, ';') AS airlines, " +
+        "         MIN(s.depart_time) AS first_depart_time " +
+        "  FROM flight_segments s WHERE s.booking_id = b.id" +
+        ") seg ON TRUE " +
+        "LEFT JOIN LATERAL (" +
+        "  SELECT COUNT(*) AS passenger_count, " +
+        "         string_agg(p.full_name, ';' ORDER BY p.full_name) AS passenger_names " +
+        "  FROM passengers p WHERE p.booking_id = b.id" +
+        ") pax ON TRUE ";
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${booking.export.fetch-size:1000}")
+    private int fetchSize;
+    
+    @Value("${booking.export.flush-rows:1000}")
+    private int flushRows;
+    
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        
+        // PostgreSQL only uses a cursor (fetch size) with autocommit off, i.e. inside a transaction
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+    
+    /**
+     * Check the format before the response is committed
+     *
+     * @throws BusinessException if the format is not csv or ndjson
+     */
+    public String normalizeFormat(String format) {
+        String normalized = format != null ? format.trim().toLowerCase() : FORMAT_CSV;
+        if (!FORMAT_CSV.equals(normalized) && !FORMAT_NDJSON.equals(normalized)) {
+            throw new BusinessException("INVALID_FORMAT", "Export format must be csv or ndjson");
+        }
+        return normalized;
+    }
+    
+    /**
+     * Write matching bookings to the stream
+     *
+     * @param out Response stream (not closed)
+     * @param format csv or ndjson
+     * @param from Created at or after (null = no lower bound)
+     * @param to Created before (null = no upper bound)
+     * @param statuses Only these statuses (null/empty = all)
+     * @return Number of bookings written
+     */
+    public long export(OutputStream out, String format, LocalDateTime from, LocalDateTime to, List<String> statuses) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("b.created_at >= :from");
+            params.addValue("from", from);
+        }
+        if (to != null) {
+            conditions.add("b.created_at < :to");
+            params.addValue("to", to);
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            conditions.add("b.status IN (:statuses)");
+            params.addValue("statuses", statuses.stream().map(String::toUpperCase).toList());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append("WHERE ").append(String.join(" AND ", conditions)).append(' ');
+        }
+        sql.append("ORDER BY b.created_at, b.id");
+        
+        long startedAt = System.currentTimeMillis();
+        RowWriter writer = FORMAT_NDJSON.equals(format) ? new NdjsonRowWriter(out) : new CsvRowWriter(out);
+        Long rows = transactionTemplate.execute(status -> {
+            long[] count = {0};
+            try {
+                writer.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            jdbcTemplate.query(sql.toString(), params, rs -> {
+                try {
+                    writer.write(rs);
+                    if (++count[0] % flushRows == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away: stop reading, the transaction closes the cursor
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return count[0];
+        });
+        
+        try {
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        logger.info("Exported {} bookings as {} in {} ms (from {}, to {}, statuses {})",
+            rows, format, System.currentTimeMillis() - startedAt, from, to, statuses);
+        return rows != null ? rows : 0;
+    }
+    
+    private interface RowWriter {
+        void start() throws IOException;
+        
+        void write(ResultSet rs) throws SQLException, IOException;
+        
+        void flush() throws IOException;
+        
+        void finish() throws IOException;
+    }
+    
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        
+        private CsvRowWriter(OutputStream out) {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+        
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(text(rs.getObject(COLUMNS[i]))));
+            }
+            writer.write('\n');
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+        
+        private static String text(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof Timestamp timestamp) {
+                return timestamp.toLocalDateTime().toString();
+            }
+            if (value instanceof BigDecimal amount) {
+                return amount.toPlainString();
+            }
+            return value.toString();
+        }
+        
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+    
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        
+        private NdjsonRowWriter(OutputStream out) {
+            try {
+                generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // One object per line, no separator between root values
+            generator.setRootValueSeparator(null);
+        }
+        
+        @Override
+        public void start() {
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (String column : COLUMNS) {
+                Object value = rs.getObject(column);
+                if (value == null) {
+                    generator.writeNullField(column);
+                } else if (value instanceof Timestamp timestamp) {
+                    generator.writeStringField(column, timestamp.toLocalDateTime().toString());
+                } else if (value instanceof BigDecimal amount) {
+                    generator.writeNumberField(column, amount);
+                } else if (value instanceof Number number) {
+                    generator.writeNumberField(column, number.longValue());
+                } else {
+                    generator.writeStringField(column, value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
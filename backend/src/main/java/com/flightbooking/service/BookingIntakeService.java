@@ -0,0 +1,293 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.BookingIntakeStatusDTO;
+import com.flightbooking.dto.CreateBookingRequest;
+import com.flightbooking.exception.ResourceNotFoundException;
+import com.flightbooking.exception.ServiceOverloadedException;
+import com.flightbooking.exception.UnauthorizedActionException;
+import com.flightbooking.service.BookingBatchWriter.BookingWriteCommand;
+import com.flightbooking.service.BookingBatchWriter.BookingWriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Booking Intake Service
+ * 
+ * Asynchronous booking creation for traffic spikes (flash sales):
+ * - Request is validated on the request thread, then put on a bounded in-memory queue
+ * - Caller gets a tracking ID immediately (202 Accepted)
+ * - Worker threads drain the queue in micro-batches and write each batch
+ *   in one transaction via BookingBatchWriter
+ * - Queue full -> request is rejected with 503 + Retry-After (load shedding)
+ *   instead of piling up threads and DB connections
+ * 
+ * Metrics:
+ * - booking.intake.queue.depth (gauge)
+ * - booking.intake.accepted / rejected / completed / failed (counters)
+ * 
+ * Outcomes are kept in memory for result-ttl-minutes, then evicted
+ */
+@Service
+public class BookingIntakeService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BookingIntakeService.class);
+    
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private BookingBatchWriter bookingBatchWriter;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${booking.intake.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${booking.intake.workers:4}")
+    private int workerCount;
+    
+    @Value("${booking.intake.batch-size:20}")
+    private int batchSize;
+    
+    @Value("${booking.intake.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+    
+    @Value("${booking.intake.result-ttl-minutes:60}")
+    private long resultTtlMinutes;
+    
+    private BlockingQueue<IntakeTask> queue;
+    private final Map<String, IntakeTask> tasks = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+    private volatile boolean running = true;
+    
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter completedCounter;
+    private Counter failedCounter;
+    
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        
+        Gauge.builder("booking.intake.queue.depth", queue, BlockingQueue::size)
+            .description("Async booking requests waiting to be written")
+            .register(meterRegistry);
+        acceptedCounter = meterRegistry.counter("booking.intake.accepted");
+        rejectedCounter = meterRegistry.counter("booking.intake.rejected");
+        completedCounter = meterRegistry.counter("booking.intake.completed");
+        failedCounter = meterRegistry.counter("booking.intake.failed");
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "booking-intake-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::workerLoop);
+        }
+        
+        logger.info("Booking intake started: {} workers, queue capacity {}, batch size {}", 
+            workerCount, queueCapacity, batchSize);
+    }
+    
+    /**
+     * Validate and enqueue a booking request
+     * 
+     * @param request Booking request
+     * @param userId User ID from JWT token
+     * @param email Email from JWT token (for auto-create user if needed)
+     * @return Status with tracking ID (QUEUED)
+     * @throws com.flightbooking.exception.BusinessException if request is invalid
+     * @throws ServiceOverloadedException if queue is full
+     */
+    public BookingIntakeStatusDTO submit(CreateBookingRequest request, String userId, String email) {
+        // Reject invalid requests now, not after they waited in the queue
+        bookingService.validateCreateBookingRequest(request);
+        
+        IntakeTask task = new IntakeTask(UUID.randomUUID().toString(), new BookingWriteCommand(request, userId, email));
+        tasks.put(task.trackingId, task);
+        
+        if (!running || !queue.offer(task)) {
+            tasks.remove(task.trackingId);
+            rejectedCounter.increment();
+            logger.warn("Booking intake queue full ({} waiting), rejecting request from user {}", queue.size(), userId);
+            throw new ServiceOverloadedException("BOOKING_QUEUE_FULL", 
+                "Too many booking requests right now. Please retry shortly.", retryAfterSeconds);
+        }
+        
+        acceptedCounter.increment();
+        logger.info("Booking request queued: {} (user: {}, queue depth: {})", task.trackingId, userId, queue.size());
+        return task.toStatus();
+    }
+    
+    /**
+     * Get current status of an async booking request
+     * 
+     * @throws ResourceNotFoundException if tracking ID is unknown or expired
+     * @throws UnauthorizedActionException if request belongs to another user
+     */
+    public BookingIntakeStatusDTO getStatus(String trackingId, String currentUserId) {
+        return findOwnedTask(trackingId, currentUserId).toStatus();
+    }
+    
+    /**
+     * Completes when the request is written (COMPLETED or FAILED)
+     * Ownership is checked immediately, before anything is awaited
+     */
+    public CompletableFuture<BookingIntakeStatusDTO> awaitCompletion(String trackingId, String currentUserId) {
+        IntakeTask task = findOwnedTask(trackingId, currentUserId);
+        return task.done.thenApply(ignored -> task.toStatus());
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    private IntakeTask findOwnedTask(String trackingId, String currentUserId) {
+        IntakeTask task = tasks.get(trackingId);
+        if (task == null) {
+            throw new ResourceNotFoundException("Booking request not found: " + trackingId);
+        }
+        if (currentUserId == null || !currentUserId.equals(task.command.userId())) {
+            throw new UnauthorizedActionException("You do not have permission to view this booking request");
+        }
+        return task;
+    }
+    
+    private void workerLoop() {
+        // Keep draining after shutdown starts so accepted requests are not lost
+        while (running || !queue.isEmpty()) {
+            try {
+                IntakeTask first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                
+                List<IntakeTask> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Never let a worker die
+                logger.error("Booking intake worker error: {}", e.getMessage(), e);
+            }
+        }
+    }
+    
+    private void processBatch(List<IntakeTask> batch) {
+        batch.forEach(task -> task.status = STATUS_PROCESSING);
+        
+        List<BookingWriteResult> results;
+        try {
+            results = bookingBatchWriter.writeAll(batch.stream()
+                .map(task -> task.command)
+                .collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            logger.error("Booking batch of {} failed: {}", batch.size(), e.getMessage(), e);
+            BookingWriteResult failure = new BookingWriteResult(null, "BOOKING_FAILED", "Failed to create booking");
+            batch.forEach(task -> task.complete(failure));
+            failedCounter.increment(batch.size());
+            return;
+        }
+        
+        for (int i = 0; i < batch.size(); i++) {
+            BookingWriteResult result = results.get(i);
+            batch.get(i).complete(result);
+            if (result.isSuccess()) {
+                completedCounter.increment();
+            } else {
+                failedCounter.increment();
+            }
+        }
+        logger.info("Processed booking batch: {} requests, {} waiting", batch.size(), queue.size());
+    }
+    
+    /**
+     * Evict finished requests older than result TTL
+     * Runs every minute
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredResults() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(resultTtlMinutes);
+        tasks.values().removeIf(task -> task.completedAt != null && task.completedAt.isBefore(cutoff));
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Booking intake stopped with {} requests still queued", queue.size());
+            workers.shutdownNow();
+        }
+    }
+    
+    private static final class IntakeTask {
+        private final String trackingId;
+        private final BookingWriteCommand command;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile String status = STATUS_QUEUED;
+        private volatile BookingWriteResult result;
+        private volatile LocalDateTime completedAt;
+        
+        private IntakeTask(String trackingId, BookingWriteCommand command) {
+            this.trackingId = trackingId;
+            this.command = command;
+        }
+        
+        private void complete(BookingWriteResult result) {
+            this.result = result;
+            this.completedAt = LocalDateTime.now();
+            this.status = result.isSuccess() ? STATUS_COMPLETED : STATUS_FAILED;
+            done.complete(null);
+        }
+        
+        private BookingIntakeStatusDTO toStatus() {
+            BookingWriteResult current = result;
+            return BookingIntakeStatusDTO.builder()
+                .trackingId(trackingId)
+                .status(status)
+                .booking(current != null ? current.booking() : null)
+                .errorCode(current != null ? current.errorCode() : null)
+                .errorMessage(current != null ? current.errorMessage() : null)
+                .submittedAt(submittedAt)
+                .completedAt(completedAt)
+                .build();
+        }
+    }
+}
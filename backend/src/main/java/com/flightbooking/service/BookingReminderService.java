@@ -0,0 +1,138 @@
+package com.flightbooking.service;
+
+import com.flightbooking.repository.BookingReminderRepository;
+import com.flightbooking.repository.BookingRepository;
+import com.flightbooking.repository.BookingRepository.ReminderCandidate;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Booking Reminder Service
+ * 
+ * Finds bookings due for a reminder and sends each reminder at most once:
+ * - Candidates come from one indexed query (first segment departs inside the window,
+ *   no reminder of that type in the ledger yet), fetched in pages
+ * - Each reminder is claimed in the booking_reminders ledger before sending;
+ *   the unique (booking_id, reminder_type) constraint stops duplicates across nodes and restarts
+ * 
+ * Timing is driven by ReminderQueueService (departure-ordered in-memory queue)
+ */
+@Service
+public class BookingReminderService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BookingReminderService.class);
+    
+    public static final String TYPE_DAY_BEFORE = "DAY_BEFORE";
+    public static final String TYPE_URGENT = "URGENT";
+    
+    /**
+     * Bookings that are paid and still flying (TICKETED = confirmed + ticket issued)
+     */
+    private static final List<String> REMINDABLE_STATUSES = List.of("CONFIRMED", "TICKETED");
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private BookingReminderRepository bookingReminderRepository;
+    
+    @Autowired
+    private NotificationService notificationService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${booking.reminders.batch-size:500}")
+    private int batchSize;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Bookings whose first flight departs in [windowStart, windowEnd) and that
+     * have not had this reminder yet (indexed query, one page)
+     * 
+     * @param reminderType TYPE_DAY_BEFORE or TYPE_URGENT
+     * @param page Page number (ordered by departure)
+     */
+    @Transactional(readOnly = true)
+    public List<ReminderCandidate> findDue(String reminderType, LocalDateTime windowStart, 
+                                           LocalDateTime windowEnd, int page) {
+        return bookingRepository.findReminderCandidates(
+                REMINDABLE_STATUSES, windowStart, windowEnd, reminderType, PageRequest.of(page, batchSize));
+    }
+    
+    public boolean isRemindable(String status) {
+        return REMINDABLE_STATUSES.contains(status);
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    /**
+     * Claim the reminder in the ledger, then send it - in one transaction so the
+     * booking's lazy collections (segments, passengers) can be read for the email
+     * 
+     * Booking status is re-checked here, so a reminder queued before a
+     * cancellation is never sent
+     * 
+     * @return true if this call sent the reminder
+     */
+    public boolean sendReminder(String reminderType, String bookingId, String bookingCode, LocalDateTime departTime) {
+        try {
+            Boolean sent = transactionTemplate.execute(status -> {
+                boolean stillRemindable = bookingRepository.findById(bookingId)
+                        .map(booking -> isRemindable(booking.getStatus()))
+                        .orElse(false);
+                if (!stillRemindable) {
+                    return false;
+                }
+                
+                int claimed = bookingReminderRepository.claim(UUID.randomUUID().toString(), 
+                        bookingId, reminderType, departTime, LocalDateTime.now());
+                if (claimed == 0) {
+                    return false;
+                }
+                notificationService.sendBookingReminderEmail(bookingId);
+                return true;
+            });
+            
+            if (Boolean.TRUE.equals(sent)) {
+                logger.info("{} reminder sent for booking: {}, flight departure: {}", 
+                        reminderType, bookingCode, departTime);
+                return true;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to send {} reminder for booking: {}, error: {}", 
+                    reminderType, bookingId, e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Delete ledger rows for flights that departed before cutoff
+     * 
+     * @return Number of rows deleted
+     */
+    @Transactional
+    public int purgeLedger(LocalDateTime cutoff) {
+        return bookingReminderRepository.deleteByDepartureTimeBefore(cutoff);
+    }
+}
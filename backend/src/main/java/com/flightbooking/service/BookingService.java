@@ -1,12 +1,17 @@
 package com.flightbooking.service;
 
 import com.flightbooking.dto.BookingDTO;
+import com.flightbooking.dto.BookingSummaryDTO;
 import com.flightbooking.dto.CreateBookingRequest;
+import com.flightbooking.dto.CursorPage;
 import com.flightbooking.dto.FlightSegmentDTO;
 import com.flightbooking.dto.PassengerDTO;
 import com.flightbooking.entity.Booking;
 import com.flightbooking.entity.FlightSegment;
 import com.flightbooking.entity.Passenger;
+import com.flightbooking.event.BookingStatusChangedEvent;
+import com.flightbooking.event.PaymentStatusChangedEvent;
+import com.flightbooking.event.UserStatusChangedEvent;
 import com.flightbooking.exception.BusinessException;
 import com.flightbooking.exception.ResourceNotFoundException;
 import com.flightbooking.exception.UnauthorizedActionException;
@@ -17,15 +22,25 @@ import com.flightbooking.repository.SeatSelectionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,6 +48,13 @@ public class BookingService {
     
     private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
     
+    /**
+     * Max page size for cursor-paginated booking lists
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    private final AtomicLong lastBookingCode = new AtomicLong();
+    
     @Autowired
     private BookingRepository bookingRepository;
     
@@ -54,6 +76,9 @@ public class BookingService {
     @Autowired
     private com.flightbooking.repository.PaymentRepository paymentRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Create new booking with validation
      * 
@@ -140,6 +165,7 @@ public class BookingService {
                     try {
                         newUser = userRepository.save(newUser);
                         userRepository.flush(); // Force immediate persist
+                        eventPublisher.publishEvent(new UserStatusChangedEvent(newUser.getId(), null, newUser.getStatus()));
                         logger.info("✅ User auto-created successfully. ID: {}, Email: {}", 
                             newUser.getId(), newUser.getEmail());
                         
@@ -384,6 +410,8 @@ public class BookingService {
             logger.info("No seat selections provided for booking {}", bookingId);
         }
         
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), null, booking.getStatus(), booking.getTotalAmount()));
         logger.info("Booking created successfully: {} (code: {})", booking.getId(), booking.getBookingCode());
         return convertToDTO(booking);
     }
@@ -392,8 +420,9 @@ public class BookingService {
      * Validate create booking request
      * 
      * Validates all required fields and business rules before creating booking
+     * Public so async/bulk intake can reject bad requests before queueing them
      */
-    private void validateCreateBookingRequest(CreateBookingRequest request) {
+    public void validateCreateBookingRequest(CreateBookingRequest request) {
         logger.debug("Validating booking request...");
         
         // ✅ Validate request object is not null
@@ -580,6 +609,115 @@ public class BookingService {
             .collect(Collectors.toList());
     }
     
+    /**
+     * Get current user's bookings, newest first, one page at a time (keyset pagination)
+     * 
+     * Unlike getBookingsByUserId this does not load full booking details:
+     * - Page query uses index (user_id, created_at) and stops after size+1 rows
+     * - Segments and passenger counts for the page are loaded in 2 batch queries
+     * - Seat selections are not loaded (use GET /api/bookings/{id} for details)
+     * 
+     * @param userId Current authenticated user ID (from JWT token)
+     * @param cursor Opaque cursor from previous page's nextCursor (null = first page)
+     * @param size Page size (clamped to 1..MAX_PAGE_SIZE)
+     * @return Page of BookingSummaryDTO with nextCursor
+     * @throws BusinessException if cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookingSummaryDTO> getMyBookings(String userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know if there is a next page without a COUNT query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        
+        List<Booking> rows;
+        if (cursor == null || cursor.trim().isEmpty()) {
+            rows = bookingRepository.findFirstPageByUserId(userId, limit);
+        } else {
+            BookingCursor decoded = decodeCursor(cursor.trim());
+            rows = bookingRepository.findPageByUserIdAfterCursor(userId, decoded.createdAt, decoded.id, limit);
+        }
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<Booking> page = hasMore ? rows.subList(0, pageSize) : rows;
+        
+        if (page.isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), null, false);
+        }
+        
+        List<String> bookingIds = page.stream().map(Booking::getId).collect(Collectors.toList());
+        
+        // Batch load children for the whole page (2 queries instead of 2 per booking)
+        Map<String, List<FlightSegment>> segmentsByBooking = flightSegmentRepository.findByBookingIdIn(bookingIds)
+            .stream()
+            .collect(Collectors.groupingBy(FlightSegment::getBookingId));
+        
+        Map<String, Integer> passengerCounts = new HashMap<>();
+        for (Object[] row : passengerRepository.countByBookingIds(bookingIds)) {
+            passengerCounts.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        
+        List<BookingSummaryDTO> items = page.stream()
+            .map(booking -> toSummaryDTO(booking,
+                segmentsByBooking.getOrDefault(booking.getId(), List.of()),
+                passengerCounts.getOrDefault(booking.getId(), 0)))
+            .collect(Collectors.toList());
+        
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    private BookingSummaryDTO toSummaryDTO(Booking booking, List<FlightSegment> segments, int passengerCount) {
+        BookingSummaryDTO dto = BookingSummaryDTO.builder()
+            .id(booking.getId())
+            .bookingCode(booking.getBookingCode())
+            .status(booking.getStatus())
+            .totalAmount(booking.getTotalAmount())
+            .currency(booking.getCurrency())
+            .holdExpiresAt(booking.getHoldExpiresAt())
+            .createdAt(booking.getCreatedAt())
+            .segmentCount(segments.size())
+            .passengerCount(passengerCount)
+            .build();
+        
+        // First segment = earliest departure
+        segments.stream()
+            .filter(segment -> segment.getDepartTime() != null)
+            .min(Comparator.comparing(FlightSegment::getDepartTime))
+            .or(() -> segments.stream().findFirst())
+            .ifPresent(first -> {
+                dto.setAirline(first.getAirline());
+                dto.setFlightNumber(first.getFlightNumber());
+                dto.setOrigin(first.getOrigin());
+                dto.setDestination(first.getDestination());
+                dto.setDepartTime(first.getDepartTime());
+            });
+        
+        return dto;
+    }
+    
+    /**
+     * Cursor = Base64URL("createdAt|id") of the last booking on the page
+     */
+    private String encodeCursor(Booking last) {
+        String raw = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private BookingCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Missing cursor separator");
+            }
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("INVALID_CURSOR", "Invalid pagination cursor");
+        }
+    }
+    
+    private record BookingCursor(LocalDateTime createdAt, String id) {}
+    
     /**
      * Update booking status with ownership check and validation
      * 
@@ -608,8 +746,11 @@ public class BookingService {
         // Validate status transition
         validateStatusTransition(booking.getStatus(), status);
         
+        String previousStatus = booking.getStatus();
         booking.setStatus(status);
         booking = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), previousStatus, status, booking.getTotalAmount()));
         return convertToDTO(booking);
     }
     
@@ -654,8 +795,11 @@ public class BookingService {
             }
         }
         
+        String previousStatus = booking.getStatus();
         booking.setStatus("CANCELLED");
         bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), previousStatus, "CANCELLED", booking.getTotalAmount()));
     }
     
     /**
@@ -742,12 +886,19 @@ public class BookingService {
         // Finalize booking - confirm seats and baggage
         booking.setStatus("FINALIZED");
         booking = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), "CONFIRMED", "FINALIZED", booking.getTotalAmount()));
         
         return convertToDTO(booking);
     }
     
+    /**
+     * Booking code = "BK" + millis, bumped by 1 if already used in this JVM
+     * (batch/async writes create several bookings in the same millisecond)
+     */
     private String generateBookingCode() {
-        return "BK" + System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        return "BK" + lastBookingCode.updateAndGet(last -> Math.max(now, last + 1));
     }
     
     public BookingDTO convertToDTO(Booking booking) {
@@ -889,6 +1040,8 @@ public class BookingService {
             booking.setStatus("CONFIRMED");
             booking.setUpdatedAt(LocalDateTime.now());
             booking = bookingRepository.save(booking);
+            eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                    booking.getId(), currentStatus, "CONFIRMED", booking.getTotalAmount()));
             logger.info("✅ Booking {} approved successfully. Status changed from {} to CONFIRMED", 
                 id, currentStatus);
             
@@ -901,6 +1054,8 @@ public class BookingService {
                         payment.setStatus("SUCCESS");
                         payment.setUpdatedAt(LocalDateTime.now());
                         paymentRepository.save(payment);
+                        eventPublisher.publishEvent(new PaymentStatusChangedEvent(
+                                payment.getId(), payment.getBookingId(), "PENDING", "SUCCESS", payment.getAmount()));
                         logger.info("✅ Payment {} approved automatically with booking approval", payment.getId());
                     }
                 }
@@ -938,9 +1093,12 @@ public class BookingService {
             throw new RuntimeException("Booking is already cancelled");
         }
         
+        String previousStatus = booking.getStatus();
         booking.setStatus("CANCELLED");
         booking.setUpdatedAt(LocalDateTime.now());
         bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), previousStatus, "CANCELLED", booking.getTotalAmount()));
     }
     
     /**
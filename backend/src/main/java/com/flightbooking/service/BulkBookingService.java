@@ -0,0 +1,135 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.BulkBookingResultDTO;
+import com.flightbooking.dto.CreateBookingRequest;
+import com.flightbooking.exception.BusinessException;
+import com.flightbooking.service.BookingBatchWriter.BookingWriteCommand;
+import com.flightbooking.service.BookingBatchWriter.BookingWriteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk Booking Service
+ * 
+ * Handles bulk booking creation for agencies and group desks:
+ * - Validates all requests in parallel (CPU only, no DB access)
+ * - Writes valid requests in chunks, one transaction per chunk (BookingBatchWriter)
+ * - Partial success: invalid or failing items are reported, the rest are created
+ */
+@Service
+public class BulkBookingService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BulkBookingService.class);
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private BookingBatchWriter bookingBatchWriter;
+    
+    @Value("${booking.bulk.max-items:500}")
+    private int maxItems;
+    
+    @Value("${booking.bulk.chunk-size:50}")
+    private int chunkSize;
+    
+    /**
+     * Create many bookings for one user
+     * 
+     * @param requests Booking requests
+     * @param userId User ID from JWT token
+     * @param email Email from JWT token (for auto-create user if needed)
+     * @return Per-item results (same order as requests)
+     * @throws BusinessException if the upload is empty or exceeds max items
+     */
+    public BulkBookingResultDTO createBookings(List<CreateBookingRequest> requests, String userId, String email) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BusinessException("INVALID_BOOKING", "Bulk booking request must contain at least one booking");
+        }
+        if (requests.size() > maxItems) {
+            throw new BusinessException("BULK_TOO_LARGE", 
+                "Bulk booking request cannot contain more than " + maxItems + " bookings");
+        }
+        
+        long start = System.currentTimeMillis();
+        int total = requests.size();
+        BulkBookingResultDTO.Item[] results = new BulkBookingResultDTO.Item[total];
+        
+        // Validate in parallel - each slot is written by exactly one thread
+        IntStream.range(0, total).parallel().forEach(index -> {
+            try {
+                bookingService.validateCreateBookingRequest(requests.get(index));
+            } catch (BusinessException e) {
+                results[index] = failure(index, e.getErrorCode(), e.getMessage());
+            } catch (RuntimeException e) {
+                // Unexpected (missing flight, data access...): fail this item only, same codes as write failures
+                logger.warn("Bulk booking item {} failed validation: {}", index, e.getMessage());
+                BookingWriteResult failed = BookingWriteResult.failure(e);
+                results[index] = failure(index, failed.errorCode(), failed.errorMessage());
+            }
+        });
+        
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            if (results[i] == null) {
+                validIndexes.add(i);
+            }
+        }
+        
+        // Persist valid requests chunk by chunk
+        for (int from = 0; from < validIndexes.size(); from += chunkSize) {
+            List<Integer> chunk = validIndexes.subList(from, Math.min(from + chunkSize, validIndexes.size()));
+            List<BookingWriteCommand> commands = new ArrayList<>(chunk.size());
+            for (int index : chunk) {
+                commands.add(new BookingWriteCommand(requests.get(index), userId, email));
+            }
+            
+            List<BookingWriteResult> written = bookingBatchWriter.writeAll(commands);
+            for (int i = 0; i < chunk.size(); i++) {
+                int index = chunk.get(i);
+                BookingWriteResult result = written.get(i);
+                results[index] = result.isSuccess()
+                    ? BulkBookingResultDTO.Item.builder()
+                        .index(index)
+                        .success(true)
+                        .bookingId(result.booking().getId())
+                        .bookingCode(result.booking().getBookingCode())
+                        .build()
+                    : failure(index, result.errorCode(), result.errorMessage());
+            }
+        }
+        
+        int succeeded = 0;
+        for (BulkBookingResultDTO.Item item : results) {
+            if (item.isSuccess()) {
+                succeeded++;
+            }
+        }
+        
+        logger.info("Bulk booking for user {}: {} requested, {} created, {} failed in {} ms", 
+            userId, total, succeeded, total - succeeded, System.currentTimeMillis() - start);
+        
+        return BulkBookingResultDTO.builder()
+            .total(total)
+            .succeeded(succeeded)
+            .failed(total - succeeded)
+            .results(List.of(results))
+            .build();
+    }
+    
+    private BulkBookingResultDTO.Item failure(int index, String errorCode, String errorMessage) {
+        return BulkBookingResultDTO.Item.builder()
+            .index(index)
+            .success(false)
+            .errorCode(errorCode)
+            .errorMessage(errorMessage)
+            .build();
+    }
+}
@@ -0,0 +1,336 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.EmailContext;
+import com.flightbooking.entity.EmailDeadLetter;
+import com.flightbooking.repository.EmailDeadLetterRepository;
+import com.flightbooking.service.EmailService.RenderedEmail;
+import com.flightbooking.service.EmailService.SmtpConnection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Email Dispatcher
+ *
+ * Sends queued emails on a fixed pool of worker threads:
+ * - Bounded queue: callers never block, never spawn threads
+ * - Worker count = max concurrent SMTP connections
+ * - Each worker takes up to batch-size waiting emails and sends them over
+ *   its own SMTP connection, kept open across batches and closed after
+ *   connection-idle-seconds without mail (no connect/auth/quit per message)
+ * - Failed sends are retried with exponential backoff (template rendered once)
+ * - Emails that still fail, or can't be queued, go to the dead-letter table
+ * - On shutdown the queue is drained (up to shutdown-timeout-seconds)
+ *
+ * Metrics:
+ * - email.dispatch.queue.depth (gauge)
+ * - email.send.latency / email.send.batch.latency (timers)
+ * - email.sent / email.retried / email.dead_lettered (counters)
+ */
+@Service
+public class EmailDispatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+    
+    private static final int MAX_ERROR_LENGTH = 2000;
+    
+    @Autowired
+    private EmailService emailService;
+    
+    @Autowired
+    private EmailDeadLetterRepository deadLetterRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${email.dispatch.queue-capacity:5000}")
+    private int queueCapacity;
+    
+    @Value("${email.dispatch.workers:4}")
+    private int workerCount;
+    
+    @Value("${email.dispatch.batch-size:20}")
+    private int batchSize;
+    
+    @Value("${email.dispatch.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${email.dispatch.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+    
+    /**
+     * Close a worker's SMTP connection after this long without mail
+     * (keep it below the server's own idle timeout)
+     */
+    @Value("${email.dispatch.connection-idle-seconds:30}")
+    private long connectionIdleSeconds;
+    
+    @Value("${email.dispatch.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+    
+    private BlockingQueue<EmailJob> queue;
+    private ExecutorService workers;
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running = true;
+    
+    /**
+     * Jobs waiting for their retry delay (not in the queue yet)
+     */
+    private final Map<EmailJob, Boolean> pendingRetries = new ConcurrentHashMap<>();
+    
+    private Timer sendTimer;
+    private Timer batchTimer;
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter deadLetteredCounter;
+    
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        
+        Gauge.builder("email.dispatch.queue.depth", queue, BlockingQueue::size)
+            .description("Emails waiting to be sent")
+            .register(meterRegistry);
+        sendTimer = Timer.builder("email.send.latency")
+            .description("Time to send one email (SMTP)")
+            .register(meterRegistry);
+        batchTimer = Timer.builder("email.send.batch.latency")
+            .description("Time to send one batch of emails over a single SMTP connection")
+            .register(meterRegistry);
+        sentCounter = meterRegistry.counter("email.sent");
+        retriedCounter = meterRegistry.counter("email.retried");
+        deadLetteredCounter = meterRegistry.counter("email.dead_lettered");
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "email-dispatch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::workerLoop);
+        }
+        
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        logger.info("Email dispatcher started: {} workers, queue capacity {}", workerCount, queueCapacity);
+    }
+    
+    /**
+     * Queue an email for sending (non-blocking)
+     * If the queue is full the email is dead-lettered instead of blocking the caller
+     *
+     * @param emailContext Email context with template and variables
+     * @return true if queued
+     */
+    public boolean dispatch(EmailContext emailContext) {
+        EmailJob job = new EmailJob(emailContext);
+        
+        if (running && queue.offer(job)) {
+            return true;
+        }
+        
+        logger.warn("Email queue full ({} waiting), dead-lettering email to: {}", queue.size(), emailContext.getTo());
+        deadLetter(job, running ? "QUEUE_FULL" : "SHUTDOWN", null);
+        return false;
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    private void workerLoop() {
+        long idleNanos = TimeUnit.SECONDS.toNanos(connectionIdleSeconds);
+        try (SmtpConnection connection = emailService.openConnection()) {
+            // Keep draining after shutdown starts so queued emails are still sent
+            while (running || !queue.isEmpty()) {
+                try {
+                    EmailJob first = queue.poll(500, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        connection.closeIfIdle(idleNanos);
+                        continue;
+                    }
+                    
+                    // Whatever else is waiting goes out on the same SMTP connection
+                    List<EmailJob> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    sendBatch(batch, connection);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    // Never let a worker die
+                    logger.error("Email worker error: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+    
+    private void sendBatch(List<EmailJob> batch, SmtpConnection connection) {
+        List<EmailJob> ready = new ArrayList<>(batch.size());
+        List<RenderedEmail> emails = new ArrayList<>(batch.size());
+        
+        for (EmailJob job : batch) {
+            EmailContext context = job.context;
+            if (job.html == null) {
+                try {
+                    job.html = emailService.renderTemplate(context);
+                } catch (RuntimeException e) {
+                    // Broken template/variables won't fix themselves - no retry
+                    logger.error("Failed to render email template {} for: {}, error: {}",
+                        context.getTemplate(), context.getTo(), e.getMessage());
+                    deadLetter(job, "RENDER_FAILED", e);
+                    continue;
+                }
+            }
+            job.attempts++;
+            ready.add(job);
+            emails.add(new RenderedEmail(context.getTo(), context.getSubject(), job.html));
+        }
+        
+        if (ready.isEmpty()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        Map<Integer, Exception> failures;
+        try {
+            failures = emailService.sendRenderedHtmlBatch(emails, connection);
+        } catch (RuntimeException e) {
+            failures = new HashMap<>();
+            for (int i = 0; i < ready.size(); i++) {
+                failures.put(i, e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        batchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        
+        for (int i = 0; i < ready.size(); i++) {
+            EmailJob job = ready.get(i);
+            // Per-message latency = share of the batch round trip
+            sendTimer.record(elapsed / ready.size(), TimeUnit.NANOSECONDS);
+            
+            Exception failure = failures.get(i);
+            if (failure == null) {
+                sentCounter.increment();
+                logger.info("HTML email sent to: {}, subject: {}, template: {} (attempt {})",
+                    job.context.getTo(), job.context.getSubject(), job.context.getTemplate(), job.attempts);
+            } else {
+                handleSendFailure(job, failure);
+            }
+        }
+        
+        logger.debug("Sent email batch: {} messages, {} failed, {} ms",
+            ready.size(), failures.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+    
+    private void handleSendFailure(EmailJob job, Exception e) {
+        if (job.attempts >= maxAttempts || !running) {
+            logger.error("Giving up on email to: {} after {} attempts: {}",
+                job.context.getTo(), job.attempts, e.getMessage());
+            deadLetter(job, running ? "SEND_FAILED" : "SHUTDOWN", e);
+            return;
+        }
+        
+        // Exponential backoff: backoff, 2x backoff, 4x backoff, ...
+        long delayMs = retryBackoffMs << (job.attempts - 1);
+        retriedCounter.increment();
+        logger.warn("Email to: {} failed (attempt {}/{}), retrying in {} ms: {}",
+            job.context.getTo(), job.attempts, maxAttempts, delayMs, e.getMessage());
+        
+        pendingRetries.put(job, Boolean.TRUE);
+        retryScheduler.schedule(() -> {
+            if (pendingRetries.remove(job) == null) {
+                return; // already dead-lettered by shutdown
+            }
+            if (!queue.offer(job)) {
+                deadLetter(job, "QUEUE_FULL", e);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private void deadLetter(EmailJob job, String reason, Exception error) {
+        deadLetteredCounter.increment();
+        try {
+            EmailDeadLetter deadLetter = new EmailDeadLetter();
+            deadLetter.setId(UUID.randomUUID().toString());
+            deadLetter.setRecipient(job.context.getTo());
+            deadLetter.setSubject(job.context.getSubject());
+            deadLetter.setTemplate(job.context.getTemplate());
+            deadLetter.setBody(job.html);
+            deadLetter.setAttempts(job.attempts);
+            deadLetter.setReason(reason);
+            if (error != null && error.getMessage() != null) {
+                String message = error.getMessage();
+                deadLetter.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            }
+            deadLetterRepository.save(deadLetter);
+        } catch (Exception e) {
+            // Last resort - at least the log has it
+            logger.error("Failed to store dead-letter email to: {}, subject: {}, reason: {}, error: {}",
+                job.context.getTo(), job.context.getSubject(), reason, e.getMessage());
+        }
+    }
+    
+    /**
+     * Graceful shutdown: stop accepting, let workers drain the queue,
+     * dead-letter whatever could not be sent in time
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        
+        retryScheduler.shutdownNow();
+        for (EmailJob job : new ArrayList<>(pendingRetries.keySet())) {
+            if (pendingRetries.remove(job) != null) {
+                deadLetter(job, "SHUTDOWN", null);
+            }
+        }
+        
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+            List<EmailJob> unsent = new ArrayList<>();
+            queue.drainTo(unsent);
+            logger.warn("Email dispatcher stopped with {} unsent emails, dead-lettering them", unsent.size());
+            unsent.forEach(job -> deadLetter(job, "SHUTDOWN", null));
+        }
+    }
+    
+    private static final class EmailJob {
+        private final EmailContext context;
+        private volatile String html;
+        private volatile int attempts;
+        
+        private EmailJob(EmailContext context) {
+            this.context = context;
+        }
+    }
+}
@@ -2,19 +2,30 @@ package com.flightbooking.service;
 
 import com.flightbooking.dto.EmailContext;
 import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
 import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
+import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Email Service
@@ -35,7 +46,11 @@ public class EmailService {
     private JavaMailSender mailSender;
     
     @Autowired
-    private SpringTemplateEngine templateEngine;
+    private EmailTemplateRenderer templateRenderer;
+    
+    @Autowired
+    @Lazy // EmailDispatcher calls back into this service
+    private EmailDispatcher emailDispatcher;
     
     @Value("${email.from:noreply@flightbooking.com}")
     private String emailFrom;
@@ -86,58 +101,233 @@ public class EmailService {
             return;
         }
         
+        sendRenderedHtml(emailContext.getTo(), emailContext.getSubject(), renderTemplate(emailContext));
+        logger.info("HTML email sent to: {}, subject: {}, template: {}", 
+                emailContext.getTo(), emailContext.getSubject(), emailContext.getTemplate());
+    }
+    
+    /**
+     * Render email template with variables (no sending)
+     * 
+     * @param emailContext Email context with template and variables
+     * @return HTML content
+     */
+    public String renderTemplate(EmailContext emailContext) {
+        return templateRenderer.render(emailContext.getTemplate(), emailContext.getVariables());
+    }
+    
+    /**
+     * Send already rendered HTML
+     * Used by EmailDispatcher so retries don't re-render the template
+     * 
+     * @param to Recipient email
+     * @param subject Email subject
+     * @param htmlContent Rendered HTML body
+     */
+    public void sendRenderedHtml(String to, String subject, String htmlContent) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(
-                    message,
-                    MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                    StandardCharsets.UTF_8.name()
-            );
-            
-            // Set from, to, subject
-            helper.setFrom(emailFrom, emailFromName);
-            helper.setTo(emailContext.getTo());
-            helper.setSubject(emailContext.getSubject());
-            
-            // Process template with variables
-            Context thymeleafContext = new Context();
-            thymeleafContext.setVariables(emailContext.getVariables());
-            
-            String htmlContent = templateEngine.process(
-                    "email/" + emailContext.getTemplate(),
-                    thymeleafContext
-            );
-            
-            helper.setText(htmlContent, true);
-            
             // Send email
-            mailSender.send(message);
-            logger.info("HTML email sent to: {}, subject: {}, template: {}", 
-                    emailContext.getTo(), emailContext.getSubject(), emailContext.getTemplate());
+            mailSender.send(createHtmlMessage(to, subject, htmlContent));
             
         } catch (MessagingException e) {
-            logger.error("Failed to send HTML email to: {}, error: {}", 
-                    emailContext.getTo(), e.getMessage(), e);
+            logger.error("Failed to send HTML email to: {}, error: {}", to, e.getMessage(), e);
             throw new RuntimeException("Failed to send email: " + e.getMessage());
         } catch (Exception e) {
-            logger.error("Unexpected error sending email to: {}, error: {}", 
-                    emailContext.getTo(), e.getMessage(), e);
+            logger.error("Unexpected error sending email to: {}, error: {}", to, e.getMessage(), e);
             throw new RuntimeException("Failed to send email: " + e.getMessage());
         }
     }
     
+    /**
+     * Open a reusable SMTP connection for EmailDispatcher workers
+     * Nothing is connected until the first send
+     */
+    public SmtpConnection openConnection() {
+        return new SmtpConnection();
+    }
+    
+    /**
+     * Send many already rendered HTML emails over the given SMTP connection
+     * (connected on first use, kept open for the next batches)
+     * 
+     * A failure of one message does not stop the others
+     * 
+     * @param emails Rendered emails
+     * @param connection Connection owned by the calling worker
+     * @return Failures by position in the list (empty map = all sent)
+     */
+    public Map<Integer, Exception> sendRenderedHtmlBatch(List<RenderedEmail> emails, SmtpConnection connection) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        Map<MimeMessage, Integer> positions = new IdentityHashMap<>();
+        
+        for (int i = 0; i < emails.size(); i++) {
+            RenderedEmail email = emails.get(i);
+            try {
+                MimeMessage message = createHtmlMessage(email.to(), email.subject(), email.html());
+                messages.add(message);
+                positions.put(message, i);
+            } catch (MessagingException | UnsupportedEncodingException e) {
+                logger.error("Failed to build HTML email to: {}, error: {}", email.to(), e.getMessage());
+                failures.put(i, e);
+            }
+        }
+        
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        
+        connection.send(messages).forEach((message, error) -> failures.put(positions.get(message), error));
+        return failures;
+    }
+    
+    private MimeMessage createHtmlMessage(String to, String subject, String htmlContent) 
+            throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(
+                message,
+                MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
+                StandardCharsets.UTF_8.name()
+        );
+        
+        // Set from, to, subject
+        helper.setFrom(emailFrom, emailFromName);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlContent, true);
+        return message;
+    }
+    
     /**
      * Send email asynchronously (non-blocking)
      * Useful for not blocking main application flow
+     * 
+     * Queued on EmailDispatcher (bounded queue + worker pool with retries),
+     * never spawns a thread per email
      */
     public void sendEmailAsync(EmailContext emailContext) {
-        new Thread(() -> {
+        if (!emailEnabled) {
+            logger.info("Email disabled. Would send to: {}, subject: {}, template: {}", 
+                    emailContext.getTo(), emailContext.getSubject(), emailContext.getTemplate());
+            return;
+        }
+        
+        emailDispatcher.dispatch(emailContext);
+    }
+    
+    /**
+     * Rendered email ready to send (see sendRenderedHtmlBatch)
+     */
+    public record RenderedEmail(String to, String subject, String html) {}
+    
+    /**
+     * SMTP connection kept open across batches (one per EmailDispatcher worker, not thread-safe)
+     * 
+     * - Connects lazily, reconnects if the server dropped the connection
+     * - After a connection-level failure it is closed; the next batch reconnects
+     * - If the mail sender is not a JavaMailSenderImpl (no access to the Transport)
+     *   each batch falls back to JavaMailSender.send(MimeMessage...) (one connection per batch)
+     */
+    public final class SmtpConnection implements AutoCloseable {
+        
+        private Transport transport;
+        private long lastUsedNanos;
+        
+        private SmtpConnection() {
+        }
+        
+        /**
+         * @return Failed messages with their error (empty map = all sent)
+         */
+        private Map<MimeMessage, Exception> send(List<MimeMessage> messages) {
+            if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+                return sendWithoutTransport(messages);
+            }
+            
+            Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+            try {
+                ensureConnected(sender);
+            } catch (MessagingException e) {
+                logger.error("Failed to connect to SMTP server {}:{}: {}", sender.getHost(), sender.getPort(), e.getMessage());
+                close();
+                messages.forEach(message -> failures.put(message, e));
+                return failures;
+            }
+            
+            for (MimeMessage message : messages) {
+                if (transport == null) {
+                    // Connection lost earlier in this batch - the rest go on the next attempt
+                    failures.put(message, new MessagingException("SMTP connection lost"));
+                    continue;
+                }
+                try {
+                    if (message.getSentDate() == null) {
+                        message.setSentDate(new Date());
+                    }
+                    message.saveChanges();
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (MessagingException e) {
+                    failures.put(message, e);
+                    if (!transport.isConnected()) {
+                        close();
+                    }
+                }
+            }
+            lastUsedNanos = System.nanoTime();
+            return failures;
+        }
+        
+        private void ensureConnected(JavaMailSenderImpl sender) throws MessagingException {
+            if (transport != null && transport.isConnected()) {
+                return;
+            }
+            close();
+            Session session = sender.getSession();
+            transport = session.getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+            transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+            logger.debug("Opened SMTP connection to {}:{}", sender.getHost(), sender.getPort());
+        }
+        
+        private Map<MimeMessage, Exception> sendWithoutTransport(List<MimeMessage> messages) {
+            Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
             try {
-                sendHtmlEmail(emailContext);
-            } catch (Exception e) {
-                logger.error("Async email sending failed: {}", e.getMessage());
+                mailSender.send(messages.toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                // Per-message failures; if none are listed, the whole batch failed (e.g. connect error)
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                if (failedMessages.isEmpty()) {
+                    messages.forEach(message -> failures.put(message, e));
+                } else {
+                    failedMessages.forEach((message, error) -> failures.put((MimeMessage) message, error));
+                }
+            } catch (MailException e) {
+                logger.error("Failed to send batch of {} emails: {}", messages.size(), e.getMessage());
+                messages.forEach(message -> failures.put(message, e));
             }
-        }).start();
+            return failures;
+        }
+        
+        /**
+         * Close the connection if it has not been used for idleNanos
+         */
+        public void closeIfIdle(long idleNanos) {
+            if (transport != null && System.nanoTime() - lastUsedNanos > idleNanos) {
+                logger.debug("Closing idle SMTP connection");
+                close();
+            }
+        }
+        
+        @Override
+        public void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("Error closing SMTP connection: {}", e.getMessage());
+            }
+            transport = null;
+        }
     }
 }
-
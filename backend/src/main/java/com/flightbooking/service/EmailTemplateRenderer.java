@@ -0,0 +1,154 @@
+package com.flightbooking.service;
+
+import com.flightbooking.util.CompiledEmailTemplateResolver;
+import com.flightbooking.util.EmailTemplateCompiler;
+import com.flightbooking.util.EmailTemplateCompiler.CompiledTemplate;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Email Template Renderer
+ *
+ * Renders email templates (templates/email/*.html) with Spring Boot's Thymeleaf engine:
+ * - Known templates are compiled at startup (EmailTemplateCompiler): their static
+ *   markup is rendered once, and each email only runs the elements with th:* attributes
+ *   through the engine; the static runs are spliced back in
+ * - A compiled template is checked against the normal render before it is used;
+ *   templates that can't be compiled (or unknown ones) are rendered as they are
+ * - Parsed templates are cached by the engine when spring.thymeleaf.cache=true
+ *   (Boot's default; DevTools turns it off in development: templates are then
+ *   neither compiled nor preloaded, so edits show up, and a warning is logged)
+ */
+@Service
+public class EmailTemplateRenderer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateRenderer.class);
+    
+    private static final String TEMPLATE_PREFIX = "email/";
+    
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+    
+    @Autowired
+    private CompiledEmailTemplateResolver compiledTemplateResolver;
+    
+    @Autowired
+    private ResourceLoader resourceLoader;
+    
+    @Value("${email.templates.preload:booking-confirmation,booking-reminder,payment-receipt}")
+    private List<String> preloadTemplates;
+    
+    @Value("${spring.thymeleaf.cache:true}")
+    private boolean cacheTemplates;
+    
+    @Value("${spring.thymeleaf.prefix:classpath:/templates/}")
+    private String templatesLocation;
+    
+    @Value("${spring.thymeleaf.suffix:.html}")
+    private String templatesSuffix;
+    
+    @Value("${spring.thymeleaf.encoding:UTF-8}")
+    private Charset templatesEncoding;
+    
+    /**
+     * Template name -> compiled form and its engine template name
+     */
+    private final Map<String, CompiledEmail> compiledTemplates = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        if (!cacheTemplates) {
+            logger.warn("spring.thymeleaf.cache is off: email templates are parsed again for every email");
+            return;
+        }
+        preload();
+    }
+    
+    /**
+     * Compile known templates and parse them into the engine's cache
+     * Rendering with no variables is fine: templates guard optional sections with th:if
+     */
+    private void preload() {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        for (String template : preloadTemplates) {
+            String name = template.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                String expected = templateEngine.process(TEMPLATE_PREFIX + name, new Context(Locale.getDefault()));
+                compile(name, expected);
+                loaded++;
+            } catch (Exception e) {
+                logger.warn("Failed to preload email template {}: {}", name, e.getMessage());
+            }
+        }
+        logger.info("Preloaded {} email templates ({} compiled) in {} ms", 
+                loaded, compiledTemplates.size(), System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * Compile a template and keep it if it renders exactly like the original
+     */
+    private void compile(String name, String expected) throws IOException {
+        Resource resource = resourceLoader.getResource(templatesLocation + TEMPLATE_PREFIX + name + templatesSuffix);
+        CompiledTemplate compiled = EmailTemplateCompiler.compile(resource.getContentAsString(templatesEncoding));
+        if (compiled == null) {
+            logger.info("Email template {} can't be split into static and dynamic parts, rendering it as is", name);
+            return;
+        }
+        
+        CompiledEmail email = new CompiledEmail(compiledTemplateResolver.register(name, compiled.template()), compiled);
+        String actual = email.render(templateEngine, new Context(Locale.getDefault()));
+        if (!expected.equals(actual)) {
+            logger.warn("Compiled email template {} renders differently, rendering it as is", name);
+            return;
+        }
+        compiledTemplates.put(name, email);
+    }
+    
+    /**
+     * Render email template
+     *
+     * @param template Template name without the email/ prefix (e.g. "booking-confirmation")
+     * @param variables Template variables
+     * @return HTML content
+     */
+    public String render(String template, Map<String, Object> variables) {
+        CompiledEmail compiled = compiledTemplates.get(template);
+        if (compiled != null) {
+            String html = compiled.render(templateEngine, new Context(Locale.getDefault(), variables));
+            if (html != null) {
+                return html;
+            }
+            logger.debug("Variables of email template {} contain the static-part marker, rendering it as is", template);
+        }
+        return templateEngine.process(TEMPLATE_PREFIX + template, new Context(Locale.getDefault(), variables));
+    }
+    
+    private record CompiledEmail(String engineTemplate, CompiledTemplate compiled) {
+        
+        /**
+         * @return HTML, or null if it has to be rendered from the original template
+         */
+        String render(SpringTemplateEngine templateEngine, Context context) {
+            return compiled.splice(templateEngine.process(engineTemplate, context));
+        }
+    }
+}
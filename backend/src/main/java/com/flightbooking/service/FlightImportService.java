@@ -0,0 +1,601 @@
+package com.flightbooking.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightbooking.dto.FlightDTO;
+import com.flightbooking.dto.FlightImportResultDTO;
+import com.flightbooking.entity.Flight;
+import com.flightbooking.event.FlightCountChangedEvent;
+import com.flightbooking.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Flight Import Service
+ *
+ * Bulk loads flight schedules (a season at a time) from CSV or JSON:
+ * - The upload is read as a stream and processed in chunks of chunk-size rows;
+ *   the whole file is never held in memory
+ * - Rows of a chunk are parsed, defaulted and validated in parallel
+ *   (FlightService.validateFlightData, CPU only)
+ * - Duplicates are rejected: same flight number and cabin class departing on the
+ *   same day (findByFlightNumberAndDepartTimeBetween over the day), both within
+ *   the file and against the database with ONE query per chunk
+ * - New flights are written with a JDBC batch insert, one transaction per chunk
+ *   (add reWriteBatchedInserts=true to the PostgreSQL JDBC URL to send each batch
+ *   as multi-row INSERTs)
+ * - FlightCountChangedEvent is published once at the end, not per flight
+ *
+ * CSV: header line with column names in any order (flight_number, airline, origin,
+ * destination, depart_time, arrive_time, cabin_class, base_fare, taxes, total_seats,
+ * optional available_seats, status, aircraft_type, duration_minutes); fields may be
+ * quoted but must not contain line breaks.
+ * JSON: an array of FlightDTO objects.
+ */
+@Service
+public class FlightImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FlightImportService.class);
+    
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_JSON = "json";
+    
+    private static final List<String> REQUIRED_COLUMNS = List.of(
+        "flight_number", "airline", "origin", "destination", "depart_time", "arrive_time",
+        "cabin_class", "base_fare", "taxes", "total_seats"
+    );
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO flights (id, flight_number, airline, origin, destination, depart_time, arrive_time, " +
+        "cabin_class, base_fare, taxes, available_seats, total_seats, status, aircraft_type, duration_minutes, " +
+        "schedule_pattern_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // idx_flights_number_depart
+    private static final String EXISTING_SQL =
+        "SELECT flight_number, cabin_class, depart_time FROM flights " +
+        "WHERE flight_number IN (:flightNumbers) AND depart_time >= :from AND depart_time < :to";
+    
+    @Autowired
+    private FlightService flightService;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${flight.import.chunk-size:2000}")
+    private int chunkSize;
+    
+    @Value("${flight.import.max-errors:100}")
+    private int maxErrors;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Check the format before the body is read
+     *
+     * @throws BusinessException if the format is not csv or json
+     */
+    public String normalizeFormat(String format) {
+        String normalized = format != null ? format.trim().toLowerCase() : FORMAT_CSV;
+        if (!FORMAT_CSV.equals(normalized) && !FORMAT_JSON.equals(normalized)) {
+            throw new BusinessException("INVALID_FORMAT", "Import format must be csv or json");
+        }
+        return normalized;
+    }
+    
+    /**
+     * Import a schedule
+     *
+     * @param in Upload stream (not closed)
+     * @param format csv or json
+     * @return Counts and the first max-errors rejected rows
+     * @throws BusinessException if the CSV header or the JSON array start is invalid
+     */
+    public FlightImportResultDTO importFlights(InputStream in, String format) {
+        long startedAt = System.currentTimeMillis();
+        ImportTotals totals = new ImportTotals();
+        Set<FlightKey> seen = new HashSet<>();
+        
+        try {
+            RowReader reader = FORMAT_JSON.equals(format) ? new JsonRowReader(in) : new CsvRowReader(in);
+            List<ImportRow> chunk;
+            while (!(chunk = reader.read(chunkSize)).isEmpty()) {
+                processChunk(chunk, seen, totals);
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed JSON: the rows before it are kept, the rest can't be read
+            totals.addError(new FlightImportResultDTO.Error(
+                totals.total + 1, null, "INVALID_IMPORT", "Malformed JSON: " + e.getOriginalMessage()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (totals.inserted > 0) {
+                eventPublisher.publishEvent(new FlightCountChangedEvent((int) totals.inserted));
+            }
+        }
+        
+        long duration = System.currentTimeMillis() - startedAt;
+        logger.info("Flight import ({}): {} rows, {} inserted, {} duplicates, {} failed in {} ms",
+            format, totals.total, totals.inserted, totals.duplicates, totals.failed, duration);
+        
+        return FlightImportResultDTO.builder()
+            .total(totals.total)
+            .inserted(totals.inserted)
+            .duplicates(totals.duplicates)
+            .failed(totals.failed)
+            .durationMs(duration)
+            .errorsTruncated(totals.truncated)
+            .errors(totals.errors)
+            .build();
+    }
+    
+    /**
+     * Insert flights that are already built, without duplicate check (one transaction)
+     * Used by DataSeeder on an empty flights table and by FlightScheduleService
+     * (joins the caller's transaction if there is one)
+     *
+     * @return Number of flights inserted
+     */
+    public int insertFlights(List<Flight> flights) {
+        if (flights.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < flights.size(); from += chunkSize) {
+                insert(flights.subList(from, Math.min(from + chunkSize, flights.size())));
+            }
+        });
+        eventPublisher.publishEvent(new FlightCountChangedEvent(flights.size()));
+        return flights.size();
+    }
+    
+    private void processChunk(List<ImportRow> rows, Set<FlightKey> seen, ImportTotals totals) {
+        // Parse and validate in parallel - each row is written by exactly one thread
+        rows.parallelStream().forEach(this::prepare);
+        
+        List<ImportRow> candidates = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            totals.total++;
+            if (row.errorCode != null) {
+                totals.reject(row, row.errorCode, row.errorMessage);
+            } else if (!seen.add(row.key)) {
+                totals.duplicate(row, "Flight " + row.key.flightNumber() + " (" + row.key.cabinClass()
+                    + ") on " + row.key.departDate() + " appears more than once in the import");
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        
+        Set<FlightKey> existing;
+        try {
+            existing = transactionTemplate.execute(status -> {
+                Set<FlightKey> found = findExisting(candidates);
+                List<Flight> flights = new ArrayList<>(candidates.size());
+                for (ImportRow row : candidates) {
+                    if (!found.contains(row.key)) {
+                        flights.add(row.flight);
+                    }
+                }
+                insert(flights);
+                return found;
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Flight import chunk of {} rows failed: {}", candidates.size(), e.getMostSpecificCause().getMessage());
+            for (ImportRow row : candidates) {
+                totals.reject(row, "IMPORT_FAILED", "Chunk could not be written: " + e.getMostSpecificCause().getMessage());
+            }
+            return;
+        }
+        
+        for (ImportRow row : candidates) {
+            if (existing.contains(row.key)) {
+                totals.duplicate(row, "Flight " + row.key.flightNumber() + " (" + row.key.cabinClass()
+                    + ") on " + row.key.departDate() + " already exists");
+            } else {
+                totals.inserted++;
+            }
+        }
+    }
+    
+    /**
+     * Parse, default and validate one row (no DB access)
+     */
+    private void prepare(ImportRow row) {
+        FlightDTO flightDTO;
+        try {
+            flightDTO = row.parser.parse();
+        } catch (JsonProcessingException e) {
+            row.reject("INVALID_FLIGHT", "Could not read flight: " + e.getOriginalMessage());
+            return;
+        } catch (Exception e) {
+            row.reject("INVALID_FLIGHT", "Could not read flight: " + e.getMessage());
+            return;
+        }
+        
+        applyDefaults(flightDTO);
+        row.flightNumber = flightDTO.getFlightNumber();
+        try {
+            flightService.validateFlightData(flightDTO);
+            if (flightDTO.getCabinClass() == null) {
+                throw new BusinessException("INVALID_FLIGHT", "Cabin class is required");
+            }
+            // flights.origin / destination are VARCHAR(10)
+            if (flightDTO.getOrigin().length() > 10 || flightDTO.getDestination().length() > 10) {
+                throw new BusinessException("INVALID_ROUTE", "Origin and destination must be at most 10 characters");
+            }
+        } catch (BusinessException e) {
+            row.reject(e.getErrorCode(), e.getMessage());
+            return;
+        }
+        
+        row.flight = toEntity(flightDTO);
+        row.key = new FlightKey(flightDTO.getFlightNumber(), flightDTO.getCabinClass(),
+            flightDTO.getDepartTime().toLocalDate());
+    }
+    
+    private static void applyDefaults(FlightDTO flightDTO) {
+        flightDTO.setFlightNumber(upper(flightDTO.getFlightNumber()));
+        flightDTO.setAirline(trim(flightDTO.getAirline()));
+        flightDTO.setOrigin(upper(flightDTO.getOrigin()));
+        flightDTO.setDestination(upper(flightDTO.getDestination()));
+        flightDTO.setCabinClass(upper(flightDTO.getCabinClass()));
+        flightDTO.setAircraftType(trim(flightDTO.getAircraftType()));
+        flightDTO.setStatus(flightDTO.getStatus() != null ? upper(flightDTO.getStatus()) : "SCHEDULED");
+        if (flightDTO.getAvailableSeats() == null) {
+            flightDTO.setAvailableSeats(flightDTO.getTotalSeats());
+        }
+        if (flightDTO.getDurationMinutes() == null && flightDTO.getDepartTime() != null && flightDTO.getArriveTime() != null) {
+            flightDTO.setDurationMinutes((int) Duration.between(flightDTO.getDepartTime(), flightDTO.getArriveTime()).toMinutes());
+        }
+    }
+    
+    private static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+    
+    private static String upper(String value) {
+        return value != null ? value.trim().toUpperCase() : null;
+    }
+    
+    private static Flight toEntity(FlightDTO flightDTO) {
+        Flight flight = new Flight();
+        flight.setId(UUID.randomUUID().toString());
+        flight.setFlightNumber(flightDTO.getFlightNumber());
+        flight.setAirline(flightDTO.getAirline());
+        flight.setOrigin(flightDTO.getOrigin());
+        flight.setDestination(flightDTO.getDestination());
+        flight.setDepartTime(flightDTO.getDepartTime());
+        flight.setArriveTime(flightDTO.getArriveTime());
+        flight.setCabinClass(flightDTO.getCabinClass());
+        flight.setBaseFare(flightDTO.getBaseFare());
+        flight.setTaxes(flightDTO.getTaxes());
+        flight.setAvailableSeats(flightDTO.getAvailableSeats());
+        flight.setTotalSeats(flightDTO.getTotalSeats());
+        flight.setStatus(flightDTO.getStatus());
+        flight.setAircraftType(flightDTO.getAircraftType());
+        flight.setDurationMinutes(flightDTO.getDurationMinutes());
+        return flight;
+    }
+    
+    /**
+     * Flights of the chunk that already exist: one query for all flight numbers
+     * over the chunk's departure days, matched by key in memory
+     */
+    private Set<FlightKey> findExisting(List<ImportRow> rows) {
+        Set<String> flightNumbers = new HashSet<>();
+        LocalDate first = null;
+        LocalDate last = null;
+        for (ImportRow row : rows) {
+            flightNumbers.add(row.key.flightNumber());
+            LocalDate day = row.key.departDate();
+            if (first == null || day.isBefore(first)) {
+                first = day;
+            }
+            if (last == null || day.isAfter(last)) {
+                last = day;
+            }
+        }
+        
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("flightNumbers", flightNumbers)
+            .addValue("from", first.atStartOfDay())
+            .addValue("to", last.plusDays(1).atStartOfDay());
+        Set<FlightKey> existing = new HashSet<>();
+        jdbcTemplate.query(EXISTING_SQL, params, rs -> {
+            existing.add(new FlightKey(rs.getString("flight_number"), rs.getString("cabin_class"),
+                rs.getTimestamp("depart_time").toLocalDateTime().toLocalDate()));
+        });
+        return existing;
+    }
+    
+    private void insert(List<Flight> flights) {
+        if (flights.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(flights.size());
+        for (Flight flight : flights) {
+            batch.add(new Object[] {
+                flight.getId(), flight.getFlightNumber(), flight.getAirline(), flight.getOrigin(),
+                flight.getDestination(), flight.getDepartTime(), flight.getArriveTime(), flight.getCabinClass(),
+                flight.getBaseFare(), flight.getTaxes(), flight.getAvailableSeats(), flight.getTotalSeats(),
+                flight.getStatus(), flight.getAircraftType(), flight.getDurationMinutes(),
+                flight.getSchedulePatternId(), now, now
+            });
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, batch);
+    }
+    
+    /**
+     * Split one CSV line ("..." quoting with "" for a quote, as written by BookingExportService)
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    /**
+     * Duplicate check key: same flight number and cabin class on the same day
+     */
+    record FlightKey(String flightNumber, String cabinClass, LocalDate departDate) {
+    }
+    
+    @FunctionalInterface
+    private interface RowParser {
+        FlightDTO parse() throws Exception;
+    }
+    
+    private static final class ImportRow {
+        /**
+         * CSV line number or JSON array position (1-based)
+         */
+        private final long row;
+        private final RowParser parser;
+        
+        // Written by the validating thread only
+        private String flightNumber;
+        private Flight flight;
+        private FlightKey key;
+        private String errorCode;
+        private String errorMessage;
+        
+        private ImportRow(long row, RowParser parser) {
+            this.row = row;
+            this.parser = parser;
+        }
+        
+        private void reject(String errorCode, String errorMessage) {
+            this.errorCode = errorCode;
+            this.errorMessage = errorMessage;
+        }
+    }
+    
+    private final class ImportTotals {
+        private long total;
+        private long inserted;
+        private long duplicates;
+        private long failed;
+        private boolean truncated;
+        private final List<FlightImportResultDTO.Error> errors = new ArrayList<>();
+        
+        private void reject(ImportRow row, String errorCode, String errorMessage) {
+            failed++;
+            addError(new FlightImportResultDTO.Error(row.row, row.flightNumber, errorCode, errorMessage));
+        }
+        
+        private void duplicate(ImportRow row, String errorMessage) {
+            duplicates++;
+            addError(new FlightImportResultDTO.Error(row.row, row.flightNumber, "DUPLICATE_FLIGHT", errorMessage));
+        }
+        
+        private void addError(FlightImportResultDTO.Error error) {
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            } else {
+                truncated = true;
+            }
+        }
+    }
+    
+    private interface RowReader {
+        /**
+         * Next rows, at most max (empty at the end of the upload)
+         */
+        List<ImportRow> read(int max) throws IOException;
+    }
+    
+    private final class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long lineNumber = 1;
+        
+        private CsvRowReader(InputStream in) throws IOException {
+            reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            String header = reader.readLine();
+            if (header == null) {
+                throw new BusinessException("INVALID_IMPORT", "Import is empty");
+            }
+            if (header.startsWith("\uFEFF")) {
+                header = header.substring(1);
+            }
+            List<String> names = splitCsv(header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(), i);
+            }
+            List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                throw new BusinessException("INVALID_IMPORT", "Missing CSV columns: " + String.join(", ", missing));
+            }
+        }
+        
+        @Override
+        public List<ImportRow> read(int max) throws IOException {
+            List<ImportRow> rows = new ArrayList<>(max);
+            String line;
+            while (rows.size() < max && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String text = line;
+                rows.add(new ImportRow(lineNumber, () -> parse(text)));
+            }
+            return rows;
+        }
+        
+        private FlightDTO parse(String line) {
+            List<String> fields = splitCsv(line);
+            FlightDTO flightDTO = new FlightDTO();
+            flightDTO.setFlightNumber(field(fields, "flight_number"));
+            flightDTO.setAirline(field(fields, "airline"));
+            flightDTO.setOrigin(field(fields, "origin"));
+            flightDTO.setDestination(field(fields, "destination"));
+            flightDTO.setDepartTime(dateTime(field(fields, "depart_time")));
+            flightDTO.setArriveTime(dateTime(field(fields, "arrive_time")));
+            flightDTO.setCabinClass(field(fields, "cabin_class"));
+            flightDTO.setBaseFare(decimal(field(fields, "base_fare")));
+            flightDTO.setTaxes(decimal(field(fields, "taxes")));
+            flightDTO.setTotalSeats(integer(field(fields, "total_seats")));
+            flightDTO.setAvailableSeats(integer(field(fields, "available_seats")));
+            flightDTO.setStatus(field(fields, "status"));
+            flightDTO.setAircraftType(field(fields, "aircraft_type"));
+            flightDTO.setDurationMinutes(integer(field(fields, "duration_minutes")));
+            return flightDTO;
+        }
+        
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+        
+        private LocalDateTime dateTime(String value) {
+            return value != null ? LocalDateTime.parse(value.replace(' ', 'T')) : null;
+        }
+        
+        private BigDecimal decimal(String value) {
+            return value != null ? new BigDecimal(value) : null;
+        }
+        
+        private Integer integer(String value) {
+            return value != null ? Integer.valueOf(value) : null;
+        }
+    }
+    
+    private final class JsonRowReader implements RowReader {
+        private final JsonParser parser;
+        private long position;
+        
+        /**
+         * Syntax error hit after some rows were read; thrown on the next read
+         */
+        private JsonProcessingException failure;
+        
+        private JsonRowReader(InputStream in) throws IOException {
+            parser = objectMapper.getFactory().createParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BusinessException("INVALID_IMPORT", "JSON import must be an array of flights");
+            }
+        }
+        
+        @Override
+        public List<ImportRow> read(int max) throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            List<ImportRow> rows = new ArrayList<>(max);
+            try {
+                while (rows.size() < max) {
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        break;
+                    }
+                    position++;
+                    // Tree only; binding to FlightDTO happens in the parallel step
+                    JsonNode node = parser.readValueAsTree();
+                    rows.add(new ImportRow(position, () -> objectMapper.treeToValue(node, FlightDTO.class)));
+                }
+            } catch (JsonProcessingException e) {
+                if (rows.isEmpty()) {
+                    throw e;
+                }
+                // Import the rows before the error first
+                failure = e;
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.FlightDTO;
+import com.flightbooking.dto.FlightSchedulePatternDTO;
+import com.flightbooking.entity.Flight;
+import com.flightbooking.entity.FlightSchedulePattern;
+import com.flightbooking.event.FlightCountChangedEvent;
+import com.flightbooking.exception.BusinessException;
+import com.flightbooking.exception.ResourceNotFoundException;
+import com.flightbooking.repository.FlightRepository;
+import com.flightbooking.repository.FlightSchedulePatternRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Flight Schedule Service
+ *
+ * Manages recurring schedules (FlightSchedulePattern) and the flights generated from them:
+ * - Flights are generated lazily, only up to a rolling horizon (today + horizon-days),
+ *   and written with one JDBC batch insert per pattern (FlightImportService)
+ * - The horizon is extended daily (ScheduleHorizonScheduler) from generatedUntil on
+ * - Pattern edits reach the future generated flights with set-based statements:
+ *   flights no longer on the pattern are deleted (or cancelled if booked), fares,
+ *   seats and aircraft are updated in place, times and flight number are updated on
+ *   unbooked flights, then newly covered days are generated
+ * - Deactivating a pattern removes (or cancels) all its future flights
+ *
+ * A day that already has a flight of the pattern (even a cancelled one) is never
+ * generated again, so admin changes to single flights are kept.
+ *
+ * Edits and horizon generation lock the pattern row (findByIdForUpdate) and work on
+ * the state read under that lock, so a nightly run never undoes a concurrent edit or
+ * deactivation.
+ */
+@Service
+public class FlightScheduleService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FlightScheduleService.class);
+    
+    @Autowired
+    private FlightSchedulePatternRepository patternRepository;
+    
+    @Autowired
+    private FlightRepository flightRepository;
+    
+    @Autowired
+    private FlightService flightService;
+    
+    @Autowired
+    private FlightImportService flightImportService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${flight.schedule.horizon-days:60}")
+    private int horizonDays;
+    
+    @Value("${flight.schedule.max-validity-days:731}")
+    private int maxValidityDays;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<FlightSchedulePatternDTO> getPatterns(Pageable pageable) {
+        return patternRepository.findAll(pageable).map(this::convertToDTO);
+    }
+    
+    @Transactional(readOnly = true)
+    public FlightSchedulePatternDTO getPattern(String id) {
+        return convertToDTO(findPattern(id));
+    }
+    
+    /**
+     * Admin: Create a pattern and generate its flights up to the horizon
+     */
+    @Transactional
+    public FlightSchedulePatternDTO createPattern(FlightSchedulePatternDTO patternDTO) {
+        validatePattern(patternDTO);
+        
+        FlightSchedulePattern pattern = new FlightSchedulePattern();
+        pattern.setId(UUID.randomUUID().toString());
+        pattern.setActive(patternDTO.getActive() == null || patternDTO.getActive());
+        apply(pattern, patternDTO);
+        pattern = patternRepository.save(pattern);
+        
+        int generated = generate(pattern, LocalDate.now());
+        logger.info("Admin: Created schedule pattern {} ({} {}-{}), generated {} flights",
+            pattern.getId(), pattern.getFlightNumber(), pattern.getOrigin(), pattern.getDestination(), generated);
+        
+        return convertToDTO(pattern);
+    }
+    
+    /**
+     * Admin: Replace a pattern and propagate the change to its future flights
+     */
+    @Transactional
+    public FlightSchedulePatternDTO updatePattern(String id, FlightSchedulePatternDTO patternDTO) {
+        validatePattern(patternDTO);
+        
+        FlightSchedulePattern pattern = findPatternForUpdate(id);
+        apply(pattern, patternDTO);
+        if (patternDTO.getActive() != null) {
+            pattern.setActive(patternDTO.getActive());
+        }
+        pattern = patternRepository.save(pattern);
+        
+        LocalDateTime now = LocalDateTime.now();
+        String days = Boolean.TRUE.equals(pattern.getActive()) ? pattern.getDaysOfWeek() : "";
+        int removed = removeOffPattern(pattern, days, now);
+        int repriced = flightRepository.updateFaresFromPattern(pattern.getId(), pattern.getAirline(),
+            pattern.getCabinClass(), pattern.getBaseFare(), pattern.getTaxes(), pattern.getAircraftType(),
+            pattern.getTotalSeats(), now);
+        int retimed = flightRepository.updateTimesFromPattern(pattern.getId(), pattern.getFlightNumber(),
+            pattern.getOrigin(), pattern.getDestination(), pattern.getDepartTime(), pattern.getDurationMinutes(), now);
+        
+        // Days added to the pattern inside the already generated horizon
+        pattern.setGeneratedUntil(null);
+        int generated = generate(pattern, LocalDate.now());
+        
+        logger.info("Admin: Updated schedule pattern {}: {} flights removed/cancelled, {} updated, {} retimed, {} generated",
+            id, removed, repriced, retimed, generated);
+        return convertToDTO(pattern);
+    }
+    
+    /**
+     * Admin: Deactivate a pattern; its future flights are deleted, or cancelled if booked
+     */
+    @Transactional
+    public void deactivatePattern(String id) {
+        FlightSchedulePattern pattern = findPatternForUpdate(id);
+        pattern.setActive(false);
+        patternRepository.save(pattern);
+        
+        int removed = removeOffPattern(pattern, "", LocalDateTime.now());
+        logger.info("Admin: Deactivated schedule pattern {}: {} future flights removed/cancelled", id, removed);
+    }
+    
+    /**
+     * Generate flights of all due patterns up to the horizon, one transaction per pattern
+     * Each pattern is re-read and locked inside its transaction; patterns deactivated
+     * since the due list was read are skipped
+     *
+     * @return Number of flights generated
+     */
+    public int extendHorizon() {
+        LocalDate today = LocalDate.now();
+        List<String> due = patternRepository.findIdsDueForGeneration(today, today.plusDays(horizonDays));
+        
+        int total = 0;
+        for (String patternId : due) {
+            try {
+                Integer generated = transactionTemplate.execute(status -> {
+                    FlightSchedulePattern pattern = patternRepository.findByIdForUpdate(patternId).orElse(null);
+                    if (pattern == null || !Boolean.TRUE.equals(pattern.getActive())) {
+                        return 0;
+                    }
+                    LocalDate from = pattern.getGeneratedUntil() != null ? pattern.getGeneratedUntil().plusDays(1) : today;
+                    return generate(pattern, from);
+                });
+                total += generated != null ? generated : 0;
+            } catch (RuntimeException e) {
+                logger.error("Failed to generate flights of schedule pattern {}: {}", patternId, e.getMessage(), e);
+            }
+        }
+        
+        if (total > 0) {
+            logger.info("Extended schedule horizon of {} patterns: {} flights generated", due.size(), total);
+        }
+        return total;
+    }
+    
+    /**
+     * Insert the missing flights of [from, horizon end] and move generatedUntil
+     * (runs inside a transaction, on a pattern managed by it)
+     */
+    private int generate(FlightSchedulePattern pattern, LocalDate from) {
+        LocalDate today = LocalDate.now();
+        LocalDate end = min(pattern.getValidTo(), today.plusDays(horizonDays));
+        LocalDate start = max(max(from, today), pattern.getValidFrom());
+        if (!Boolean.TRUE.equals(pattern.getActive()) || start.isAfter(end)) {
+            return 0;
+        }
+        
+        // Days that already have a flight of this pattern (one query)
+        Set<LocalDate> existing = new HashSet<>();
+        for (LocalDateTime departTime : flightRepository.findDepartTimesBySchedulePattern(
+                pattern.getId(), start.atStartOfDay(), end.plusDays(1).atStartOfDay())) {
+            existing.add(departTime.toLocalDate());
+        }
+        
+        Set<DayOfWeek> days = decodeDays(pattern.getDaysOfWeek());
+        LocalDateTime now = LocalDateTime.now();
+        List<Flight> flights = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            LocalDateTime departTime = day.atTime(pattern.getDepartTime());
+            if (days.contains(day.getDayOfWeek()) && !existing.contains(day) && departTime.isAfter(now)) {
+                flights.add(toFlight(pattern, departTime));
+            }
+        }
+        
+        flightImportService.insertFlights(flights);
+        pattern.setGeneratedUntil(end);
+        patternRepository.save(pattern);
+        
+        logger.debug("Generated {} flights of schedule pattern {} for {} - {}", flights.size(), pattern.getId(), start, end);
+        return flights.size();
+    }
+    
+    private int removeOffPattern(FlightSchedulePattern pattern, String days, LocalDateTime now) {
+        int cancelled = flightRepository.cancelBookedOffPattern(pattern.getId(), pattern.getValidFrom(),
+            pattern.getValidTo(), days, now);
+        int deleted = flightRepository.deleteUnbookedOffPattern(pattern.getId(), pattern.getValidFrom(),
+            pattern.getValidTo(), days, now);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new FlightCountChangedEvent(-deleted));
+        }
+        return cancelled + deleted;
+    }
+    
+    private Flight toFlight(FlightSchedulePattern pattern, LocalDateTime departTime) {
+        Flight flight = new Flight();
+        flight.setId(UUID.randomUUID().toString());
+        flight.setFlightNumber(pattern.getFlightNumber());
+        flight.setAirline(pattern.getAirline());
+        flight.setOrigin(pattern.getOrigin());
+        flight.setDestination(pattern.getDestination());
+        flight.setDepartTime(departTime);
+        flight.setArriveTime(departTime.plusMinutes(pattern.getDurationMinutes()));
+        flight.setCabinClass(pattern.getCabinClass());
+        flight.setBaseFare(pattern.getBaseFare());
+        flight.setTaxes(pattern.getTaxes());
+        flight.setTotalSeats(pattern.getTotalSeats());
+        flight.setAvailableSeats(pattern.getTotalSeats());
+        flight.setStatus("SCHEDULED");
+        flight.setAircraftType(pattern.getAircraftType());
+        flight.setDurationMinutes(pattern.getDurationMinutes());
+        flight.setSchedulePatternId(pattern.getId());
+        return flight;
+    }
+    
+    /**
+     * Validate a pattern: its own fields, then one sample flight through the flight rules
+     */
+    private void validatePattern(FlightSchedulePatternDTO patternDTO) {
+        if (patternDTO.getDepartTime() == null) {
+            throw new BusinessException("INVALID_SCHEDULE", "Departure time is required");
+        }
+        if (patternDTO.getDurationMinutes() == null || patternDTO.getDurationMinutes() < 1) {
+            throw new BusinessException("INVALID_SCHEDULE", "Duration must be at least 1 minute");
+        }
+        if (patternDTO.getDaysOfWeek() == null || patternDTO.getDaysOfWeek().isEmpty()) {
+            throw new BusinessException("INVALID_SCHEDULE", "At least one day of week is required");
+        }
+        if (patternDTO.getValidFrom() == null || patternDTO.getValidTo() == null) {
+            throw new BusinessException("INVALID_SCHEDULE", "Validity period (validFrom, validTo) is required");
+        }
+        if (patternDTO.getValidTo().isBefore(patternDTO.getValidFrom())) {
+            throw new BusinessException("INVALID_SCHEDULE", "validTo must not be before validFrom");
+        }
+        if (patternDTO.getValidFrom().plusDays(maxValidityDays).isBefore(patternDTO.getValidTo())) {
+            throw new BusinessException("INVALID_SCHEDULE", "A schedule can be valid for at most " + maxValidityDays + " days");
+        }
+        if (patternDTO.getCabinClass() == null || patternDTO.getCabinClass().isBlank()) {
+            throw new BusinessException("INVALID_FLIGHT", "Cabin class is required");
+        }
+        
+        FlightDTO sample = new FlightDTO();
+        sample.setFlightNumber(patternDTO.getFlightNumber());
+        sample.setAirline(patternDTO.getAirline());
+        sample.setOrigin(patternDTO.getOrigin());
+        sample.setDestination(patternDTO.getDestination());
+        sample.setDepartTime(patternDTO.getValidFrom().atTime(patternDTO.getDepartTime()));
+        sample.setArriveTime(sample.getDepartTime().plusMinutes(patternDTO.getDurationMinutes()));
+        sample.setBaseFare(patternDTO.getBaseFare());
+        sample.setTaxes(patternDTO.getTaxes());
+        sample.setTotalSeats(patternDTO.getTotalSeats());
+        sample.setAvailableSeats(patternDTO.getTotalSeats());
+        flightService.validateFlightData(sample);
+    }
+    
+    private void apply(FlightSchedulePattern pattern, FlightSchedulePatternDTO patternDTO) {
+        pattern.setFlightNumber(patternDTO.getFlightNumber().trim().toUpperCase());
+        pattern.setAirline(patternDTO.getAirline().trim());
+        pattern.setOrigin(patternDTO.getOrigin().trim().toUpperCase());
+        pattern.setDestination(patternDTO.getDestination().trim().toUpperCase());
+        pattern.setDepartTime(patternDTO.getDepartTime());
+        pattern.setDurationMinutes(patternDTO.getDurationMinutes());
+        pattern.setDaysOfWeek(encodeDays(patternDTO.getDaysOfWeek()));
+        pattern.setValidFrom(patternDTO.getValidFrom());
+        pattern.setValidTo(patternDTO.getValidTo());
+        pattern.setCabinClass(patternDTO.getCabinClass().trim().toUpperCase());
+        pattern.setBaseFare(patternDTO.getBaseFare());
+        pattern.setTaxes(patternDTO.getTaxes());
+        pattern.setTotalSeats(patternDTO.getTotalSeats());
+        pattern.setAircraftType(patternDTO.getAircraftType());
+    }
+    
+    private FlightSchedulePattern findPatternForUpdate(String id) {
+        return patternRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Schedule pattern not found with ID: " + id));
+    }
+    
+    private FlightSchedulePattern findPattern(String id) {
+        return patternRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Schedule pattern not found with ID: " + id));
+    }
+    
+    private FlightSchedulePatternDTO convertToDTO(FlightSchedulePattern pattern) {
+        return FlightSchedulePatternDTO.builder()
+                .id(pattern.getId())
+                .flightNumber(pattern.getFlightNumber())
+                .airline(pattern.getAirline())
+                .origin(pattern.getOrigin())
+                .destination(pattern.getDestination())
+                .departTime(pattern.getDepartTime())
+                .durationMinutes(pattern.getDurationMinutes())
+                .daysOfWeek(new ArrayList<>(decodeDays(pattern.getDaysOfWeek())))
+                .validFrom(pattern.getValidFrom())
+                .validTo(pattern.getValidTo())
+                .cabinClass(pattern.getCabinClass())
+                .baseFare(pattern.getBaseFare())
+                .taxes(pattern.getTaxes())
+                .totalSeats(pattern.getTotalSeats())
+                .aircraftType(pattern.getAircraftType())
+                .active(pattern.getActive())
+                .generatedUntil(pattern.getGeneratedUntil())
+                .createdAt(pattern.getCreatedAt())
+                .updatedAt(pattern.getUpdatedAt())
+                .build();
+    }
+    
+    /**
+     * Days as ISO digits in week order, e.g. [FRIDAY, MONDAY] -> "15"
+     */
+    static String encodeDays(List<DayOfWeek> days) {
+        StringBuilder digits = new StringBuilder();
+        for (DayOfWeek day : EnumSet.copyOf(days)) {
+            digits.append(day.getValue());
+        }
+        return digits.toString();
+    }
+    
+    static Set<DayOfWeek> decodeDays(String digits) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (char digit : digits.toCharArray()) {
+            days.add(DayOfWeek.of(digit - '0'));
+        }
+        return days;
+    }
+    
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+    
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -3,6 +3,7 @@ package com.flightbooking.service;
 import com.flightbooking.dto.FlightDTO;
 import com.flightbooking.dto.FlightSearchRequest;
 import com.flightbooking.entity.Flight;
+import com.flightbooking.event.FlightCountChangedEvent;
 import com.flightbooking.exception.BusinessException;
 import com.flightbooking.exception.ResourceNotFoundException;
 import com.flightbooking.repository.FlightRepository;
@@ -10,6 +11,7 @@ import com.flightbooking.specification.FlightSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -42,6 +44,9 @@ public class FlightService {
     @Autowired
     private FlightRepository flightRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Search flights with advanced filters
      * 
@@ -267,6 +272,7 @@ public class FlightService {
         dto.setStatus(flight.getStatus());
         dto.setAircraftType(flight.getAircraftType());
         dto.setDurationMinutes(flight.getDurationMinutes());
+        dto.setSchedulePatternId(flight.getSchedulePatternId());
         
         return dto;
     }
@@ -311,6 +317,7 @@ public class FlightService {
         flight.setDurationMinutes(flightDTO.getDurationMinutes());
         
         flight = flightRepository.save(flight);
+        eventPublisher.publishEvent(new FlightCountChangedEvent(1));
         logger.info("Flight created successfully: {}", flight.getId());
         
         return convertToDTO(flight);
@@ -318,8 +325,9 @@ public class FlightService {
     
     /**
      * Validate flight data
+     * Also used by FlightImportService (CPU only, no DB access, safe to call in parallel)
      */
-    private void validateFlightData(FlightDTO flightDTO) {
+    public void validateFlightData(FlightDTO flightDTO) {
         // Validate required fields
         if (flightDTO.getFlightNumber() == null || flightDTO.getFlightNumber().trim().isEmpty()) {
             throw new BusinessException("INVALID_FLIGHT", "Flight number is required");
@@ -451,6 +459,7 @@ public class FlightService {
         // 3. Ticket references Booking, not Flight
         // So deleting Flight won't cascade delete booking history
         flightRepository.delete(flight);
+        eventPublisher.publishEvent(new FlightCountChangedEvent(-1));
         
         logger.info("✅ Flight deleted successfully: {}. Booking history preserved.", id);
     }
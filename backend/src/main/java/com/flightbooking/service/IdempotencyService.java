@@ -0,0 +1,220 @@
+package com.flightbooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightbooking.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Service
+ *
+ * Handles the "Idempotency-Key" header for create endpoints
+ * (POST /api/bookings, POST /api/payments/create):
+ * - First request with a key runs normally and its 2xx response is stored
+ * - Retries with the same key and same body get the stored response back
+ *   without touching the database
+ * - Concurrent duplicates wait for the first request to finish
+ * - Same key with a different body is rejected
+ *
+ * Store: key -> request hash -> stored response, evicted after TTL
+ * Failed requests are NOT stored, so the client can retry them
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> store = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-minutes:1440}") // 24 hours
+    private long ttlMinutes;
+
+    @Value("${idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${idempotency.wait-timeout-seconds:30}")
+    private long waitTimeoutSeconds;
+
+    /**
+     * Execute action at most once per idempotency key
+     *
+     * @param scope Key namespace (endpoint + user), keys never collide across scopes
+     * @param idempotencyKey Value of Idempotency-Key header (null = no idempotency)
+     * @param request Request body, hashed to detect key reuse with a different payload
+     * @param action The real work (service call)
+     * @return Fresh response, or stored response for a retry
+     * @throws BusinessException if key is reused with a different body or first request is still running
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String scope,
+                                         String idempotencyKey,
+                                         Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.trim().isEmpty()) {
+            return action.get();
+        }
+
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("INVALID_IDEMPOTENCY_KEY",
+                "Idempotency-Key must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String storeKey = scope + ":" + idempotencyKey.trim();
+        byte[] requestHash = hashRequest(request);
+        Entry entry = new Entry(requestHash, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes));
+
+        while (true) {
+            Entry existing = store.putIfAbsent(storeKey, entry);
+
+            if (existing == null) {
+                // We own this key - run the real request
+                return runAndStore(storeKey, entry, action);
+            }
+
+            if (existing.isExpired()) {
+                // Stale entry - try to take it over, retry loop if someone else did first
+                if (store.replace(storeKey, existing, entry)) {
+                    return runAndStore(storeKey, entry, action);
+                }
+                continue;
+            }
+
+            if (!Arrays.equals(existing.requestHash, requestHash)) {
+                logger.warn("Idempotency key reused with different request body: {}", storeKey);
+                throw new BusinessException("IDEMPOTENCY_KEY_REUSED",
+                    "Idempotency-Key was already used with a different request body");
+            }
+
+            logger.info("Idempotent retry detected for key: {}", storeKey);
+            return replay((ResponseEntity<T>) awaitResponse(existing));
+        }
+    }
+
+    private <T> ResponseEntity<T> runAndStore(String storeKey, Entry entry, Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Don't remember failures - client may retry with same key
+            store.remove(storeKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            store.remove(storeKey, entry);
+        }
+        entry.response.complete(response);
+        return response;
+    }
+
+    private ResponseEntity<?> awaitResponse(Entry existing) {
+        try {
+            return existing.response.get(waitTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // First request failed - concurrent duplicates see the same error
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BusinessException("IDEMPOTENCY_REQUEST_IN_PROGRESS",
+                "A request with this Idempotency-Key is still being processed. Please retry later.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("IDEMPOTENCY_REQUEST_IN_PROGRESS",
+                "Interrupted while waiting for the original request");
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(ResponseEntity<T> stored) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(stored.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(stored.getBody(), headers, stored.getStatusCode());
+    }
+
+    private byte[] hashRequest(Object request) {
+        try {
+            byte[] body = request != null
+                ? objectMapper.writeValueAsBytes(request)
+                : "null".getBytes(StandardCharsets.UTF_8);
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash request for idempotency check", e);
+        }
+    }
+
+    /**
+     * Evict expired entries (and the oldest completed ones if store grows past max-entries)
+     * Runs every minute
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        int before = store.size();
+        store.entrySet().removeIf(e -> e.getValue().isExpired());
+
+        if (store.size() > maxEntries) {
+            // Every entry gets the same TTL, so the earliest expiry is the oldest entry
+            List<Map.Entry<String, Entry>> completed = store.entrySet().stream()
+                .filter(e -> e.getValue().response.isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAtMillis))
+                .toList();
+            for (Map.Entry<String, Entry> oldest : completed) {
+                if (store.size() <= maxEntries) {
+                    break;
+                }
+                store.remove(oldest.getKey(), oldest.getValue());
+            }
+        }
+
+        int evicted = before - store.size();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idempotency entries, {} remaining", evicted, store.size());
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] requestHash;
+        private final long expiresAtMillis;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        private Entry(byte[] requestHash, long expiresAtMillis) {
+            this.requestHash = requestHash;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAtMillis;
+        }
+    }
+}
@@ -4,11 +4,14 @@ import com.flightbooking.dto.EmailContext;
 import com.flightbooking.entity.Booking;
 import com.flightbooking.entity.Payment;
 import com.flightbooking.entity.User;
+import com.flightbooking.event.ApprovalRequestedEvent;
 import com.flightbooking.repository.BookingRepository;
 import com.flightbooking.repository.UserRepository;
+import com.flightbooking.util.CurrencyFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
@@ -44,6 +47,9 @@ public class NotificationService {
     @Autowired
     private com.flightbooking.repository.NotificationRepository notificationRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Send booking confirmation email
      * Triggered when booking is confirmed (after payment success)
@@ -62,38 +68,7 @@ public class NotificationService {
             User user = userRepository.findById(booking.getUserId())
                     .orElseThrow(() -> new RuntimeException("User not found: " + booking.getUserId()));
             
-            // Prepare email variables
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("userName", user.getEmail()); // or user.getFullName() if exists
-            variables.put("bookingCode", booking.getBookingCode());
-            variables.put("bookingStatus", booking.getStatus());
-            variables.put("totalAmount", formatCurrency(booking.getTotalAmount(), booking.getCurrency()));
-            variables.put("currency", booking.getCurrency());
-            variables.put("createdAt", booking.getCreatedAt().format(DATETIME_FORMATTER));
-            
-            // Add flight segments if available
-            if (booking.getFlightSegments() != null && !booking.getFlightSegments().isEmpty()) {
-                variables.put("flightSegments", booking.getFlightSegments());
-            }
-            
-            // Add passengers if available
-            if (booking.getPassengers() != null && !booking.getPassengers().isEmpty()) {
-                variables.put("passengers", booking.getPassengers());
-                variables.put("passengerCount", booking.getPassengers().size());
-            }
-            
-            // Create email context
-            EmailContext emailContext = EmailContext.builder()
-                    .to(user.getEmail())
-                    .subject("Booking Confirmation – Flight " + booking.getBookingCode())
-                    .template("booking-confirmation")
-                    .variables(variables)
-                    .build();
-            
-            // Send email asynchronously
-            emailService.sendEmailAsync(emailContext);
-            
-            logger.info("Booking confirmation email sent to: {}", user.getEmail());
+            sendBookingConfirmationEmail(booking, user);
             
         } catch (Exception e) {
             logger.error("Failed to send booking confirmation email for booking: {}, error: {}", 
@@ -102,6 +77,45 @@ public class NotificationService {
         }
     }
     
+    /**
+     * Send booking confirmation email for a booking and user already loaded by the caller
+     * Exceptions are propagated (the outbox relay retries them)
+     */
+    public void sendBookingConfirmationEmail(Booking booking, User user) {
+        // Prepare email variables
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("userName", user.getEmail()); // or user.getFullName() if exists
+        variables.put("bookingCode", booking.getBookingCode());
+        variables.put("bookingStatus", booking.getStatus());
+        variables.put("totalAmount", formatCurrency(booking.getTotalAmount(), booking.getCurrency()));
+        variables.put("currency", booking.getCurrency());
+        variables.put("createdAt", booking.getCreatedAt().format(DATETIME_FORMATTER));
+        
+        // Add flight segments if available
+        if (booking.getFlightSegments() != null && !booking.getFlightSegments().isEmpty()) {
+            variables.put("flightSegments", booking.getFlightSegments());
+        }
+        
+        // Add passengers if available
+        if (booking.getPassengers() != null && !booking.getPassengers().isEmpty()) {
+            variables.put("passengers", booking.getPassengers());
+            variables.put("passengerCount", booking.getPassengers().size());
+        }
+        
+        // Create email context
+        EmailContext emailContext = EmailContext.builder()
+                .to(user.getEmail())
+                .subject("Booking Confirmation – Flight " + booking.getBookingCode())
+                .template("booking-confirmation")
+                .variables(variables)
+                .build();
+        
+        // Send email asynchronously
+        emailService.sendEmailAsync(emailContext);
+        
+        logger.info("Booking confirmation email sent to: {}", user.getEmail());
+    }
+    
     /**
      * Send payment receipt email
      * Triggered when payment is successful
@@ -120,29 +134,7 @@ public class NotificationService {
             User user = userRepository.findById(booking.getUserId())
                     .orElseThrow(() -> new RuntimeException("User not found: " + booking.getUserId()));
             
-            // Prepare email variables
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("userName", user.getEmail());
-            variables.put("bookingCode", booking.getBookingCode());
-            variables.put("paymentAmount", formatCurrency(payment.getAmount(), payment.getCurrency()));
-            variables.put("currency", payment.getCurrency());
-            variables.put("paymentMethod", payment.getPaymentMethod());
-            variables.put("transactionId", payment.getTransactionId());
-            variables.put("paymentDate", payment.getCreatedAt().format(DATETIME_FORMATTER));
-            variables.put("paymentStatus", payment.getStatus());
-            
-            // Create email context
-            EmailContext emailContext = EmailContext.builder()
-                    .to(user.getEmail())
-                    .subject("Payment Receipt – Booking " + booking.getBookingCode())
-                    .template("payment-receipt")
-                    .variables(variables)
-                    .build();
-            
-            // Send email asynchronously
-            emailService.sendEmailAsync(emailContext);
-            
-            logger.info("Payment receipt email sent to: {}", user.getEmail());
+            sendPaymentReceiptEmail(payment, booking, user);
             
         } catch (Exception e) {
             logger.error("Failed to send payment receipt email for payment: {}, error: {}", 
@@ -151,6 +143,36 @@ public class NotificationService {
         }
     }
     
+    /**
+     * Send payment receipt email for a payment, booking and user already loaded by the caller
+     * Exceptions are propagated (the outbox relay retries them)
+     */
+    public void sendPaymentReceiptEmail(Payment payment, Booking booking, User user) {
+        // Prepare email variables
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("userName", user.getEmail());
+        variables.put("bookingCode", booking.getBookingCode());
+        variables.put("paymentAmount", formatCurrency(payment.getAmount(), payment.getCurrency()));
+        variables.put("currency", payment.getCurrency());
+        variables.put("paymentMethod", payment.getPaymentMethod());
+        variables.put("transactionId", payment.getTransactionId());
+        variables.put("paymentDate", payment.getCreatedAt().format(DATETIME_FORMATTER));
+        variables.put("paymentStatus", payment.getStatus());
+        
+        // Create email context
+        EmailContext emailContext = EmailContext.builder()
+                .to(user.getEmail())
+                .subject("Payment Receipt – Booking " + booking.getBookingCode())
+                .template("payment-receipt")
+                .variables(variables)
+                .build();
+        
+        // Send email asynchronously
+        emailService.sendEmailAsync(emailContext);
+        
+        logger.info("Payment receipt email sent to: {}", user.getEmail());
+    }
+    
     /**
      * Send booking reminder email
      * Triggered 24 hours before flight departure
@@ -217,18 +239,7 @@ public class NotificationService {
             Booking booking = bookingRepository.findById(bookingId)
                     .orElseThrow(() -> new RuntimeException("Booking not found: " + bookingId));
             
-            // Create notification entity
-            com.flightbooking.entity.Notification notification = new com.flightbooking.entity.Notification();
-            notification.setId(java.util.UUID.randomUUID().toString());
-            notification.setBookingId(bookingId);
-            notification.setChannel("ADMIN_PANEL");
-            notification.setRecipient("ADMIN");
-            notification.setContent("Đơn đặt vé mới " + booking.getBookingCode() + " đang chờ duyệt thanh toán. Vui lòng kiểm tra và duyệt đơn hàng.");
-            
-            // Save notification
-            notificationRepository.save(notification);
-            
-            logger.info("Admin approval notification created for booking: {}", bookingId);
+            createAdminApprovalNotification(booking);
             
         } catch (Exception e) {
             logger.error("Failed to create admin approval notification for booking: {}, error: {}", 
@@ -237,18 +248,33 @@ public class NotificationService {
         }
     }
     
+    /**
+     * Create admin approval notification for a booking already loaded by the caller
+     * Exceptions are propagated (the outbox relay retries them)
+     */
+    public void createAdminApprovalNotification(Booking booking) {
+        String bookingId = booking.getId();
+        
+        // Create notification entity
+        com.flightbooking.entity.Notification notification = new com.flightbooking.entity.Notification();
+        notification.setId(java.util.UUID.randomUUID().toString());
+        notification.setBookingId(bookingId);
+        notification.setChannel("ADMIN_PANEL");
+        notification.setRecipient("ADMIN");
+        notification.setContent("Đơn đặt vé mới " + booking.getBookingCode() + " đang chờ duyệt thanh toán. Vui lòng kiểm tra và duyệt đơn hàng.");
+        
+        // Save notification
+        notificationRepository.save(notification);
+        
+        eventPublisher.publishEvent(new ApprovalRequestedEvent(bookingId, booking.getBookingCode()));
+        
+        logger.info("Admin approval notification created for booking: {}", bookingId);
+    }
+    
     /**
      * Format currency amount
      */
     private String formatCurrency(java.math.BigDecimal amount, String currency) {
-        if (amount == null) return "0";
-        
-        if ("VND".equals(currency)) {
-            return String.format("%,d VND", amount.longValue());
-        } else if ("USD".equals(currency)) {
-            return String.format("$%.2f", amount.doubleValue());
-        } else {
-            return amount.toString() + " " + currency;
-        }
+        return CurrencyFormatter.format(amount, currency);
     }
 }
@@ -0,0 +1,256 @@
+package com.flightbooking.service;
+
+import com.flightbooking.entity.Booking;
+import com.flightbooking.entity.OutboxEvent;
+import com.flightbooking.entity.Payment;
+import com.flightbooking.entity.User;
+import com.flightbooking.repository.BookingRepository;
+import com.flightbooking.repository.OutboxEventRepository;
+import com.flightbooking.repository.PaymentRepository;
+import com.flightbooking.repository.TicketRepository;
+import com.flightbooking.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outbox Relay
+ *
+ * Drains outbox_events in batches and runs each side effect:
+ * - ISSUE_TICKET: issue the ticket for a confirmed booking
+ * - BOOKING_CONFIRMATION_EMAIL / PAYMENT_RECEIPT_EMAIL: one email per event, so a
+ *   retry never resends an email that already went out
+ * - ADMIN_APPROVAL_NOTIFICATION: admin panel notification
+ *
+ * Each event runs in its own transaction; failures are retried with exponential
+ * backoff and marked FAILED after max-attempts. Batches are claimed with
+ * SKIP LOCKED, so several nodes can relay at the same time.
+ *
+ * Metrics: outbox.processed / outbox.retried / outbox.failed (counters)
+ */
+@Service
+public class OutboxRelay {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    
+    private static final int MAX_ERROR_LENGTH = 2000;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private TicketService ticketService;
+    
+    @Autowired
+    private NotificationService notificationService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${outbox.relay.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+    
+    @Value("${outbox.relay.max-attempts:8}")
+    private int maxAttempts;
+    
+    @Value("${outbox.relay.retry-backoff-seconds:5}")
+    private long retryBackoffSeconds;
+    
+    /**
+     * How long a claimed batch belongs to this node before another relay may take it
+     */
+    @Value("${outbox.relay.claim-timeout-seconds:300}")
+    private long claimTimeoutSeconds;
+    
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private Counter processedCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        processedCounter = meterRegistry.counter("outbox.processed");
+        retriedCounter = meterRegistry.counter("outbox.retried");
+        failedCounter = meterRegistry.counter("outbox.failed");
+    }
+    
+    /**
+     * Run pending side effects
+     * Runs every second (poll-interval-ms), batch after batch until the outbox is drained
+     *
+     * @return Number of events processed successfully
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:1000}")
+    public int relay() {
+        int processed = 0;
+        
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> ids = transactionTemplate.execute(status -> 
+                    outboxEventRepository.claimBatch(now, now.plusSeconds(claimTimeoutSeconds), batchSize));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            
+            List<OutboxEvent> events = outboxEventRepository.findAllById(ids);
+            events.sort(Comparator.comparing(OutboxEvent::getCreatedAt));
+            for (OutboxEvent event : events) {
+                if (process(event)) {
+                    processed++;
+                }
+            }
+            
+            if (ids.size() < batchSize) {
+                break; // outbox drained
+            }
+        }
+        
+        if (processed > 0) {
+            logger.debug("Outbox relay processed {} events", processed);
+        }
+        return processed;
+    }
+    
+    private boolean process(OutboxEvent event) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                handle(event);
+                outboxEventRepository.markDone(event.getId(), LocalDateTime.now());
+            });
+            processedCounter.increment();
+            return true;
+        } catch (Exception e) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> scheduleRetry(event, e));
+            } catch (Exception ex) {
+                // Claim expires and the event is picked up again
+                logger.error("Failed to record outbox failure for event {}: {}", event.getId(), ex.getMessage());
+            }
+            return false;
+        }
+    }
+    
+    private void handle(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case OutboxService.ISSUE_TICKET -> issueTicket(event.getAggregateId());
+            case OutboxService.BOOKING_CONFIRMATION_EMAIL -> sendPaymentEmails(event.getAggregateId(), true, false);
+            case OutboxService.PAYMENT_RECEIPT_EMAIL -> sendPaymentEmails(event.getAggregateId(), false, true);
+            case OutboxService.PAYMENT_EMAILS -> sendPaymentEmails(event.getAggregateId(), true, true);
+            case OutboxService.ADMIN_APPROVAL_NOTIFICATION -> 
+                    notificationService.createAdminApprovalNotification(loadBooking(event.getAggregateId()));
+            default -> throw new IllegalStateException("Unknown outbox event type: " + event.getEventType());
+        }
+    }
+    
+    private void issueTicket(String bookingId) {
+        // Retries must not fail on work already done
+        Booking booking = loadBooking(bookingId);
+        if (!"CONFIRMED".equals(booking.getStatus()) || !ticketRepository.findByBookingId(bookingId).isEmpty()) {
+            logger.debug("Skipping ticket issue for booking {} (status {})", bookingId, booking.getStatus());
+            return;
+        }
+        ticketService.issueTicket(bookingId);
+        logger.info("✅ Ticket created automatically for booking {}", bookingId);
+    }
+    
+    private void sendPaymentEmails(String paymentId, boolean confirmation, boolean receipt) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalStateException("Payment not found: " + paymentId));
+        Booking booking = loadBooking(payment.getBookingId());
+        User user = userRepository.findById(booking.getUserId())
+                .orElseThrow(() -> new IllegalStateException("User not found: " + booking.getUserId()));
+        
+        if (confirmation) {
+            notificationService.sendBookingConfirmationEmail(booking, user);
+        }
+        if (receipt) {
+            notificationService.sendPaymentReceiptEmail(payment, booking, user);
+        }
+    }
+    
+    private Booking loadBooking(String bookingId) {
+        return bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new IllegalStateException("Booking not found: " + bookingId));
+    }
+    
+    private void scheduleRetry(OutboxEvent event, Exception error) {
+        OutboxEvent current = outboxEventRepository.findById(event.getId()).orElse(null);
+        if (current == null) {
+            return;
+        }
+        
+        int attempts = (current.getAttempts() != null ? current.getAttempts() : 0) + 1;
+        current.setAttempts(attempts);
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        current.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        
+        if (attempts >= maxAttempts) {
+            current.setStatus("FAILED");
+            failedCounter.increment();
+            logger.error("Giving up on outbox event {} ({} for {}) after {} attempts: {}",
+                    current.getId(), current.getEventType(), current.getAggregateId(), attempts, message);
+        } else {
+            // Exponential backoff: backoff, 2x backoff, 4x backoff, ...
+            long delaySeconds = retryBackoffSeconds << (attempts - 1);
+            current.setStatus("PENDING");
+            current.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+            retriedCounter.increment();
+            logger.warn("Outbox event {} ({} for {}) failed (attempt {}/{}), retrying in {} s: {}",
+                    current.getId(), current.getEventType(), current.getAggregateId(), 
+                    attempts, maxAttempts, delaySeconds, message);
+        }
+        outboxEventRepository.save(current);
+    }
+    
+    /**
+     * Delete processed events older than retention-days
+     * Runs daily at 04:00 (FAILED events are kept for inspection)
+     */
+    @Scheduled(cron = "0 0 4 * * *")
+    public void purgeProcessed() {
+        try {
+            Integer removed = transactionTemplate.execute(status -> 
+                    outboxEventRepository.deleteDoneBefore(LocalDateTime.now().minusDays(retentionDays)));
+            if (removed != null && removed > 0) {
+                logger.info("Purged {} processed outbox events", removed);
+            }
+        } catch (Exception e) {
+            logger.error("Error purging outbox events: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.flightbooking.service;
+
+import com.flightbooking.entity.OutboxEvent;
+import com.flightbooking.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox Service
+ *
+ * Records side effects in the outbox_events table inside the caller's transaction:
+ * - The side effect is stored only if the business change commits
+ * - OutboxRelay runs it afterwards, with retries
+ */
+@Service
+public class OutboxService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+    
+    public static final String ISSUE_TICKET = "ISSUE_TICKET";               // aggregate = booking ID
+    public static final String BOOKING_CONFIRMATION_EMAIL = "BOOKING_CONFIRMATION_EMAIL"; // aggregate = payment ID
+    public static final String PAYMENT_RECEIPT_EMAIL = "PAYMENT_RECEIPT_EMAIL";  // aggregate = payment ID
+    /**
+     * Both emails in one event; no longer published, still relayed for events stored before the split
+     */
+    public static final String PAYMENT_EMAILS = "PAYMENT_EMAILS";           // aggregate = payment ID
+    public static final String ADMIN_APPROVAL_NOTIFICATION = "ADMIN_APPROVAL_NOTIFICATION"; // aggregate = booking ID
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    /**
+     * Add an event to the outbox (must run inside the business transaction)
+     *
+     * @param eventType ISSUE_TICKET, BOOKING_CONFIRMATION_EMAIL, PAYMENT_RECEIPT_EMAIL or ADMIN_APPROVAL_NOTIFICATION
+     * @param aggregateId Booking ID or payment ID, depending on event type
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, String aggregateId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(UUID.randomUUID().toString());
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setStatus("PENDING");
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+        
+        logger.debug("Outbox event {} recorded for {}", eventType, aggregateId);
+    }
+}
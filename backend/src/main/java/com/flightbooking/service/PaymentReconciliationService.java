@@ -0,0 +1,267 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.ReconciliationResultDTO;
+import com.flightbooking.repository.PaymentRepository;
+import com.flightbooking.repository.PaymentRepository.ReconciliationRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Payment Reconciliation Service
+ *
+ * Compares a provider settlement file with the payments table in constant memory:
+ * - The settlement CSV is read line by line
+ *   (columns: payment_id, amount, currency[, status]; sorted by payment_id)
+ * - Payments are streamed in ID order through a database cursor
+ * - Both sides are merge-joined on payment ID; only the current row of each
+ *   side is held in memory
+ * - Mismatches are written to a CSV report as they are found
+ *
+ * Mismatch types:
+ * - NOT_SETTLED: successful payment missing from the settlement file
+ * - UNKNOWN_PAYMENT: settled payment that does not exist (for this provider/period)
+ * - AMOUNT_MISMATCH / CURRENCY_MISMATCH / STATUS_MISMATCH
+ * - DUPLICATE_SETTLEMENT: payment ID listed more than once
+ */
+@Service
+public class PaymentReconciliationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationService.class);
+    
+    private static final String REPORT_HEADER =
+        "mismatch_type,payment_id,db_amount,settled_amount,db_currency,settled_currency,db_status,settled_status";
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    /**
+     * Reconcile one settlement file
+     *
+     * @param settlementFile Provider settlement CSV, sorted by payment_id (byte order)
+     * @param provider Payment method the file belongs to (STRIPE, VNPAY, MOMO, ...)
+     * @param from Start of the settlement period (payments created at or after)
+     * @param to End of the settlement period (payments created before)
+     * @param reportFile Where to write the mismatches (CSV)
+     * @return Summary counts
+     * @throws IllegalStateException if the settlement file is malformed or not sorted
+     */
+    @Transactional(readOnly = true)
+    public ReconciliationResultDTO reconcile(Path settlementFile, String provider,
+                                             LocalDateTime from, LocalDateTime to, Path reportFile) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        logger.info("Reconciling {} ({}) against payments created {} - {}", settlementFile, provider, from, to);
+        
+        MergeCounts counts = new MergeCounts();
+        try (BufferedReader reader = Files.newBufferedReader(settlementFile, StandardCharsets.UTF_8);
+             BufferedWriter report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+             Stream<ReconciliationRow> payments = paymentRepository.streamForReconciliation(provider, from, to)) {
+            
+            report.write(REPORT_HEADER);
+            report.newLine();
+            mergeJoin(new SettlementReader(reader), payments.iterator(), report, counts);
+        
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reconciliation failed for " + settlementFile, e);
+        }
+        
+        logger.info("Reconciliation of {} done: {} settlement rows, {} payments, {} matched, {} mismatches",
+            settlementFile.getFileName(), counts.settlementRows, counts.paymentRows, counts.matched, counts.mismatches);
+        
+        return ReconciliationResultDTO.builder()
+                .settlementFile(settlementFile.toString())
+                .reportFile(reportFile.toString())
+                .provider(provider)
+                .settlementRows(counts.settlementRows)
+                .paymentRows(counts.paymentRows)
+                .matched(counts.matched)
+                .mismatches(counts.mismatches)
+                .startedAt(startedAt)
+                .completedAt(LocalDateTime.now())
+                .build();
+    }
+    
+    private void mergeJoin(SettlementReader settlements, Iterator<ReconciliationRow> payments,
+                           BufferedWriter report, MergeCounts counts) throws IOException {
+        SettlementRow settled = settlements.next();
+        ReconciliationRow payment = payments.hasNext() ? payments.next() : null;
+        String previousSettledId = null;
+        
+        while (settled != null || payment != null) {
+            if (settled != null && settled.paymentId().equals(previousSettledId)) {
+                writeMismatch(report, counts, "DUPLICATE_SETTLEMENT", settled.paymentId(), null, settled);
+                settled = settlements.next();
+                continue;
+            }
+            
+            int cmp;
+            if (settled == null) {
+                cmp = 1;
+            } else if (payment == null) {
+                cmp = -1;
+            } else {
+                cmp = settled.paymentId().compareTo(payment.getId());
+            }
+            
+            if (cmp < 0) {
+                // In the file, not in the database
+                writeMismatch(report, counts, "UNKNOWN_PAYMENT", settled.paymentId(), null, settled);
+                previousSettledId = settled.paymentId();
+                settled = settlements.next();
+            } else if (cmp > 0) {
+                // In the database, not in the file
+                counts.paymentRows++;
+                if ("SUCCESS".equals(payment.getStatus())) {
+                    writeMismatch(report, counts, "NOT_SETTLED", payment.getId(), payment, null);
+                }
+                payment = payments.hasNext() ? payments.next() : null;
+            } else {
+                counts.paymentRows++;
+                compare(report, counts, payment, settled);
+                previousSettledId = settled.paymentId();
+                settled = settlements.next();
+                payment = payments.hasNext() ? payments.next() : null;
+            }
+        }
+        counts.settlementRows = settlements.rowCount;
+    }
+    
+    private void compare(BufferedWriter report, MergeCounts counts,
+                         ReconciliationRow payment, SettlementRow settled) throws IOException {
+        if (payment.getAmount() == null || payment.getAmount().compareTo(settled.amount()) != 0) {
+            writeMismatch(report, counts, "AMOUNT_MISMATCH", payment.getId(), payment, settled);
+        } else if (!settled.currency().equalsIgnoreCase(payment.getCurrency())) {
+            writeMismatch(report, counts, "CURRENCY_MISMATCH", payment.getId(), payment, settled);
+        } else if (!expectedStatus(settled.status()).equals(payment.getStatus())) {
+            writeMismatch(report, counts, "STATUS_MISMATCH", payment.getId(), payment, settled);
+        } else {
+            counts.matched++;
+        }
+    }
+    
+    /**
+     * Payment status expected for a settlement status (no status column = settled charge)
+     */
+    private String expectedStatus(String settledStatus) {
+        if (settledStatus != null && settledStatus.toUpperCase().startsWith("REFUND")) {
+            return "REFUNDED";
+        }
+        return "SUCCESS";
+    }
+    
+    private void writeMismatch(BufferedWriter report, MergeCounts counts, String type, String paymentId,
+                               ReconciliationRow payment, SettlementRow settled) throws IOException {
+        counts.mismatches++;
+        report.write(String.join(",",
+            type,
+            paymentId,
+            payment != null && payment.getAmount() != null ? payment.getAmount().toPlainString() : "",
+            settled != null ? settled.amount().toPlainString() : "",
+            payment != null && payment.getCurrency() != null ? payment.getCurrency() : "",
+            settled != null ? settled.currency() : "",
+            payment != null && payment.getStatus() != null ? payment.getStatus() : "",
+            settled != null && settled.status() != null ? settled.status() : ""));
+        report.newLine();
+    }
+    
+    private record SettlementRow(String paymentId, BigDecimal amount, String currency, String status) {
+    }
+    
+    private static final class MergeCounts {
+        private long settlementRows;
+        private long paymentRows;
+        private long matched;
+        private long mismatches;
+    }
+    
+    /**
+     * Reads settlement rows one at a time and checks they are sorted by payment_id
+     */
+    private static final class SettlementReader {
+        private final BufferedReader reader;
+        private final int idColumn;
+        private final int amountColumn;
+        private final int currencyColumn;
+        private final int statusColumn;
+        private long lineNumber = 1;
+        private long rowCount;
+        private String lastId;
+        
+        private SettlementReader(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalStateException("Settlement file is empty");
+            }
+            
+            Map<String, Integer> columns = new HashMap<>();
+            String[] names = header.split(",", -1);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(), i);
+            }
+            idColumn = requireColumn(columns, "payment_id");
+            amountColumn = requireColumn(columns, "amount");
+            currencyColumn = requireColumn(columns, "currency");
+            statusColumn = columns.getOrDefault("status", -1);
+        }
+        
+        private static int requireColumn(Map<String, Integer> columns, String name) {
+            Integer index = columns.get(name);
+            if (index == null) {
+                throw new IllegalStateException("Settlement file has no '" + name + "' column");
+            }
+            return index;
+        }
+        
+        private SettlementRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            
+            String[] fields = line.split(",", -1);
+            String paymentId = field(fields, idColumn);
+            if (lastId != null && paymentId.compareTo(lastId) < 0) {
+                throw new IllegalStateException("Settlement file is not sorted by payment_id at line " + lineNumber);
+            }
+            lastId = paymentId;
+            rowCount++;
+            
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(field(fields, amountColumn));
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Invalid amount at line " + lineNumber);
+            }
+            String status = statusColumn >= 0 ? field(fields, statusColumn) : null;
+            return new SettlementRow(paymentId, amount, field(fields, currencyColumn), status);
+        }
+        
+        private String field(String[] fields, int index) {
+            if (index >= fields.length) {
+                throw new IllegalStateException("Missing column " + (index + 1) + " at line " + lineNumber);
+            }
+            return fields[index].trim();
+        }
+    }
+}
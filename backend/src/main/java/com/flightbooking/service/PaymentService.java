@@ -4,6 +4,8 @@ import com.flightbooking.dto.PaymentCreateRequest;
 import com.flightbooking.dto.PaymentResponse;
 import com.flightbooking.entity.Booking;
 import com.flightbooking.entity.Payment;
+import com.flightbooking.event.BookingStatusChangedEvent;
+import com.flightbooking.event.PaymentStatusChangedEvent;
 import com.flightbooking.exception.BusinessException;
 import com.flightbooking.exception.PaymentFailedException;
 import com.flightbooking.exception.ResourceNotFoundException;
@@ -14,6 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,7 +45,7 @@ public class PaymentService {
     private BookingRepository bookingRepository;
     
     @Autowired
-    private NotificationService notificationService;
+    private OutboxService outboxService;
     
     @Autowired
     private com.flightbooking.service.SeatSelectionService seatSelectionService;
@@ -54,7 +57,7 @@ public class PaymentService {
     private com.flightbooking.service.BookingService bookingService;
     
     @Autowired
-    private com.flightbooking.service.TicketService ticketService;
+    private ApplicationEventPublisher eventPublisher;
     
     /**
      * Stripe Secret Key (sk_test_... or sk_live_...)
@@ -163,20 +166,18 @@ public class PaymentService {
             payment.setCreatedAt(java.time.LocalDateTime.now());
             
             payment = paymentRepository.save(payment);
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(
+                    payment.getId(), payment.getBookingId(), null, "PENDING", payment.getAmount()));
             
             // Update booking status to PENDING_PAYMENT
+            String previousStatus = booking.getStatus();
             booking.setStatus("PENDING_PAYMENT");
             bookingRepository.save(booking);
+            eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                    booking.getId(), previousStatus, "PENDING_PAYMENT", booking.getTotalAmount()));
             
-            // Send notification to admin for approval
-            try {
-                notificationService.createAdminApprovalNotification(booking.getId());
-                logger.info("Admin approval notification sent for booking: {}", booking.getId());
-            } catch (Exception e) {
-                logger.error("Failed to send admin notification for booking {}: {}", 
-                    booking.getId(), e.getMessage());
-                // Don't fail payment creation if notification fails
-            }
+            // Notify admin for approval (after commit, via outbox)
+            outboxService.publish(OutboxService.ADMIN_APPROVAL_NOTIFICATION, booking.getId());
             
             logger.info("Payment created successfully (pending admin approval): {}", payment.getId());
             
@@ -246,18 +247,30 @@ public class PaymentService {
     /**
      * Update payment status
      * Called by webhook handler
+     * 
+     * Ticket issue, emails and admin notification are written to the outbox
+     * in this transaction and run by OutboxRelay after commit
      */
     @Transactional
     public void updatePaymentStatus(String paymentId, String status, String failureReason) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found with ID: " + paymentId));
         
+        // Repeated notifications (provider retries) must not re-run confirmation side effects
+        if (status.equals(payment.getStatus())) {
+            logger.info("Payment {} already has status {}, nothing to update", paymentId, status);
+            return;
+        }
+        
+        String previousPaymentStatus = payment.getStatus();
         payment.setStatus(status);
         if (failureReason != null) {
             payment.setFailureReason(failureReason);
         }
         
         paymentRepository.save(payment);
+        eventPublisher.publishEvent(new PaymentStatusChangedEvent(
+                payment.getId(), payment.getBookingId(), previousPaymentStatus, status, payment.getAmount()));
         
         // Update booking status if payment successful
         if ("SUCCESS".equals(status)) {
@@ -265,6 +278,7 @@ public class PaymentService {
             if (booking != null) {
                 // ✅ STANDARD FLOW: Auto-confirm booking after successful payment
                 // Check if seats are still available before confirming
+                String previousStatus = booking.getStatus();
                 try {
                     // Confirm seat selections first
                     seatSelectionService.confirmSeatSelectionsForBooking(booking.getId());
@@ -277,15 +291,8 @@ public class PaymentService {
                     bookingRepository.save(booking);
                     logger.info("✅ Booking {} auto-confirmed after successful payment", booking.getId());
                     
-                    // Create ticket automatically after confirmation
-                    try {
-                        ticketService.issueTicket(booking.getId());
-                        logger.info("✅ Ticket created automatically for booking {}", booking.getId());
-                    } catch (Exception e) {
-                        logger.error("Failed to create ticket automatically: {}", e.getMessage());
-                        // Ticket creation failure shouldn't fail the payment confirmation
-                        // Ticket might already exist or booking might not be in correct state
-                    }
+                    // Create ticket automatically after confirmation (after commit, via outbox)
+                    outboxService.publish(OutboxService.ISSUE_TICKET, booking.getId());
                     
                 } catch (Exception e) {
                     logger.error("Failed to confirm booking after payment: {}", e.getMessage(), e);
@@ -294,26 +301,18 @@ public class PaymentService {
                     bookingRepository.save(booking);
                     
                     // Create notification for admin to review
-                    try {
-                        notificationService.createAdminApprovalNotification(booking.getId());
-                    } catch (Exception ex) {
-                        logger.error("Failed to create admin approval notification: {}", ex.getMessage());
-                    }
+                    outboxService.publish(OutboxService.ADMIN_APPROVAL_NOTIFICATION, booking.getId());
                 }
                 
-                // Send booking confirmation email
-                try {
-                    notificationService.sendBookingConfirmationEmail(booking.getId());
-                } catch (Exception e) {
-                    logger.error("Failed to send booking confirmation email: {}", e.getMessage());
+                // Published once the outcome is known (CONFIRMED, or PENDING_PAYMENT on the fallback path)
+                if (!booking.getStatus().equals(previousStatus)) {
+                    eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                            booking.getId(), previousStatus, booking.getStatus(), booking.getTotalAmount()));
                 }
                 
-                // Send payment receipt email
-                try {
-                    notificationService.sendPaymentReceiptEmail(payment.getId(), payment);
-                } catch (Exception e) {
-                    logger.error("Failed to send payment receipt email: {}", e.getMessage());
-                }
+                // Booking confirmation + payment receipt emails (one event each, retried independently)
+                outboxService.publish(OutboxService.BOOKING_CONFIRMATION_EMAIL, payment.getId());
+                outboxService.publish(OutboxService.PAYMENT_RECEIPT_EMAIL, payment.getId());
             }
         }
     }
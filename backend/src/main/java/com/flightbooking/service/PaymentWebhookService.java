@@ -1,60 +1,337 @@
 package com.flightbooking.service;
 
-import com.flightbooking.dto.PaymentWebhookDTO;
-import com.flightbooking.entity.Payment;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flightbooking.entity.PaymentWebhook;
-import com.flightbooking.repository.PaymentRepository;
 import com.flightbooking.repository.PaymentWebhookRepository;
+import com.flightbooking.util.ExpiringCache;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Payment Webhook Service
+ *
+ * Webhook ingestion is store-and-ack:
+ * - The raw payload is stored (status RECEIVED) and the provider gets its 200 right away
+ * - Duplicates (provider retries) are dropped by provider event ID: a bounded
+ *   recent-ID cache answers most of them without a query, the unique index
+ *   (provider, event_id) catches the rest
+ * - Stored webhooks are processed by WebhookDispatcher, in order per payment
+ * - Webhooks that could not be queued are picked up by a recovery sweep every minute,
+ *   as are webhooks claimed (PROCESSING) longer than processing-timeout-minutes ago
+ *   by a worker that never recorded an outcome (crash, shutdownNow)
+ *
+ * Metrics: payment.webhook.received / payment.webhook.duplicate (counters)
+ */
 @Service
 public class PaymentWebhookService {
     
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookService.class);
+    
+    public static final String STATUS_RECEIVED = "RECEIVED";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_PROCESSED = "PROCESSED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_IGNORED = "IGNORED";
+    
+    private static final int MAX_ERROR_LENGTH = 2000;
+    
+    /**
+     * Payload fields tried, in order, for the provider event ID
+     */
+    private static final List<String> EVENT_ID_FIELDS =
+            List.of("eventId", "event_id", "id", "requestId", "transactionId", "vnp_TxnRef", "app_trans_id");
+    
+    /**
+     * Payload fields tried, in order, for our payment ID
+     */
+    private static final List<String> PAYMENT_ID_FIELDS = List.of("paymentId", "payment_id");
+    
     @Autowired
     private PaymentWebhookRepository paymentWebhookRepository;
     
     @Autowired
-    private PaymentRepository paymentRepository;
+    private PaymentService paymentService;
     
     @Autowired
-    private PaymentService paymentService;
+    @Lazy
+    private WebhookDispatcher webhookDispatcher;
     
-    @Transactional
-    public PaymentWebhookDTO processWebhook(String provider, String payload, String signature) {
-        // Save webhook first
-        PaymentWebhook webhook = new PaymentWebhook();
-        webhook.setId(UUID.randomUUID().toString());
-        webhook.setProvider(provider);
-        webhook.setPayload(payload);
-        
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${payment.webhook.dedup-cache-size:10000}")
+    private int dedupCacheSize;
+    
+    @Value("${payment.webhook.dedup-cache-ttl-minutes:60}")
+    private long dedupCacheTtlMinutes;
+    
+    @Value("${payment.webhook.recovery-batch-size:500}")
+    private int recoveryBatchSize;
+    
+    /**
+     * A PROCESSING webhook claimed longer ago than this is considered abandoned
+     */
+    @Value("${payment.webhook.processing-timeout-minutes:10}")
+    private long processingTimeoutMinutes;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    /**
+     * provider:eventId of recently stored webhooks (bounded, lock-free; the unique
+     * constraint still catches duplicates that fell out of it)
+     */
+    private ExpiringCache<String, Boolean> recentEventIds;
+    
+    private Counter receivedCounter;
+    private Counter duplicateCounter;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        recentEventIds = new ExpiringCache<>(dedupCacheSize, Duration.ofMinutes(dedupCacheTtlMinutes));
+        receivedCounter = meterRegistry.counter("payment.webhook.received");
+        duplicateCounter = meterRegistry.counter("payment.webhook.duplicate");
+    }
+    
+    /**
+     * Store a VNPay / ZaloPay / MoMo webhook and queue it for processing
+     *
+     * @return true if stored, false if it was a duplicate
+     */
+    public boolean processWebhook(String provider, String payload, String signature) {
         // Verify signature (simplified - in production, implement proper signature verification)
         boolean verified = verifySignature(provider, payload, signature);
-        webhook.setVerified(verified);
         
-        webhook = paymentWebhookRepository.save(webhook);
+        JsonNode root = parsePayload(payload);
+        String paymentId = verified ? firstField(root, PAYMENT_ID_FIELDS) : null;
+        
+        return ingest(provider, extractEventId(root, payload), null, payload, verified, paymentId);
+    }
+    
+    /**
+     * Store a Stripe event (signature already verified by the controller) and queue it for processing
+     *
+     * @return true if stored, false if it was a duplicate
+     */
+    public boolean receiveStripeEvent(Event event, String payload) {
+        return ingest("STRIPE", event.getId(), event.getType(), payload, true, null);
+    }
+    
+    private boolean ingest(String provider, String eventId, String eventType,
+                           String payload, boolean verified, String paymentId) {
+        String dedupKey = provider + ":" + eventId;
+        if (recentEventIds.containsKey(dedupKey)) {
+            duplicateCounter.increment();
+            logger.debug("Duplicate {} webhook ignored (cache): {}", provider, eventId);
+            return false;
+        }
+        
+        String webhookId = UUID.randomUUID().toString();
+        Integer inserted = transactionTemplate.execute(status -> paymentWebhookRepository.insertIfAbsent(
+                webhookId, paymentId, provider, eventId, eventType, payload, verified, LocalDateTime.now()));
+        recentEventIds.put(dedupKey, Boolean.TRUE);
+        
+        if (inserted == null || inserted == 0) {
+            duplicateCounter.increment();
+            logger.debug("Duplicate {} webhook ignored (database): {}", provider, eventId);
+            return false;
+        }
+        
+        receivedCounter.increment();
+        logger.info("{} webhook {} stored as {}", provider, eventId, webhookId);
+        webhookDispatcher.dispatch(webhookId, paymentId != null ? paymentId : eventId);
+        return true;
+    }
+    
+    /**
+     * Process one stored webhook (runs on a WebhookDispatcher worker)
+     * Never throws: the outcome is recorded on the webhook row
+     */
+    public void handleStoredWebhook(String webhookId) {
+        // Truncated to the column precision: the claim time identifies our claim in markProcessed
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Integer claimed = transactionTemplate.execute(status -> paymentWebhookRepository.claim(
+                webhookId, claimedAt, claimedAt.minusMinutes(processingTimeoutMinutes)));
+        if (claimed == null || claimed == 0) {
+            return; // already processed or being processed (recovery sweep and live dispatch raced)
+        }
+        
+        String outcome;
+        String error = null;
+        try {
+            PaymentWebhook webhook = paymentWebhookRepository.findById(webhookId)
+                    .orElseThrow(() -> new IllegalStateException("Webhook not found: " + webhookId));
+            outcome = "STRIPE".equals(webhook.getProvider())
+                    ? handleStripeEvent(webhook)
+                    : handleProviderWebhook(webhook);
+        } catch (Exception e) {
+            logger.error("Error processing webhook {}: {}", webhookId, e.getMessage(), e);
+            outcome = STATUS_FAILED;
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            error = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+        }
         
-        if (verified) {
-            // Parse payload and update payment status
-            // This is simplified - in production, parse JSON and extract payment info
-            String paymentId = extractPaymentIdFromPayload(payload);
-            if (paymentId != null) {
-                webhook.setPaymentId(paymentId);
-                paymentWebhookRepository.save(webhook);
-                
-                // Update payment status based on webhook
-                String status = extractStatusFromPayload(payload);
-                if (status != null) {
-                    // Pass null for failureReason (can be enhanced to extract from payload)
-                    paymentService.updatePaymentStatus(paymentId, status, null);
-                }
+        String finalOutcome = outcome;
+        String finalError = error;
+        Integer marked = transactionTemplate.execute(status -> paymentWebhookRepository.markProcessed(
+                webhookId, claimedAt, finalOutcome, finalError, LocalDateTime.now()));
+        if (marked == null || marked == 0) {
+            logger.warn("Webhook {} was taken over after its claim timed out, outcome {} not recorded", webhookId, finalOutcome);
+        }
+    }
+    
+    private String handleProviderWebhook(PaymentWebhook webhook) {
+        if (!Boolean.TRUE.equals(webhook.getVerified()) || webhook.getPaymentId() == null) {
+            return STATUS_IGNORED;
+        }
+        
+        // Update payment status based on webhook
+        String status = extractStatusFromPayload(webhook.getPayload());
+        if (status == null) {
+            return STATUS_IGNORED;
+        }
+        
+        // Pass null for failureReason (can be enhanced to extract from payload)
+        paymentService.updatePaymentStatus(webhook.getPaymentId(), status, null);
+        return STATUS_PROCESSED;
+    }
+    
+    /**
+     * Hand webhooks that never reached a worker, or whose worker never finished,
+     * to the dispatcher again (the dispatcher skips webhooks it still has queued,
+     * so a backlog is not queued a second time every minute)
+     * Runs every minute
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void requeueUnprocessed() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentWebhook> pending = new ArrayList<>(paymentWebhookRepository.findByStatusAndReceivedAtBeforeOrderByReceivedAt(
+                STATUS_RECEIVED, now.minusMinutes(1), PageRequest.of(0, recoveryBatchSize)));
+        List<PaymentWebhook> abandoned = paymentWebhookRepository.findByStatusAndClaimedAtBeforeOrderByClaimedAt(
+                STATUS_PROCESSING, now.minusMinutes(processingTimeoutMinutes), PageRequest.of(0, recoveryBatchSize));
+        if (!abandoned.isEmpty()) {
+            logger.warn("Re-claiming {} payment webhooks stuck in PROCESSING", abandoned.size());
+            pending.addAll(abandoned);
+        }
+        
+        int requeued = 0;
+        for (PaymentWebhook webhook : pending) {
+            String orderingKey = webhook.getPaymentId() != null ? webhook.getPaymentId() : webhook.getEventId();
+            if (!webhookDispatcher.dispatch(webhook.getId(), orderingKey)) {
+                break; // still full, try next run
             }
+            requeued++;
+        }
+        
+        if (requeued > 0) {
+            logger.info("Requeued {} unprocessed payment webhooks", requeued);
+        }
+    }
+    
+    private String handleStripeEvent(PaymentWebhook webhook) {
+        Event event = Event.GSON.fromJson(webhook.getPayload(), Event.class);
+        
+        // Handle different event types
+        switch (event.getType()) {
+            case "checkout.session.completed":
+                handleCheckoutSessionCompleted(event);
+                return STATUS_PROCESSED;
+            
+            case "payment_intent.succeeded":
+                handlePaymentIntentSucceeded(event);
+                return STATUS_PROCESSED;
+            
+            case "payment_intent.payment_failed":
+                handlePaymentIntentFailed(event);
+                return STATUS_PROCESSED;
+            
+            default:
+                logger.info("Unhandled Stripe event type: {}", event.getType());
+                return STATUS_IGNORED;
+        }
+    }
+    
+    /**
+     * Handle checkout.session.completed event
+     * Triggered when customer successfully completes payment
+     */
+    private void handleCheckoutSessionCompleted(Event event) {
+        EventDataObjectDeserializer dataObjectDeserializer = event.getDataObjectDeserializer();
+        StripeObject stripeObject;
+        
+        if (dataObjectDeserializer.getObject().isPresent()) {
+            stripeObject = dataObjectDeserializer.getObject().get();
+        } else {
+            logger.error("Failed to deserialize Stripe object");
+            return;
         }
         
-        return convertToDTO(webhook);
+        if (stripeObject instanceof Session) {
+            Session session = (Session) stripeObject;
+            String bookingId = session.getMetadata().get("booking_id");
+            String paymentIntentId = session.getPaymentIntent();
+            
+            logger.info("Checkout session completed for booking: {}", bookingId);
+            logger.info("Payment Intent ID: {}", paymentIntentId);
+            
+            // Find payment by transaction ID (session ID) or payment intent ID
+            // Update payment status to SUCCESS
+            // This will trigger booking confirmation in PaymentService
+            // For now, we'll log this
+            // In production, update payment status here
+            logger.info("Payment successful for booking: {}", bookingId);
+            // paymentService.updatePaymentStatus(paymentId, "SUCCESS", null);
+        }
+    }
+    
+    /**
+     * Handle payment_intent.succeeded event
+     */
+    private void handlePaymentIntentSucceeded(Event event) {
+        logger.info("Payment Intent succeeded");
+        // Additional logic if needed
+    }
+    
+    /**
+     * Handle payment_intent.payment_failed event
+     */
+    private void handlePaymentIntentFailed(Event event) {
+        logger.info("Payment Intent failed");
+        // Update payment status to FAILED
+        // Optionally notify user
     }
     
     private boolean verifySignature(String provider, String payload, String signature) {
@@ -67,16 +344,52 @@ public class PaymentWebhookService {
         return true;
     }
     
-    private String extractPaymentIdFromPayload(String payload) {
-        // Simplified extraction - in production, parse JSON properly
-        // This is a placeholder
-        if (payload.contains("transactionId")) {
-            // Extract from JSON
-            return "payment-id-from-payload";
+    /**
+     * Payload as JSON, or null if it isn't a JSON object
+     */
+    private JsonNode parsePayload(String payload) {
+        try {
+            JsonNode root = objectMapper.readTree(payload);
+            return root != null && root.isObject() ? root : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Value of the first non-empty field, or null
+     */
+    private String firstField(JsonNode root, List<String> fields) {
+        if (root == null) {
+            return null;
+        }
+        for (String field : fields) {
+            JsonNode value = root.get(field);
+            if (value != null && value.isValueNode() && !value.asText().isEmpty()) {
+                return value.asText();
+            }
         }
         return null;
     }
     
+    /**
+     * Provider event ID from the payload, or a hash of the payload
+     * (a provider retry re-sends the identical payload)
+     */
+    private String extractEventId(JsonNode root, String payload) {
+        String eventId = firstField(root, EVENT_ID_FIELDS);
+        if (eventId != null) {
+            return eventId;
+        }
+        
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
     private String extractStatusFromPayload(String payload) {
         // Simplified extraction - in production, parse JSON properly
         if (payload.contains("success") || payload.contains("00")) {
@@ -86,16 +399,4 @@ public class PaymentWebhookService {
         }
         return null;
     }
-    
-    private PaymentWebhookDTO convertToDTO(PaymentWebhook webhook) {
-        PaymentWebhookDTO dto = new PaymentWebhookDTO();
-        dto.setId(webhook.getId());
-        dto.setPaymentId(webhook.getPaymentId());
-        dto.setProvider(webhook.getProvider());
-        dto.setPayload(webhook.getPayload());
-        dto.setVerified(webhook.getVerified());
-        dto.setReceivedAt(webhook.getReceivedAt());
-        return dto;
-    }
 }
-
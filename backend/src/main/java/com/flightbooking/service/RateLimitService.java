@@ -0,0 +1,140 @@
+package com.flightbooking.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate Limit Service
+ *
+ * In-process token buckets (GCRA form), one per group and subject (e.g. "search" + ":u:<userId>"):
+ * - A bucket is a single AtomicLong, the "theoretical arrival time" of the next request;
+ *   a check is one map lookup plus one CAS - no locks, no allocation for known keys
+ * - A request is allowed if, after adding one emission interval (1 / rate), the
+ *   bucket is no more than burst intervals ahead of now
+ * - A bucket that has fully refilled holds no information and is dropped by the
+ *   periodic sweep, so the map only holds recently active keys
+ * - The map is capped at max-keys: once full, subjects without a bucket share one
+ *   overflow bucket per group until the next sweep frees space (a flood of new keys
+ *   is limited as a whole instead of passing unchecked); the cap never triggers a
+ *   sweep on the request path
+ *
+ * Limits are per node.
+ */
+@Service
+public class RateLimitService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitService.class);
+    
+    /**
+     * Key suffix of a group's overflow bucket (subjects start with ':', so it cannot clash)
+     */
+    private static final String OVERFLOW_KEY = "*overflow";
+    
+    /**
+     * Arrival time of a bucket the sweep has removed; a request holding it looks the key up again
+     */
+    private static final long RETIRED = Long.MIN_VALUE;
+    
+    @Value("${rate-limit.max-keys:100000}")
+    private int maxKeys;
+    
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    
+    /**
+     * Take one token from the subject's bucket in the group
+     *
+     * @param group Endpoint group (e.g. "search")
+     * @param subject Caller within the group (e.g. ":u:<userId>", ":ip:<ip>")
+     * @return 0 if allowed, otherwise nanoseconds until a request would be allowed
+     */
+    public long tryAcquire(String group, String subject, Limit limit) {
+        long now = System.nanoTime();
+        String key = group + subject;
+        while (true) {
+            AtomicLong bucket = bucketFor(group, key, now);
+            long wait = tryAcquire(bucket, limit, now);
+            if (wait >= 0) {
+                return wait;
+            }
+            // Retired by the sweep between lookup and CAS: drop the stale mapping and look again
+            buckets.remove(key, bucket);
+        }
+    }
+    
+    private AtomicLong bucketFor(String group, String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            return buckets.computeIfAbsent(group + OVERFLOW_KEY, k -> new AtomicLong(now));
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+    
+    /**
+     * @return 0 if allowed, nanoseconds to wait if not, -1 if the bucket was retired
+     */
+    private long tryAcquire(AtomicLong bucket, Limit limit, long now) {
+        while (true) {
+            long arrival = bucket.get();
+            if (arrival == RETIRED) {
+                return -1;
+            }
+            long next = Math.max(arrival, now) + limit.intervalNanos();
+            long excess = next - now - limit.toleranceNanos();
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * Drop buckets that have fully refilled (runs every minute by default)
+     *
+     * A bucket is retired with a CAS before it is unmapped, so a request that already
+     * holds it either lands its CAS first (the bucket stays) or sees it retired and
+     * retries against the map - no token is taken from a bucket that is gone.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.forEach((key, bucket) -> {
+            long arrival = bucket.get();
+            if (arrival != RETIRED && arrival - now <= 0 && bucket.compareAndSet(arrival, RETIRED)) {
+                buckets.remove(key, bucket);
+            }
+        });
+        if (before > 0) {
+            logger.debug("Rate limit sweep: {} -> {} buckets", before, buckets.size());
+        }
+    }
+    
+    /**
+     * Sustained rate and burst of one endpoint group
+     *
+     * @param intervalNanos Time to earn one token (1 / rate)
+     * @param toleranceNanos burst * intervalNanos
+     */
+    public record Limit(long intervalNanos, long toleranceNanos) {
+        
+        public static Limit of(double perSecond, int burst) {
+            if (perSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Rate limit needs perSecond > 0 and burst >= 1");
+            }
+            long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+            return new Limit(interval, interval * burst);
+        }
+    }
+}
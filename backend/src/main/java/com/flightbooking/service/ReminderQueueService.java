@@ -0,0 +1,261 @@
+package com.flightbooking.service;
+
+import com.flightbooking.event.BookingStatusChangedEvent;
+import com.flightbooking.repository.BookingRepository.ReminderCandidate;
+import com.flightbooking.repository.FlightSegmentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Reminder Queue Service
+ *
+ * Keeps upcoming booking reminders in memory, ordered by the moment they are due:
+ * - T-24h (day before) and T-3h (urgent) reminders per booking
+ * - Loaded from the indexed reminder-candidate query at startup and refreshed
+ *   periodically (only the next refresh-horizon of departures is held)
+ * - Updated on booking status changes: confirmed/ticketed bookings are queued,
+ *   cancelled/expired ones are dropped (lazy deletion via a per-booking version)
+ * - Firing pops due entries from the head of the heap: O(log n) per reminder,
+ *   no table scan
+ *
+ * The booking_reminders ledger still decides who actually sends, so several
+ * nodes holding the same queue never send a reminder twice
+ */
+@Service
+public class ReminderQueueService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReminderQueueService.class);
+    
+    private static final Duration DAY_BEFORE_LEAD = Duration.ofHours(24);
+    private static final Duration URGENT_LEAD = Duration.ofHours(3);
+    
+    @Autowired
+    private BookingReminderService bookingReminderService;
+    
+    @Autowired
+    private FlightSegmentRepository flightSegmentRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    /**
+     * How far ahead (past the due time) reminders are loaded; must exceed the refresh interval
+     */
+    @Value("${booking.reminders.queue.horizon-minutes:120}")
+    private long horizonMinutes;
+    
+    /**
+     * Reminders missed by up to this much (e.g. during a restart) are still sent
+     */
+    @Value("${booking.reminders.queue.late-grace-minutes:60}")
+    private long lateGraceMinutes;
+    
+    @Value("${booking.reminders.urgent.enabled:true}")
+    private boolean urgentEnabled;
+    
+    /**
+     * Guarded by this
+     */
+    private final PriorityQueue<QueuedReminder> queue =
+            new PriorityQueue<>(Comparator.comparing(QueuedReminder::fireAt));
+    
+    /**
+     * Bookings with queued entries -> current version; entries with an older version are stale
+     */
+    private final Map<String, BookingSlot> slots = new HashMap<>();
+    
+    /**
+     * bookingId|type|version of queued entries, so a refresh doesn't queue duplicates
+     */
+    private final Set<String> queuedKeys = new HashSet<>();
+    
+    @PostConstruct
+    void init() {
+        Gauge.builder("booking.reminders.queue.size", this, ReminderQueueService::size)
+            .description("Booking reminders waiting in the in-memory queue")
+            .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+    
+    /**
+     * Load reminders due within the horizon from the database
+     * Already queued reminders are skipped, so this is safe to run repeatedly
+     *
+     * @return Number of reminders added
+     */
+    public int refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        int added = loadType(BookingReminderService.TYPE_DAY_BEFORE, DAY_BEFORE_LEAD, now);
+        if (urgentEnabled) {
+            added += loadType(BookingReminderService.TYPE_URGENT, URGENT_LEAD, now);
+        }
+        
+        logger.info("Reminder queue refreshed: {} added, {} queued", added, size());
+        return added;
+    }
+    
+    private int loadType(String reminderType, Duration lead, LocalDateTime now) {
+        // Departures whose reminder is due between (now - grace) and (now + horizon)
+        LocalDateTime windowStart = now.plus(lead).minusMinutes(lateGraceMinutes);
+        LocalDateTime windowEnd = now.plus(lead).plusMinutes(horizonMinutes);
+        
+        int added = 0;
+        for (int page = 0; ; page++) {
+            List<ReminderCandidate> candidates =
+                    bookingReminderService.findDue(reminderType, windowStart, windowEnd, page);
+            for (ReminderCandidate candidate : candidates) {
+                if (offer(candidate.getBookingId(), candidate.getBookingCode(), reminderType,
+                        candidate.getDepartTime(), lead, null)) {
+                    added++;
+                }
+            }
+            if (candidates.size() < bookingReminderService.getBatchSize()) {
+                return added;
+            }
+        }
+    }
+    
+    /**
+     * Keep the queue in step with booking status (after the change is committed)
+     * Any change invalidates the booking's queued reminders; a remindable status queues them again
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        String bookingId = event.getBookingId();
+        synchronized (this) {
+            BookingSlot slot = slots.get(bookingId);
+            if (slot != null) {
+                slot.version++;
+            }
+        }
+        
+        if (!bookingReminderService.isRemindable(event.getNewStatus())) {
+            return;
+        }
+        
+        try {
+            LocalDateTime departTime = flightSegmentRepository.findFirstDepartTime(bookingId);
+            if (departTime == null) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            offer(bookingId, null, BookingReminderService.TYPE_DAY_BEFORE, departTime, DAY_BEFORE_LEAD, now);
+            if (urgentEnabled) {
+                offer(bookingId, null, BookingReminderService.TYPE_URGENT, departTime, URGENT_LEAD, now);
+            }
+        } catch (Exception e) {
+            // The next refresh picks the booking up from the database
+            logger.warn("Failed to queue reminders for booking: {}, error: {}", bookingId, e.getMessage());
+        }
+    }
+    
+    /**
+     * Queue one reminder if it falls inside the horizon
+     *
+     * @param now Non-null to apply the horizon/grace check (refresh has already filtered by window)
+     */
+    private synchronized boolean offer(String bookingId, String bookingCode, String reminderType,
+                                       LocalDateTime departTime, Duration lead, LocalDateTime now) {
+        LocalDateTime fireAt = departTime.minus(lead);
+        if (now != null && (fireAt.isBefore(now.minusMinutes(lateGraceMinutes))
+                || fireAt.isAfter(now.plusMinutes(horizonMinutes)))) {
+            return false;
+        }
+        
+        BookingSlot slot = slots.computeIfAbsent(bookingId, id -> new BookingSlot());
+        String key = bookingId + "|" + reminderType + "|" + slot.version;
+        if (!queuedKeys.add(key)) {
+            if (slot.queued == 0) {
+                slots.remove(bookingId);
+            }
+            return false;
+        }
+        
+        slot.queued++;
+        queue.add(new QueuedReminder(bookingId, bookingCode != null ? bookingCode : bookingId,
+                reminderType, departTime, fireAt, slot.version));
+        return true;
+    }
+    
+    /**
+     * Send every reminder that is due now
+     *
+     * @return Number of reminders sent
+     */
+    public int fireDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<QueuedReminder> due = pollDue(now);
+        
+        int sent = 0;
+        for (QueuedReminder reminder : due) {
+            if (reminder.fireAt().isBefore(now.minusMinutes(lateGraceMinutes))) {
+                logger.debug("Skipping late {} reminder for booking: {}", reminder.type(), reminder.bookingCode());
+                continue;
+            }
+            if (bookingReminderService.sendReminder(reminder.type(), reminder.bookingId(),
+                    reminder.bookingCode(), reminder.departTime())) {
+                sent++;
+            }
+        }
+        
+        if (!due.isEmpty()) {
+            logger.info("Fired {} due reminders, sent {}", due.size(), sent);
+        }
+        return sent;
+    }
+    
+    private synchronized List<QueuedReminder> pollDue(LocalDateTime now) {
+        List<QueuedReminder> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().fireAt().isAfter(now)) {
+            QueuedReminder reminder = queue.poll();
+            queuedKeys.remove(reminder.bookingId() + "|" + reminder.type() + "|" + reminder.version());
+            
+            BookingSlot slot = slots.get(reminder.bookingId());
+            boolean current = slot != null && slot.version == reminder.version();
+            if (slot != null && --slot.queued == 0) {
+                slots.remove(reminder.bookingId());
+            }
+            if (current) {
+                due.add(reminder);
+            }
+        }
+        return due;
+    }
+    
+    public synchronized int size() {
+        return queue.size();
+    }
+    
+    private record QueuedReminder(String bookingId, String bookingCode, String type,
+                                  LocalDateTime departTime, LocalDateTime fireAt, long version) {
+    }
+    
+    private static final class BookingSlot {
+        private long version;
+        private int queued;
+    }
+}
@@ -0,0 +1,71 @@
+package com.flightbooking.service;
+
+import com.flightbooking.repository.SchedulerLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Scheduler Lease Service
+ * 
+ * Database leases for scheduled jobs when several backend nodes share one database:
+ * - tryAcquire: take the named lease for a duration (atomic upsert, no race)
+ * - release: hand it back when the job finishes
+ * 
+ * If a node dies while holding a lease, the lease simply expires
+ */
+@Service
+public class SchedulerLeaseService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLeaseService.class);
+    
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+    
+    /**
+     * Unique per JVM: host name + random suffix
+     */
+    private final String nodeId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    
+    /**
+     * @param name Job name
+     * @param duration How long the lease is held (should exceed the job's run time)
+     * @return true if this node now holds the lease
+     */
+    @Transactional
+    public boolean tryAcquire(String name, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean acquired = schedulerLeaseRepository.tryAcquire(name, nodeId, now.plus(duration), now) > 0;
+        
+        if (acquired) {
+            logger.debug("Lease {} acquired by {} for {}", name, nodeId, duration);
+        } else {
+            logger.debug("Lease {} held by another node, skipping", name);
+        }
+        return acquired;
+    }
+    
+    @Transactional
+    public void release(String name) {
+        schedulerLeaseRepository.release(name, nodeId, LocalDateTime.now());
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
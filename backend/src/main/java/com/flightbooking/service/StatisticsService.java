@@ -0,0 +1,364 @@
+package com.flightbooking.service;
+
+import com.flightbooking.dto.DailyStatDTO;
+import com.flightbooking.entity.DailyStatRollup;
+import com.flightbooking.entity.StatCounter;
+import com.flightbooking.event.BookingStatusChangedEvent;
+import com.flightbooking.event.FlightCountChangedEvent;
+import com.flightbooking.event.PaymentStatusChangedEvent;
+import com.flightbooking.event.UserStatusChangedEvent;
+import com.flightbooking.repository.BookingRepository;
+import com.flightbooking.repository.BookingRepository.StatusTotals;
+import com.flightbooking.repository.DailyStatRollupRepository;
+import com.flightbooking.repository.FlightRepository;
+import com.flightbooking.repository.StatCounterRepository;
+import com.flightbooking.repository.UserRepository;
+import com.flightbooking.repository.UserRepository.StatusCount;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Statistics Service
+ *
+ * Keeps the admin dashboard numbers as running counters instead of recomputing them:
+ * - Bookings per status (count + amount), users (total + per status), flights
+ * - Daily rollups: bookings created, status transitions per day (count + amount),
+ *   payments per status, users registered, flights added
+ *
+ * How it stays cheap:
+ * - Committed state transitions (booking/payment/user/flight events) add to striped
+ *   LongAdders in memory; amounts are kept in minor units (cents)
+ * - flush() moves the pending deltas into stat_counters and daily_stat_rollups with
+ *   additive upserts, so several nodes can flush into the same rows
+ * - After each flush the counter rows and today's rollups are re-read into an
+ *   in-memory snapshot; reads return snapshot + this node's unflushed deltas (no query)
+ * - rebuild() recomputes the counters from the source tables (first start, nightly)
+ *   to correct any drift (e.g. a node that died with unflushed deltas)
+ */
+@Service
+public class StatisticsService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+    
+    public static final String BOOKINGS_PREFIX = "bookings.";
+    public static final String BOOKINGS_CREATED = "bookings.created";
+    public static final String USERS_PREFIX = "users.";
+    public static final String USERS_TOTAL = "users.total";
+    public static final String USERS_REGISTERED = "users.registered";
+    public static final String PAYMENTS_PREFIX = "payments.";
+    public static final String FLIGHTS_TOTAL = "flights.total";
+    public static final String FLIGHTS_ADDED = "flights.added";
+    
+    @Autowired
+    private StatCounterRepository statCounterRepository;
+    
+    @Autowired
+    private DailyStatRollupRepository dailyStatRollupRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private FlightRepository flightRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    /**
+     * Deltas not yet written to the database; day == null for running totals
+     */
+    private final Map<StatKey, Delta> pending = new ConcurrentHashMap<>();
+    
+    /**
+     * Database values as of the last flush (replaced as a whole, never mutated)
+     */
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), LocalDate.MIN, Map.of());
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Load the counters; build them from the source tables the first time
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            if (statCounterRepository.count() == 0) {
+                rebuild();
+            } else {
+                refreshSnapshot();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load statistics counters: {}", e.getMessage(), e);
+        }
+    }
+    
+    // ==================== STATE TRANSITIONS ====================
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        long amount = toMinor(event.getTotalAmount());
+        LocalDate today = LocalDate.now();
+        
+        if (event.getPreviousStatus() == null) {
+            add(today, BOOKINGS_CREATED, 1, amount);
+        } else {
+            add(null, BOOKINGS_PREFIX + event.getPreviousStatus(), -1, -amount);
+            add(today, BOOKINGS_PREFIX + event.getNewStatus(), 1, amount);
+        }
+        add(null, BOOKINGS_PREFIX + event.getNewStatus(), 1, amount);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        add(LocalDate.now(), PAYMENTS_PREFIX + event.getNewStatus(), 1, toMinor(event.getAmount()));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        if (event.getPreviousStatus() == null) {
+            add(null, USERS_TOTAL, 1, 0);
+            add(LocalDate.now(), USERS_REGISTERED, 1, 0);
+        } else {
+            add(null, USERS_PREFIX + event.getPreviousStatus(), -1, 0);
+        }
+        add(null, USERS_PREFIX + event.getNewStatus(), 1, 0);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFlightCountChanged(FlightCountChangedEvent event) {
+        add(null, FLIGHTS_TOTAL, event.getDelta(), 0);
+        if (event.getDelta() > 0) {
+            add(LocalDate.now(), FLIGHTS_ADDED, event.getDelta(), 0);
+        }
+    }
+    
+    private void add(LocalDate day, String metric, long count, long amountMinor) {
+        Delta delta = pending.computeIfAbsent(new StatKey(day, metric), key -> new Delta());
+        delta.count.add(count);
+        if (amountMinor != 0) {
+            delta.amountMinor.add(amountMinor);
+        }
+    }
+    
+    // ==================== READS (no database access) ====================
+    
+    /**
+     * Current running total of a metric
+     */
+    public Totals total(String metric) {
+        return current(snapshot.totals().get(metric), pending.get(new StatKey(null, metric)));
+    }
+    
+    /**
+     * Today's rollup of a metric
+     */
+    public Totals today(String metric) {
+        Snapshot current = snapshot;
+        LocalDate today = LocalDate.now();
+        Totals flushed = today.equals(current.day()) ? current.today().get(metric) : null;
+        return current(flushed, pending.get(new StatKey(today, metric)));
+    }
+    
+    /**
+     * Sum of the running totals of all metrics with a prefix (e.g. all booking statuses)
+     */
+    public Totals totalOfPrefix(String prefix) {
+        List<String> metrics = new ArrayList<>(snapshot.totals().keySet());
+        for (StatKey key : pending.keySet()) {
+            if (key.day() == null && !metrics.contains(key.metric())) {
+                metrics.add(key.metric());
+            }
+        }
+        
+        long count = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        for (String metric : metrics) {
+            if (metric.startsWith(prefix)) {
+                Totals totals = total(metric);
+                count += totals.count();
+                amount = amount.add(totals.amount());
+            }
+        }
+        return new Totals(count, amount);
+    }
+    
+    private Totals current(Totals flushed, Delta delta) {
+        long count = flushed != null ? flushed.count() : 0;
+        BigDecimal amount = flushed != null ? flushed.amount() : BigDecimal.ZERO;
+        if (delta != null) {
+            count += delta.count.sum();
+            amount = amount.add(fromMinor(delta.amountMinor.sum()));
+        }
+        return new Totals(count, amount);
+    }
+    
+    /**
+     * Daily rollups of one metric for charts (inclusive range)
+     */
+    @Transactional(readOnly = true)
+    public List<DailyStatDTO> getDailyStats(String metric, LocalDate from, LocalDate to) {
+        return dailyStatRollupRepository.findByMetricAndStatDateBetweenOrderByStatDate(metric, from, to).stream()
+                .map(rollup -> new DailyStatDTO(rollup.getStatDate(), rollup.getMetric(),
+                        rollup.getCountValue(), rollup.getAmountValue()))
+                .collect(Collectors.toList());
+    }
+    
+    // ==================== PERSISTENCE ====================
+    
+    /**
+     * Write pending deltas to the database (one transaction) and refresh the snapshot
+     * If the write fails the deltas are put back and retried on the next flush
+     *
+     * @return Number of counter/rollup rows updated
+     */
+    public int flush() {
+        Map<StatKey, long[]> drained = drain();
+        if (!drained.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                transactionTemplate.executeWithoutResult(status -> drained.forEach((key, values) -> {
+                    BigDecimal amount = fromMinor(values[1]);
+                    if (key.day() == null) {
+                        statCounterRepository.increment(key.metric(), values[0], amount, now);
+                    } else {
+                        dailyStatRollupRepository.increment(key.day(), key.metric(), values[0], amount, now);
+                    }
+                }));
+            } catch (RuntimeException e) {
+                drained.forEach((key, values) -> add(key.day(), key.metric(), values[0], values[1]));
+                throw e;
+            }
+            logger.debug("Flushed {} statistics deltas", drained.size());
+        }
+        
+        refreshSnapshot();
+        return drained.size();
+    }
+    
+    private Map<StatKey, long[]> drain() {
+        Map<StatKey, long[]> drained = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        for (Map.Entry<StatKey, Delta> entry : pending.entrySet()) {
+            StatKey key = entry.getKey();
+            Delta delta = entry.getValue();
+            long count = delta.count.sumThenReset();
+            long amount = delta.amountMinor.sumThenReset();
+            if (count != 0 || amount != 0) {
+                drained.put(key, new long[] {count, amount});
+            }
+            // Past days receive no more transitions; drop their (now empty) adders
+            if (key.day() != null && key.day().isBefore(today)) {
+                pending.remove(key, delta);
+            }
+        }
+        return drained;
+    }
+    
+    private void refreshSnapshot() {
+        LocalDate today = LocalDate.now();
+        Map<String, Totals> totals = new HashMap<>();
+        for (StatCounter counter : statCounterRepository.findAll()) {
+            totals.put(counter.getMetric(), new Totals(counter.getCountValue(), counter.getAmountValue()));
+        }
+        Map<String, Totals> todays = new HashMap<>();
+        for (DailyStatRollup rollup : dailyStatRollupRepository.findByStatDate(today)) {
+            todays.put(rollup.getMetric(), new Totals(rollup.getCountValue(), rollup.getAmountValue()));
+        }
+        snapshot = new Snapshot(totals, today, todays);
+    }
+    
+    /**
+     * Recompute the running totals from the source tables (GROUP BY / COUNT queries)
+     * and seed today's rollups if they don't exist yet
+     * Pending deltas are flushed first; transitions committed while the rebuild runs
+     * may be counted twice until the next rebuild
+     */
+    public void rebuild() {
+        flush();
+        
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            statCounterRepository.resetAll(now);
+            
+            for (StatusTotals totals : bookingRepository.aggregateByStatus()) {
+                statCounterRepository.overwrite(BOOKINGS_PREFIX + totals.getStatus(),
+                        totals.getBookingCount(), totals.getTotalAmount(), now);
+            }
+            
+            long users = 0;
+            for (StatusCount count : userRepository.countGroupByStatus()) {
+                statCounterRepository.overwrite(USERS_PREFIX + count.getStatus(), count.getUserCount(), BigDecimal.ZERO, now);
+                users += count.getUserCount();
+            }
+            statCounterRepository.overwrite(USERS_TOTAL, users, BigDecimal.ZERO, now);
+            statCounterRepository.overwrite(FLIGHTS_TOTAL, flightRepository.count(), BigDecimal.ZERO, now);
+            
+            LocalDate today = now.toLocalDate();
+            LocalDateTime startOfDay = today.atStartOfDay();
+            LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
+            dailyStatRollupRepository.insertIfAbsent(today, BOOKINGS_CREATED,
+                    bookingRepository.countByCreatedAtBetween(startOfDay, endOfDay), BigDecimal.ZERO, now);
+            dailyStatRollupRepository.insertIfAbsent(today, BOOKINGS_PREFIX + "CONFIRMED",
+                    bookingRepository.countByStatusUpdatedBetween("CONFIRMED", startOfDay, endOfDay),
+                    bookingRepository.sumAmountByStatusUpdatedBetween("CONFIRMED", startOfDay, endOfDay), now);
+        });
+        
+        refreshSnapshot();
+        logger.info("Statistics counters rebuilt from source tables");
+    }
+    
+    private static long toMinor(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0;
+    }
+    
+    private static BigDecimal fromMinor(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, 2);
+    }
+    
+    /**
+     * Count and amount of a metric
+     */
+    public record Totals(long count, BigDecimal amount) {
+    }
+    
+    private record StatKey(LocalDate day, String metric) {
+    }
+    
+    private record Snapshot(Map<String, Totals> totals, LocalDate day, Map<String, Totals> today) {
+    }
+    
+    private static final class Delta {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder amountMinor = new LongAdder();
+    }
+}
@@ -3,9 +3,11 @@ package com.flightbooking.service;
 import com.flightbooking.dto.TicketDTO;
 import com.flightbooking.entity.Booking;
 import com.flightbooking.entity.Ticket;
+import com.flightbooking.event.BookingStatusChangedEvent;
 import com.flightbooking.repository.BookingRepository;
 import com.flightbooking.repository.TicketRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,9 @@ public class TicketService {
     @Autowired
     private BookingRepository bookingRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Transactional
     public TicketDTO issueTicket(String bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
@@ -51,6 +56,8 @@ public class TicketService {
         // Update booking status to TICKETED
         booking.setStatus("TICKETED");
         bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), "CONFIRMED", "TICKETED", booking.getTotalAmount()));
         
         return convertToDTO(ticket);
     }
@@ -1,25 +1,22 @@
 package com.flightbooking.service;
 
-import com.flightbooking.dto.LoginRequest;
-import com.flightbooking.dto.LoginResponse;
 import com.flightbooking.dto.RegisterRequest;
 import com.flightbooking.dto.UserDTO;
 import com.flightbooking.entity.User;
+import com.flightbooking.event.UserRoleChangedEvent;
+import com.flightbooking.event.UserStatusChangedEvent;
 import com.flightbooking.exception.BusinessException;
 import com.flightbooking.exception.ResourceNotFoundException;
 import com.flightbooking.repository.UserRepository;
-import com.flightbooking.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.UUID;
@@ -37,7 +34,7 @@ public class UserService {
     private PasswordEncoder passwordEncoder;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private ApplicationEventPublisher eventPublisher;
     
     @Transactional
     public UserDTO register(RegisterRequest request) {
@@ -57,48 +54,11 @@ public class UserService {
         user.setStatus("ACTIVE");
         
         user = userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatusChangedEvent(user.getId(), null, user.getStatus()));
         logger.info("User registered successfully: {} (ID: {})", user.getEmail(), user.getId());
         return convertToDTO(user);
     }
     
-    /**
-     * @deprecated Use AuthService.login() instead
-     * This method is kept for backward compatibility with old UserController
-     * It now uses the new LoginResponse format: { accessToken }
-     */
-    @Deprecated
-    public LoginResponse login(LoginRequest request) {
-        logger.info("Login attempt for email: {}", request.getEmail());
-        
-        User user = userRepository.findByEmail(request.getEmail())
-            .orElseThrow(() -> {
-                logger.warn("Login failed: User not found: {}", request.getEmail());
-                return new BadCredentialsException("Invalid email or password");
-            });
-        
-        // ✅ Compare hashed password with BCrypt
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            logger.warn("Login failed: Invalid password for email: {}", request.getEmail());
-            throw new BadCredentialsException("Invalid email or password");
-        }
-        
-        if (!"ACTIVE".equals(user.getStatus())) {
-            logger.warn("Login failed: Account not active: {}", request.getEmail());
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User account is not active");
-        }
-        
-        // ✅ Generate JWT token
-        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole());
-        
-        logger.info("Login successful for email: {} (ID: {})", user.getEmail(), user.getId());
-        
-        // ✅ NEW: Return accessToken only (production format)
-        LoginResponse response = new LoginResponse();
-        response.setAccessToken(token);
-        
-        return response;
-    }
-    
     @Transactional(readOnly = true)
     public UserDTO getUserById(String id) {
         logger.info("Fetching user by ID: {}", id);
@@ -133,6 +93,8 @@ public class UserService {
         if (userDTO.getPhone() != null) {
             user.setPhone(userDTO.getPhone());
         }
+        String previousStatus = user.getStatus();
+        String previousRole = user.getRole();
         if (userDTO.getStatus() != null) {
             validateStatus(userDTO.getStatus());
             user.setStatus(userDTO.getStatus());
@@ -143,6 +105,12 @@ public class UserService {
         }
         
         user = userRepository.save(user);
+        if (!user.getStatus().equals(previousStatus)) {
+            eventPublisher.publishEvent(new UserStatusChangedEvent(id, previousStatus, user.getStatus()));
+        }
+        if (!user.getRole().equals(previousRole)) {
+            eventPublisher.publishEvent(new UserRoleChangedEvent(id, previousRole, user.getRole()));
+        }
         logger.info("User updated successfully: {}", id);
         return convertToDTO(user);
     }
@@ -183,8 +151,12 @@ public class UserService {
         // Validate role
         validateRole(newRole);
         
+        String previousRole = user.getRole();
         user.setRole(newRole);
         userRepository.save(user);
+        if (!newRole.equals(previousRole)) {
+            eventPublisher.publishEvent(new UserRoleChangedEvent(id, previousRole, newRole));
+        }
         logger.info("User role updated successfully: {}", id);
     }
     
@@ -201,8 +173,12 @@ public class UserService {
         // Validate status
         validateStatus(newStatus);
         
+        String previousStatus = user.getStatus();
         user.setStatus(newStatus);
         userRepository.save(user);
+        if (!newStatus.equals(previousStatus)) {
+            eventPublisher.publishEvent(new UserStatusChangedEvent(id, previousStatus, newStatus));
+        }
         logger.info("User status updated successfully: {}", id);
     }
     
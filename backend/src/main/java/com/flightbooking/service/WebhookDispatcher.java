@@ -0,0 +1,129 @@
+package com.flightbooking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook Dispatcher
+ *
+ * Processes stored payment webhooks off the request thread:
+ * - One single-thread worker per stripe, each with a bounded queue
+ * - Stripe chosen by ordering key (payment ID), so webhooks of one payment
+ *   are processed one at a time, in arrival order
+ * - Full queue: the webhook stays RECEIVED and the recovery sweep in
+ *   PaymentWebhookService hands it over later (the caller is never blocked)
+ * - A webhook already waiting in a queue is not queued again (the recovery
+ *   sweep sees queued webhooks as RECEIVED too)
+ *
+ * Metrics: payment.webhook.queue.depth (gauge)
+ */
+@Service
+public class WebhookDispatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDispatcher.class);
+    
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${payment.webhook.workers:4}")
+    private int workerCount;
+    
+    @Value("${payment.webhook.queue-capacity-per-worker:1000}")
+    private int queueCapacity;
+    
+    @Value("${payment.webhook.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+    
+    private ThreadPoolExecutor[] stripes;
+    
+    /**
+     * IDs of webhooks queued and not yet picked up by their worker
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    void start() {
+        stripes = new ThreadPoolExecutor[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String threadName = "payment-webhook-" + (i + 1);
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        
+        Gauge.builder("payment.webhook.queue.depth", this, WebhookDispatcher::getQueueDepth)
+            .description("Payment webhooks waiting to be processed")
+            .register(meterRegistry);
+        
+        logger.info("Webhook dispatcher started: {} workers, queue capacity {} per worker", workerCount, queueCapacity);
+    }
+    
+    /**
+     * Queue a stored webhook for processing (non-blocking)
+     *
+     * @param webhookId Stored webhook ID
+     * @param orderingKey Webhooks with the same key are processed in order (payment ID, or event ID if unknown)
+     * @return true if queued (or already waiting in the queue), false if the worker queue is full
+     */
+    public boolean dispatch(String webhookId, String orderingKey) {
+        if (!queued.add(webhookId)) {
+            return true;
+        }
+        ThreadPoolExecutor stripe = stripes[Math.floorMod(orderingKey.hashCode(), stripes.length)];
+        try {
+            stripe.execute(() -> {
+                // Picked up: from here on the claim in handleStoredWebhook decides
+                queued.remove(webhookId);
+                paymentWebhookService.handleStoredWebhook(webhookId);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.remove(webhookId);
+            logger.warn("Webhook queue full, webhook {} left for the recovery sweep", webhookId);
+            return false;
+        }
+    }
+    
+    public int getQueueDepth() {
+        return Arrays.stream(stripes).mapToInt(stripe -> stripe.getQueue().size()).sum();
+    }
+    
+    /**
+     * Graceful shutdown: finish queued webhooks (unfinished ones stay RECEIVED in the database)
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+        for (ThreadPoolExecutor stripe : stripes) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !stripe.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                stripe.shutdownNow();
+            }
+        }
+    }
+}
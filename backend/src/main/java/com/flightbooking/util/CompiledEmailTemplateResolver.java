@@ -0,0 +1,73 @@
+package com.flightbooking.util;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
+import org.thymeleaf.cache.ICacheEntryValidity;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.AbstractTemplateResolver;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled Email Template Resolver
+ *
+ * Serves the templates built by EmailTemplateCompiler from memory, under
+ * "compiled-email/<name>". Boot adds every ITemplateResolver bean to its
+ * SpringTemplateEngine, so these are parsed and cached by the same engine
+ * as the classpath templates (resolved first, other names are left to
+ * Boot's resolver).
+ */
+@Component
+public class CompiledEmailTemplateResolver extends AbstractTemplateResolver {
+    
+    public static final String PREFIX = "compiled-email/";
+    
+    private final Map<String, String> templates = new ConcurrentHashMap<>();
+    
+    public CompiledEmailTemplateResolver() {
+        setName("compiled-email");
+        setOrder(0);
+        setResolvablePatterns(Set.of(PREFIX + "*"));
+        setCheckExistence(true);
+    }
+    
+    /**
+     * Register a compiled template
+     *
+     * @return Name to pass to the template engine
+     */
+    public String register(String name, String markup) {
+        templates.put(name, markup);
+        return PREFIX + name;
+    }
+    
+    @Override
+    protected boolean computeResolvable(IEngineConfiguration configuration, String ownerTemplate,
+                                        String template, Map<String, Object> templateResolutionAttributes) {
+        return super.computeResolvable(configuration, ownerTemplate, template, templateResolutionAttributes)
+                && templates.containsKey(template.substring(PREFIX.length()));
+    }
+    
+    @Override
+    protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+                                                        String template, Map<String, Object> templateResolutionAttributes) {
+        return new StringTemplateResource(templates.get(template.substring(PREFIX.length())));
+    }
+    
+    @Override
+    protected TemplateMode computeTemplateMode(IEngineConfiguration configuration, String ownerTemplate,
+                                               String template, Map<String, Object> templateResolutionAttributes) {
+        return TemplateMode.HTML;
+    }
+    
+    @Override
+    protected ICacheEntryValidity computeValidity(IEngineConfiguration configuration, String ownerTemplate,
+                                                  String template, Map<String, Object> templateResolutionAttributes) {
+        return AlwaysValidCacheEntryValidity.INSTANCE;
+    }
+}
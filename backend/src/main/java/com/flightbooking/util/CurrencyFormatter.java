@@ -0,0 +1,50 @@
+package com.flightbooking.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Currency formatting for emails and notifications
+ * 
+ * Same output as String.format("%,d VND") / String.format("$%.2f"),
+ * but the DecimalFormat instances are built once per thread and reused
+ * (DecimalFormat is not thread-safe, String.format parses the pattern every call)
+ */
+public final class CurrencyFormatter {
+    
+    private static final ThreadLocal<DecimalFormat> GROUPED_INTEGER = ThreadLocal.withInitial(() -> {
+        DecimalFormat format = new DecimalFormat("#,##0", DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)));
+        format.setRoundingMode(RoundingMode.DOWN);
+        return format;
+    });
+    
+    private static final ThreadLocal<DecimalFormat> TWO_DECIMALS = ThreadLocal.withInitial(() -> {
+        DecimalFormat format = new DecimalFormat("0.00", DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)));
+        format.setRoundingMode(RoundingMode.HALF_UP);
+        return format;
+    });
+    
+    private CurrencyFormatter() {
+    }
+    
+    /**
+     * Format amount for display
+     * - VND: 1,500,000 VND (no decimals)
+     * - USD: $12.50
+     * - Other: plain amount + currency code
+     */
+    public static String format(BigDecimal amount, String currency) {
+        if (amount == null) return "0";
+        
+        if ("VND".equals(currency)) {
+            return GROUPED_INTEGER.get().format(amount.longValue()) + " VND";
+        } else if ("USD".equals(currency)) {
+            return "$" + TWO_DECIMALS.get().format(amount);
+        } else {
+            return amount.toString() + " " + currency;
+        }
+    }
+}
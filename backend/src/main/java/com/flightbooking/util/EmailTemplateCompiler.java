@@ -0,0 +1,254 @@
+package com.flightbooking.util;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Email Template Compiler
+ *
+ * Splits a Thymeleaf HTML template into static markup and dynamic elements:
+ * - Dynamic: an element with a th:* / data-th-* attribute (with everything inside it),
+ *   a th:* element, or text with [[...]] / [(...)] inlining
+ * - Static: everything else, kept as pre-rendered strings
+ *
+ * The compiled template keeps only the dynamic elements, with a marker character
+ * where each run of static markup was. Thymeleaf renders that (it never walks the
+ * static markup), and splice() puts the pre-rendered static runs back in.
+ *
+ * Uses attoparser, the parser Thymeleaf itself is built on. Returns null for
+ * markup it can't split safely (parser-level comments, implicitly closed dynamic
+ * elements); the caller then renders the original template.
+ */
+public final class EmailTemplateCompiler {
+    
+    /**
+     * Stands for one static run in the compiled template (a control character
+     * templates don't contain; a variable that does makes splice() fail)
+     */
+    private static final char STATIC_MARKER = '\u0001';
+    
+    /**
+     * Thymeleaf drops the namespace declaration from the output
+     */
+    private static final Pattern TH_NAMESPACE = Pattern.compile("\\s+xmlns:th\\s*=\\s*(\"[^\"]*\"|'[^']*')");
+    
+    private static final MarkupParser PARSER = new MarkupParser(ParseConfiguration.htmlConfiguration());
+    
+    private EmailTemplateCompiler() {
+    }
+    
+    /**
+     * @param source Template markup
+     * @return Compiled template, or null if the markup has to be rendered as it is
+     */
+    public static CompiledTemplate compile(String source) {
+        char[] chars = source.toCharArray();
+        DynamicRangeHandler handler = new DynamicRangeHandler(chars);
+        try {
+            PARSER.parse(chars, handler);
+        } catch (ParseException e) {
+            return null;
+        }
+        if (handler.unsupported || handler.dynamicDepth >= 0 || source.indexOf(STATIC_MARKER) >= 0) {
+            return null;
+        }
+        
+        StringBuilder template = new StringBuilder();
+        List<String> staticParts = new ArrayList<>();
+        int position = 0;
+        for (int[] range : handler.ranges) {
+            addStatic(source.substring(position, range[0]), template, staticParts);
+            template.append(source, range[0], range[1]);
+            position = range[1];
+        }
+        addStatic(source.substring(position), template, staticParts);
+        int staticLength = staticParts.stream().mapToInt(String::length).sum();
+        return new CompiledTemplate(template.toString(), List.copyOf(staticParts), staticLength);
+    }
+    
+    private static void addStatic(String markup, StringBuilder template, List<String> staticParts) {
+        if (markup.isEmpty()) {
+            return;
+        }
+        template.append(STATIC_MARKER);
+        staticParts.add(TH_NAMESPACE.matcher(markup).replaceAll(""));
+    }
+    
+    /**
+     * @param template Thymeleaf markup: the dynamic elements, a marker per static run
+     * @param staticParts Pre-rendered static runs, in marker order
+     * @param staticLength Total length of the static runs
+     */
+    public record CompiledTemplate(String template, List<String> staticParts, int staticLength) {
+        
+        /**
+         * Put the static runs back into the rendered template
+         *
+         * @return Full HTML, or null if the markers don't match (a variable contained one)
+         */
+        public String splice(String rendered) {
+            StringBuilder html = new StringBuilder(rendered.length() + staticLength);
+            int position = 0;
+            int part = 0;
+            for (int i = 0; i < rendered.length(); i++) {
+                if (rendered.charAt(i) == STATIC_MARKER) {
+                    if (part == staticParts.size()) {
+                        return null;
+                    }
+                    html.append(rendered, position, i).append(staticParts.get(part++));
+                    position = i + 1;
+                }
+            }
+            if (part != staticParts.size()) {
+                return null;
+            }
+            return html.append(rendered, position, rendered.length()).toString();
+        }
+    }
+    
+    /**
+     * Collects [start, end) source offsets of the outermost dynamic elements
+     * (offsets are absolute because the parser works on the source array itself)
+     */
+    private static final class DynamicRangeHandler extends AbstractMarkupHandler {
+        
+        private final char[] source;
+        private final List<int[]> ranges = new ArrayList<>();
+        
+        private int depth;
+        private int dynamicDepth = -1;
+        private int dynamicStart;
+        
+        private int tagStart;
+        private int tagEnd;
+        private boolean tagDynamic;
+        private int closeNameEnd;
+        private boolean unsupported;
+        
+        private DynamicRangeHandler(char[] source) {
+            this.source = source;
+        }
+        
+        @Override
+        public void handleOpenElementStart(char[] buffer, int nameOffset, int nameLen, int line, int col) {
+            startTag(buffer, nameOffset, nameLen);
+        }
+        
+        @Override
+        public void handleStandaloneElementStart(char[] buffer, int nameOffset, int nameLen, boolean minimized, int line, int col) {
+            startTag(buffer, nameOffset, nameLen);
+        }
+        
+        @Override
+        public void handleAttribute(char[] buffer, int nameOffset, int nameLen, int nameLine, int nameCol,
+                                    int operatorOffset, int operatorLen, int operatorLine, int operatorCol,
+                                    int valueContentOffset, int valueContentLen, int valueOuterOffset, int valueOuterLen,
+                                    int valueLine, int valueCol) {
+            String name = new String(buffer, nameOffset, nameLen);
+            if (name.startsWith("th:") || name.startsWith("data-th-")) {
+                tagDynamic = true;
+            }
+            tagEnd = valueOuterLen > 0 ? valueOuterOffset + valueOuterLen : nameOffset + nameLen;
+        }
+        
+        @Override
+        public void handleOpenElementEnd(char[] buffer, int nameOffset, int nameLen, int line, int col) {
+            if (dynamicDepth < 0 && tagDynamic) {
+                dynamicDepth = depth;
+                dynamicStart = tagStart;
+            }
+            depth++;
+        }
+        
+        @Override
+        public void handleStandaloneElementEnd(char[] buffer, int nameOffset, int nameLen, boolean minimized, int line, int col) {
+            if (dynamicDepth < 0 && tagDynamic) {
+                ranges.add(new int[] { tagStart, endOfTag(tagEnd) });
+            }
+        }
+        
+        @Override
+        public void handleCloseElementStart(char[] buffer, int nameOffset, int nameLen, int line, int col) {
+            checkBuffer(buffer);
+            depth--;
+            closeNameEnd = nameOffset + nameLen;
+        }
+        
+        @Override
+        public void handleCloseElementEnd(char[] buffer, int nameOffset, int nameLen, int line, int col) {
+            if (dynamicDepth == depth) {
+                ranges.add(new int[] { dynamicStart, endOfTag(closeNameEnd) });
+                dynamicDepth = -1;
+            }
+        }
+        
+        @Override
+        public void handleAutoCloseElementStart(char[] buffer, int nameOffset, int nameLen, int line, int col) {
+            depth--;
+            if (dynamicDepth == depth) {
+                // No close tag to end the range at
+                unsupported = true;
+                dynamicDepth = -1;
+            }
+        }
+        
+        @Override
+        public void handleAutoOpenElementStart(char[] buffer, int nameOffset, int nameLen, int line, int col) {
+            unsupported = true;
+        }
+        
+        @Override
+        public void handleUnmatchedCloseElementStart(char[] buffer, int nameOffset, int nameLen, int line, int col) {
+            unsupported = true;
+        }
+        
+        @Override
+        public void handleText(char[] buffer, int offset, int len, int line, int col) {
+            checkBuffer(buffer);
+            if (dynamicDepth >= 0) {
+                return;
+            }
+            String text = new String(buffer, offset, len);
+            if (text.contains("[[") || text.contains("[(")) {
+                ranges.add(new int[] { offset, offset + len });
+            }
+        }
+        
+        @Override
+        public void handleComment(char[] buffer, int contentOffset, int contentLen, int outerOffset, int outerLen, int line, int col) {
+            // <!--/* ... */--> and <!--/*/ ... /*/--> are handled by Thymeleaf's parser
+            if (contentLen > 0 && buffer[contentOffset] == '/') {
+                unsupported = true;
+            }
+        }
+        
+        private void startTag(char[] buffer, int nameOffset, int nameLen) {
+            checkBuffer(buffer);
+            tagStart = nameOffset - 1;
+            tagEnd = nameOffset + nameLen;
+            tagDynamic = new String(buffer, nameOffset, nameLen).startsWith("th:");
+        }
+        
+        private int endOfTag(int from) {
+            for (int i = from; i < source.length; i++) {
+                if (source[i] == '>') {
+                    return i + 1;
+                }
+            }
+            unsupported = true;
+            return source.length;
+        }
+        
+        private void checkBuffer(char[] buffer) {
+            if (buffer != source) {
+                unsupported = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.flightbooking.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Expiring Cache
+ *
+ * Small in-process cache for hot lookups (login credentials, webhook dedup, analytics dimensions):
+ * - Lock-free reads and writes (ConcurrentHashMap); an entry expires ttl after it was put
+ * - Bounded approximately: when a put takes it past max-size, one thread drops expired
+ *   entries, then the ones closest to expiry (the oldest), down to 90% of max-size;
+ *   other threads don't wait for it
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Only one thread trims the map at a time; others keep going
+     */
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache max-size must be at least 1");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Value of the key, or null if not cached or expired
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        if (entries.size() > maxSize) {
+            trim();
+        }
+    }
+
+    /**
+     * Drop all entries whose value matches
+     */
+    public void removeIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drop expired entries, then the ones closest to expiry, until 90% of max-size is left
+     * (runs on the thread that overfilled the map, once per 10% of max-size puts at most)
+     */
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expiresAt() <= now);
+            int excess = entries.size() - (maxSize - maxSize / 10);
+            if (excess <= 0) {
+                return;
+            }
+            // Expiry time of the excess-th entry to go; sorting primitives is far cheaper than entries
+            long[] expiries = new long[entries.size()];
+            int count = 0;
+            for (Entry<V> entry : entries.values()) {
+                if (count == expiries.length) {
+                    break;
+                }
+                expiries[count++] = entry.expiresAt();
+            }
+            if (count == 0) {
+                return; // emptied concurrently
+            }
+            Arrays.sort(expiries, 0, count);
+            long cutoff = expiries[Math.min(excess, count) - 1];
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (excess > 0 && iterator.hasNext()) {
+                if (iterator.next().expiresAt() <= cutoff) {
+                    iterator.remove();
+                    excess--;
+                }
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.flightbooking.util;
+
+import java.time.Instant;
+
+/**
+ * Claims of a verified, unexpired JWT (JwtUtil.parseAndValidate)
+ *
+ * @param userId Subject claim (user UUID)
+ * @param email Email claim
+ * @param role Role claim (e.g. "USER", "ADMIN")
+ * @param issuedAt Issued-at claim (null if absent)
+ * @param expiresAt Expiration claim (null if absent)
+ */
+public record JwtPrincipal(String userId, String email, String role, Instant issuedAt, Instant expiresAt) {
+}
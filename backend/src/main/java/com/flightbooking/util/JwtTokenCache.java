@@ -0,0 +1,222 @@
+package com.flightbooking.util;
+
+import com.flightbooking.event.UserStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JWT Token Cache
+ * 
+ * Verified principals of recently seen tokens, so repeat callers skip the HMAC
+ * verification and claims decoding (JwtAuthenticationFilter):
+ * - Keyed by SHA-256 of the whole token: a hit means this exact token was verified
+ *   before (the raw token is never kept)
+ * - Lock-free lookups (ConcurrentHashMap); a hit only stamps the entry's last access
+ * - LRU, bounded approximately: when a put takes it past max-size, one thread drops
+ *   expired entries, then the least recently used ones, down to 90% of max-size
+ * - An entry expires after ttl-seconds, and never later than the token's exp
+ * 
+ * Revocation: when a user is set INACTIVE (UserService.updateUserStatus) the user's
+ * entries are evicted and tokens issued before that moment are denied until the user
+ * is reactivated (tokens expire after jwt.expiration anyway, so revocations are dropped
+ * after that). Revocations are kept per node, in memory.
+ */
+@Component
+public class JwtTokenCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenCache.class);
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+    
+    @Value("${jwt.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    @Value("${jwt.expiration:86400000}")
+    private long tokenLifetimeMs;
+    
+    /**
+     * SHA-256(token) -> verified principal
+     */
+    private final Map<String, CachedPrincipal> entries = new ConcurrentHashMap<>();
+    
+    /**
+     * Only one thread trims the map at a time; others keep going
+     */
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    
+    /**
+     * userId -> moment the user was deactivated; tokens issued before it are denied
+     */
+    private final Map<String, Instant> revokedUsers = new ConcurrentHashMap<>();
+    
+    private Counter hitCounter;
+    private Counter missCounter;
+    
+    @PostConstruct
+    void init() {
+        hitCounter = meterRegistry.counter("jwt.cache.hit");
+        missCounter = meterRegistry.counter("jwt.cache.miss");
+    }
+    
+    /**
+     * Cached principal of the token, or null if not cached or expired
+     */
+    public JwtPrincipal get(String token) {
+        String key = keyOf(token);
+        CachedPrincipal cached = entries.get(key);
+        if (cached == null) {
+            missCounter.increment();
+            return null;
+        }
+        if (!cached.validUntil.isAfter(Instant.now())) {
+            entries.remove(key, cached);
+            missCounter.increment();
+            return null;
+        }
+        cached.touch();
+        hitCounter.increment();
+        return cached.principal;
+    }
+    
+    /**
+     * Remember a principal that JwtUtil.parseAndValidate just verified
+     */
+    public void put(String token, JwtPrincipal principal) {
+        Instant validUntil = Instant.now().plusSeconds(ttlSeconds);
+        if (principal.expiresAt() != null && principal.expiresAt().isBefore(validUntil)) {
+            validUntil = principal.expiresAt();
+        }
+        entries.put(keyOf(token), new CachedPrincipal(principal, validUntil));
+        if (entries.size() > maxSize) {
+            trim();
+        }
+    }
+    
+    /**
+     * Drop expired entries, then the least recently used ones, until 90% of max-size is left
+     * (runs on the thread that overfilled the map, once per 10% of max-size puts at most)
+     */
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            entries.values().removeIf(cached -> !cached.validUntil.isAfter(now));
+            int excess = entries.size() - (maxSize - maxSize / 10);
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, CachedPrincipal>> byLastAccess = new ArrayList<>(entries.entrySet());
+            byLastAccess.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos));
+            for (int i = 0; i < excess && i < byLastAccess.size(); i++) {
+                Map.Entry<String, CachedPrincipal> entry = byLastAccess.get(i);
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+    
+    /**
+     * True if the principal's user was deactivated after the token was issued
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        if (revokedUsers.isEmpty()) {
+            return false;
+        }
+        Instant revokedAt = revokedUsers.get(principal.userId());
+        return revokedAt != null && (principal.issuedAt() == null || !principal.issuedAt().isAfter(revokedAt));
+    }
+    
+    /**
+     * Drop all cached tokens of a user (next request verifies the token again)
+     * 
+     * @return Number of entries removed
+     */
+    public int evictUser(String userId) {
+        int removed = 0;
+        Iterator<CachedPrincipal> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (userId.equals(iterator.next().principal.userId())) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        if (event.getPreviousStatus() == null) {
+            return;
+        }
+        if ("INACTIVE".equals(event.getNewStatus())) {
+            Instant now = Instant.now();
+            Instant cutoff = now.minus(Duration.ofMillis(tokenLifetimeMs));
+            revokedUsers.values().removeIf(revokedAt -> revokedAt.isBefore(cutoff));
+            revokedUsers.put(event.getUserId(), now);
+            int removed = evictUser(event.getUserId());
+            logger.info("Revoked tokens of deactivated user {} ({} cached entries evicted)", event.getUserId(), removed);
+        } else if ("ACTIVE".equals(event.getNewStatus())) {
+            revokedUsers.remove(event.getUserId());
+        }
+    }
+    
+    private static String keyOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static final class CachedPrincipal {
+        
+        private final JwtPrincipal principal;
+        private final Instant validUntil;
+        private volatile long lastAccessNanos = System.nanoTime();
+        
+        private CachedPrincipal(JwtPrincipal principal, Instant validUntil) {
+            this.principal = principal;
+            this.validUntil = validUntil;
+        }
+        
+        /**
+         * Stamp the access; skipped within a millisecond of the last one, so hot tokens
+         * don't write the same cache line on every request
+         */
+        private void touch() {
+            long now = System.nanoTime();
+            if (now - lastAccessNanos > 1_000_000L) {
+                lastAccessNanos = now;
+            }
+        }
+    }
+}
@@ -2,12 +2,20 @@ package com.flightbooking.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
 
+/**
+ * JWT Util
+ * 
+ * The HMAC signing key and the parser are built once at startup and shared
+ * (both are immutable and thread-safe); parseAndValidate verifies a token with
+ * a single signature check and returns all claims the filter needs.
+ */
 @Component
 public class JwtUtil {
     
@@ -17,8 +25,16 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
     private long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    private SecretKey signingKey;
+    
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
     
     public String generateToken(String userId, String email, String role) {
@@ -28,16 +44,37 @@ public class JwtUtil {
                 .claim("role", role)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
+    /**
+     * Verify signature and expiration once and return the claims
+     * 
+     * @param token Compact JWT (without "Bearer ")
+     * @return Principal of the token
+     * @throws ExpiredJwtException if the token has expired
+     * @throws JwtException if the token is malformed, not signed with our key, or has no subject
+     * @throws IllegalArgumentException if the token is null or empty
+     */
+    public JwtPrincipal parseAndValidate(String token) {
+        Claims claims = extractClaims(token);
+        String userId = claims.getSubject();
+        if (userId == null || userId.isBlank()) {
+            throw new MalformedJwtException("JWT has no subject");
+        }
+        Date issuedAt = claims.getIssuedAt();
+        Date expiresAt = claims.getExpiration();
+        return new JwtPrincipal(
+                userId,
+                claims.get("email", String.class),
+                claims.get("role", String.class),
+                issuedAt != null ? issuedAt.toInstant() : null,
+                expiresAt != null ? expiresAt.toInstant() : null);
+    }
+    
     public Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     public String extractUserId(String token) {
@@ -70,4 +107,3 @@ public class JwtUtil {
         }
     }
 }
-
@@ -0,0 +1,138 @@
+package com.flightbooking.benchmark;
+
+import com.flightbooking.service.EmailTemplateRenderer;
+import com.flightbooking.util.CompiledEmailTemplateResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-email render cost: Boot's engine on the classpath template (what EmailService
+ * did before) vs EmailTemplateRenderer on the compiled template.
+ * 
+ * The engine is set up like Boot's auto-configuration (SpringResourceTemplateResolver
+ * on classpath:/templates/, UTF-8, cache on) plus the compiled-template resolver.
+ * 
+ * Run: mvn test-compile, then main() from the IDE, or
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main EmailTemplateRenderBenchmark
+ *   (cp.txt from mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateRenderBenchmark {
+    
+    @Param({"booking-confirmation", "booking-reminder", "payment-receipt"})
+    private String template;
+    
+    private SpringTemplateEngine templateEngine;
+    private EmailTemplateRenderer renderer;
+    private Map<String, Object> variables;
+    
+    @Setup
+    public void setUp() {
+        SpringResourceTemplateResolver classpathResolver = new SpringResourceTemplateResolver();
+        classpathResolver.setApplicationContext(new GenericApplicationContext());
+        classpathResolver.setPrefix("classpath:/templates/");
+        classpathResolver.setSuffix(".html");
+        classpathResolver.setCharacterEncoding("UTF-8");
+        classpathResolver.setCheckExistence(true);
+        classpathResolver.setCacheable(true);
+        
+        CompiledEmailTemplateResolver compiledResolver = new CompiledEmailTemplateResolver();
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.addTemplateResolver(compiledResolver);
+        templateEngine.addTemplateResolver(classpathResolver);
+        
+        renderer = new EmailTemplateRenderer();
+        ReflectionTestUtils.setField(renderer, "templateEngine", templateEngine);
+        ReflectionTestUtils.setField(renderer, "compiledTemplateResolver", compiledResolver);
+        ReflectionTestUtils.setField(renderer, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(renderer, "preloadTemplates", List.of(template));
+        ReflectionTestUtils.setField(renderer, "cacheTemplates", true);
+        ReflectionTestUtils.setField(renderer, "templatesLocation", "classpath:/templates/");
+        ReflectionTestUtils.setField(renderer, "templatesSuffix", ".html");
+        ReflectionTestUtils.setField(renderer, "templatesEncoding", StandardCharsets.UTF_8);
+        ReflectionTestUtils.invokeMethod(renderer, "init");
+        
+        if (((Map<?, ?>) ReflectionTestUtils.getField(renderer, "compiledTemplates")).isEmpty()) {
+            throw new IllegalStateException("Template was not compiled: " + template);
+        }
+        
+        variables = sampleVariables();
+        String expected = templateEngine.process("email/" + template, new Context(Locale.getDefault(), variables));
+        if (!expected.equals(renderer.render(template, variables))) {
+            throw new IllegalStateException("Compiled render differs from the template render: " + template);
+        }
+    }
+    
+    @Benchmark
+    public String engineTemplate() {
+        return templateEngine.process("email/" + template, new Context(Locale.getDefault(), variables));
+    }
+    
+    @Benchmark
+    public String compiledTemplate() {
+        return renderer.render(template, variables);
+    }
+    
+    /**
+     * Same variables NotificationService puts in, two flight segments
+     */
+    static Map<String, Object> sampleVariables() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("userName", "traveller@example.com");
+        variables.put("bookingCode", "FB7K2Q");
+        variables.put("bookingStatus", "CONFIRMED");
+        variables.put("totalAmount", "3,250,000 VND");
+        variables.put("currency", "VND");
+        variables.put("createdAt", "2025-01-15 10:30");
+        variables.put("passengerCount", 2);
+        variables.put("paymentAmount", "3,250,000 VND");
+        variables.put("paymentMethod", "CARD");
+        variables.put("transactionId", "pi_3QxY7bLk");
+        variables.put("paymentDate", "2025-01-15 10:31");
+        variables.put("paymentStatus", "COMPLETED");
+        variables.put("departureDate", "Monday, January 20, 2025");
+        variables.put("departureTime", "09:00");
+        variables.put("flightSegments", List.of(
+                Map.of("flightNumber", "VN123", "airline", "Vietnam Airlines", "origin", "SGN",
+                        "destination", "HAN", "departTime", "2025-01-20 09:00"),
+                Map.of("flightNumber", "VN456", "airline", "Vietnam Airlines", "origin", "HAN",
+                        "destination", "DAD", "departTime", "2025-01-20 14:30")));
+        return variables;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.flightbooking.benchmark;
+
+import com.flightbooking.util.ExpiringCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-lookup caches (login credentials, webhook dedup, analytics dimensions):
+ * the previous Collections.synchronizedMap(access-ordered LinkedHashMap) LRU vs
+ * ExpiringCache, 4 threads, 90% gets / 10% puts, max-size 10000.
+ *
+ * Run: mvn test-compile, then main() from the IDE (or org.openjdk.jmh.Main ExpiringCacheBenchmark)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ExpiringCacheBenchmark {
+    
+    private static final int MAX_SIZE = 10000;
+    /**
+     * Distinct keys: 10000 fits (no eviction), 20000 keeps evicting
+     */
+    @Param({"10000", "20000"})
+    private int keyCount;
+    
+    private Map<String, String> synchronizedLru;
+    private ExpiringCache<String, String> expiringCache;
+    private String[] keys;
+    
+    @Setup
+    public void setUp() {
+        synchronizedLru = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_SIZE;
+            }
+        });
+        expiringCache = new ExpiringCache<>(MAX_SIZE, Duration.ofMinutes(60));
+        
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "user" + i + "@example.com";
+        }
+        for (int i = 0; i < MAX_SIZE; i++) {
+            synchronizedLru.put(keys[i], keys[i]);
+            expiringCache.put(keys[i], keys[i]);
+        }
+    }
+    
+    @Benchmark
+    public String synchronizedLru() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String key = keys[random.nextInt(keyCount)];
+        if (random.nextInt(10) == 0) {
+            synchronizedLru.put(key, key);
+            return key;
+        }
+        return synchronizedLru.get(key);
+    }
+    
+    @Benchmark
+    public String expiringCache() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String key = keys[random.nextInt(keyCount)];
+        if (random.nextInt(10) == 0) {
+            expiringCache.put(key, key);
+            return key;
+        }
+        return expiringCache.get(key);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExpiringCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.flightbooking.benchmark;
+
+import com.flightbooking.util.JwtPrincipal;
+import com.flightbooking.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller email in BookingController: parsing the bearer token again (jwtUtil.extractEmail,
+ * a full HMAC verification) vs reading the JwtPrincipal that JwtAuthenticationFilter
+ * already put in the authentication details.
+ * 
+ * Run: mvn test-compile, then main() from the IDE (or org.openjdk.jmh.Main JwtEmailLookupBenchmark)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtEmailLookupBenchmark {
+    
+    private JwtUtil jwtUtil;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmarkSecretKeyThatIsAtLeast256BitsLongForHS256Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        token = jwtUtil.generateToken(UUID.randomUUID().toString(), "traveller@example.com", "USER");
+        
+        // What JwtAuthenticationFilter leaves behind for the controller
+        JwtPrincipal principal = jwtUtil.parseAndValidate(token);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                principal.userId(), null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.role())));
+        authentication.setDetails(principal);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Benchmark
+    public String reparseToken() {
+        return jwtUtil.extractEmail(token);
+    }
+    
+    @Benchmark
+    public String principalFromSecurityContext() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getDetails() instanceof JwtPrincipal principal) {
+            return principal.email();
+        }
+        return null;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtEmailLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
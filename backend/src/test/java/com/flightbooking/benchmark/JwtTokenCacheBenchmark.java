@@ -0,0 +1,85 @@
+package com.flightbooking.benchmark;
+
+import com.flightbooking.util.JwtPrincipal;
+import com.flightbooking.util.JwtTokenCache;
+import com.flightbooking.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticating a repeat caller in JwtAuthenticationFilter: verifying the token
+ * (JwtUtil.parseAndValidate, HMAC + claims decoding) vs a JwtTokenCache hit
+ * (SHA-256 of the token + map lookup), with 4 threads over 1000 warm tokens.
+ *
+ * Run: mvn test-compile, then main() from the IDE (or org.openjdk.jmh.Main JwtTokenCacheBenchmark)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class JwtTokenCacheBenchmark {
+    
+    private static final int TOKENS = 1000;
+    
+    private JwtUtil jwtUtil;
+    private JwtTokenCache cache;
+    private String[] tokens;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmarkSecretKeyThatIsAtLeast256BitsLongForHS256Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        
+        cache = new JwtTokenCache();
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxSize", 10000);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "tokenLifetimeMs", 86400000L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtUtil.generateToken(UUID.randomUUID().toString(), "user" + i + "@example.com", "USER");
+            cache.put(tokens[i], jwtUtil.parseAndValidate(tokens[i]));
+        }
+    }
+    
+    @Benchmark
+    public JwtPrincipal verifyToken() {
+        return jwtUtil.parseAndValidate(tokens[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+    
+    @Benchmark
+    public JwtPrincipal cacheHit() {
+        return cache.get(tokens[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.flightbooking.service;
+
+import com.flightbooking.service.EmailService.RenderedEmail;
+import com.flightbooking.service.EmailService.SmtpConnection;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SMTP batching of EmailService against an in-process GreenMail server
+ */
+class EmailServiceTest {
+    
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+    
+    private EmailService emailService;
+    
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        
+        emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(emailService, "emailFrom", "noreply@flightbooking.com");
+        ReflectionTestUtils.setField(emailService, "emailFromName", "Flight Booking System");
+        ReflectionTestUtils.setField(emailService, "emailEnabled", true);
+    }
+    
+    @Test
+    void sendsWholeBatchOverOneConnection() throws Exception {
+        try (SmtpConnection connection = emailService.openConnection()) {
+            Map<Integer, Exception> failures = emailService.sendRenderedHtmlBatch(List.of(
+                    email("a@example.com", "First"),
+                    email("b@example.com", "Second"),
+                    email("c@example.com", "Third")), connection);
+            
+            assertThat(failures).isEmpty();
+            assertThat(transportOf(connection).isConnected()).isTrue();
+        }
+        
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(3);
+        assertThat(received).extracting(MimeMessage::getSubject).containsExactly("First", "Second", "Third");
+    }
+    
+    @Test
+    void keepsConnectionOpenAcrossBatches() throws Exception {
+        try (SmtpConnection connection = emailService.openConnection()) {
+            emailService.sendRenderedHtmlBatch(List.of(email("a@example.com", "First")), connection);
+            Transport first = transportOf(connection);
+            
+            emailService.sendRenderedHtmlBatch(List.of(email("b@example.com", "Second")), connection);
+            
+            assertThat(transportOf(connection)).isSameAs(first);
+            assertThat(first.isConnected()).isTrue();
+        }
+        
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+    
+    @Test
+    void reconnectsAfterConnectionWasClosed() throws Exception {
+        try (SmtpConnection connection = emailService.openConnection()) {
+            emailService.sendRenderedHtmlBatch(List.of(email("a@example.com", "First")), connection);
+            transportOf(connection).close();
+            
+            Map<Integer, Exception> failures = emailService.sendRenderedHtmlBatch(
+                    List.of(email("b@example.com", "Second")), connection);
+            
+            assertThat(failures).isEmpty();
+        }
+        
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+    
+    @Test
+    void reportsInvalidRecipientByPositionAndSendsTheRest() throws Exception {
+        try (SmtpConnection connection = emailService.openConnection()) {
+            Map<Integer, Exception> failures = emailService.sendRenderedHtmlBatch(List.of(
+                    email("a@example.com", "First"),
+                    email("not an address", "Second"),
+                    email("c@example.com", "Third")), connection);
+            
+            assertThat(failures).containsOnlyKeys(1);
+            assertThat(failures.get(1)).isInstanceOf(MessagingException.class);
+        }
+        
+        assertThat(greenMail.getReceivedMessages()).extracting(MimeMessage::getSubject)
+                .containsExactly("First", "Third");
+    }
+    
+    @Test
+    void closeIfIdleKeepsRecentlyUsedConnection() throws Exception {
+        try (SmtpConnection connection = emailService.openConnection()) {
+            emailService.sendRenderedHtmlBatch(List.of(email("a@example.com", "First")), connection);
+            
+            connection.closeIfIdle(Long.MAX_VALUE);
+            assertThat(transportOf(connection)).isNotNull();
+            
+            connection.closeIfIdle(0);
+            assertThat(transportOf(connection)).isNull();
+        }
+    }
+    
+    private static RenderedEmail email(String to, String subject) {
+        return new RenderedEmail(to, subject, "<p>" + subject + "</p>");
+    }
+    
+    private static Transport transportOf(SmtpConnection connection) {
+        return (Transport) ReflectionTestUtils.getField(connection, "transport");
+    }
+}
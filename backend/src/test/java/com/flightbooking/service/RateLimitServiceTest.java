@@ -0,0 +1,113 @@
+package com.flightbooking.service;
+
+import com.flightbooking.service.RateLimitService.Limit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * GCRA token buckets of RateLimitService (burst, refill, max-keys overflow, sweep)
+ */
+class RateLimitServiceTest {
+    
+    /**
+     * One token per minute: nothing refills while a test runs
+     */
+    private static final Limit SLOW = Limit.of(1.0 / 60, 3);
+    
+    /**
+     * One token per 50 ms, burst 1
+     */
+    private static final Limit FAST = new Limit(TimeUnit.MILLISECONDS.toNanos(50), TimeUnit.MILLISECONDS.toNanos(50));
+    
+    private RateLimitService rateLimitService;
+    
+    @BeforeEach
+    void setUp() {
+        rateLimitService = new RateLimitService();
+        ReflectionTestUtils.setField(rateLimitService, "maxKeys", 100);
+    }
+    
+    @Test
+    void allowsBurstThenReportsWait() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimitService.tryAcquire("search", ":u:1", SLOW)).isZero();
+        }
+        
+        long wait = rateLimitService.tryAcquire("search", ":u:1", SLOW);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SLOW.intervalNanos());
+    }
+    
+    @Test
+    void refillsAfterEmissionInterval() throws InterruptedException {
+        assertThat(rateLimitService.tryAcquire("search", ":u:1", FAST)).isZero();
+        assertThat(rateLimitService.tryAcquire("search", ":u:1", FAST)).isPositive();
+        
+        Thread.sleep(120);
+        
+        assertThat(rateLimitService.tryAcquire("search", ":u:1", FAST)).isZero();
+    }
+    
+    @Test
+    void keepsSubjectsAndGroupsApart() {
+        for (int i = 0; i < 3; i++) {
+            rateLimitService.tryAcquire("search", ":u:1", SLOW);
+        }
+        
+        assertThat(rateLimitService.tryAcquire("search", ":u:1", SLOW)).isPositive();
+        assertThat(rateLimitService.tryAcquire("search", ":u:2", SLOW)).isZero();
+        assertThat(rateLimitService.tryAcquire("booking", ":u:1", SLOW)).isZero();
+    }
+    
+    @Test
+    void newSubjectsShareOverflowBucketOnceFull() {
+        ReflectionTestUtils.setField(rateLimitService, "maxKeys", 2);
+        Limit single = Limit.of(1.0 / 60, 1);
+        
+        assertThat(rateLimitService.tryAcquire("search", ":u:1", single)).isZero();
+        assertThat(rateLimitService.tryAcquire("search", ":u:2", single)).isZero();
+        
+        // Map full: :u:3 takes the overflow bucket's only token, :u:4 finds it empty
+        assertThat(rateLimitService.tryAcquire("search", ":u:3", single)).isZero();
+        assertThat(rateLimitService.tryAcquire("search", ":u:4", single)).isPositive();
+        assertThat(buckets()).doesNotContainKeys("search:u:3", "search:u:4");
+    }
+    
+    @Test
+    void sweepDropsOnlyRefilledBuckets() throws InterruptedException {
+        rateLimitService.tryAcquire("search", ":u:fast", FAST);
+        rateLimitService.tryAcquire("search", ":u:slow", SLOW);
+        
+        Thread.sleep(120);
+        rateLimitService.sweep();
+        
+        assertThat(buckets()).containsOnlyKeys("search:u:slow");
+    }
+    
+    @Test
+    void requestAfterSweepStartsWithFullBucket() throws InterruptedException {
+        rateLimitService.tryAcquire("search", ":u:1", FAST);
+        Thread.sleep(120);
+        rateLimitService.sweep();
+        
+        assertThat(rateLimitService.tryAcquire("search", ":u:1", FAST)).isZero();
+        assertThat(buckets()).containsOnlyKeys("search:u:1");
+    }
+    
+    @Test
+    void rejectsInvalidLimit() {
+        assertThatThrownBy(() -> Limit.of(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Limit.of(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> buckets() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(rateLimitService, "buckets");
+    }
+}
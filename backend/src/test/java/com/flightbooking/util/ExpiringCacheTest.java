@@ -0,0 +1,92 @@
+package com.flightbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ExpiringCache: expiry, bounded size, removeIf
+ */
+class ExpiringCacheTest {
+    
+    @Test
+    void returnsValueUntilItExpires() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMillis(50));
+        cache.put("key", "value");
+        
+        assertThat(cache.get("key")).isEqualTo("value");
+        assertThat(cache.containsKey("key")).isTrue();
+        
+        Thread.sleep(100);
+        
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.containsKey("key")).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+    
+    @Test
+    void putReplacesValueAndRestartsTtl() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("key", "old");
+        cache.put("key", "new");
+        
+        assertThat(cache.get("key")).isEqualTo("new");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+    
+    @Test
+    void trimDropsEntriesClosestToExpiry() throws InterruptedException {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+            // Distinct expiry times, in put order
+            Thread.sleep(2);
+        }
+        
+        // 11 entries > max-size: trimmed to 9, the two oldest go
+        cache.put(10, 10);
+        
+        assertThat(cache.size()).isEqualTo(9);
+        assertThat(cache.get(0)).isNull();
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(2)).isEqualTo(2);
+        assertThat(cache.get(10)).isEqualTo(10);
+    }
+    
+    @Test
+    void trimDropsExpiredEntriesFirst() throws InterruptedException {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(10, Duration.ofMillis(50));
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        Thread.sleep(100);
+        
+        cache.put(10, 10);
+        
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(10)).isEqualTo(10);
+    }
+    
+    @Test
+    void removeIfDropsMatchingValues() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("a", "user-1");
+        cache.put("b", "user-1");
+        cache.put("c", "user-2");
+        
+        cache.removeIf("user-1"::equals);
+        
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("user-2");
+    }
+    
+    @Test
+    void rejectsEmptyMaxSize() {
+        assertThatThrownBy(() -> new ExpiringCache<String, String>(0, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,124 @@
+package com.flightbooking.util;
+
+import com.flightbooking.event.UserStatusChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JwtTokenCache: hits, expiry, LRU trimming and revocation
+ */
+class JwtTokenCacheTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private JwtTokenCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = newCache(100);
+    }
+    
+    @Test
+    void returnsCachedPrincipalForSameToken() {
+        JwtPrincipal principal = principal("user-1", Instant.now().plusSeconds(3600));
+        cache.put("header.payload.signature", principal);
+        
+        assertThat(cache.get("header.payload.signature")).isSameAs(principal);
+        assertThat(meterRegistry.counter("jwt.cache.hit").count()).isEqualTo(1);
+    }
+    
+    @Test
+    void missesTokenWithSameSignatureButOtherPayload() {
+        cache.put("header.payload.signature", principal("user-1", Instant.now().plusSeconds(3600)));
+        
+        assertThat(cache.get("header.forged.signature")).isNull();
+        assertThat(cache.get("forged.payload.signature")).isNull();
+        assertThat(meterRegistry.counter("jwt.cache.miss").count()).isEqualTo(2);
+    }
+    
+    @Test
+    void entryExpiresWithTheToken() {
+        cache.put("expired", principal("user-1", Instant.now().minusSeconds(1)));
+        
+        assertThat(cache.get("expired")).isNull();
+    }
+    
+    @Test
+    void entryExpiresAfterTtl() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        cache.put("token", principal("user-1", Instant.now().plusSeconds(3600)));
+        
+        assertThat(cache.get("token")).isNull();
+    }
+    
+    @Test
+    void trimDropsLeastRecentlyUsedEntries() throws InterruptedException {
+        cache = newCache(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put("token-" + i, principal("user-" + i, Instant.now().plusSeconds(3600)));
+        }
+        // Access stamps are kept at millisecond resolution
+        Thread.sleep(5);
+        assertThat(cache.get("token-0")).isNotNull();
+        
+        // 11 entries > max-size: trimmed to 9, the two least recently used go
+        cache.put("token-10", principal("user-10", Instant.now().plusSeconds(3600)));
+        
+        assertThat(cache.get("token-0")).isNotNull();
+        assertThat(cache.get("token-1")).isNull();
+        assertThat(cache.get("token-2")).isNull();
+        assertThat(cache.get("token-3")).isNotNull();
+        assertThat(cache.get("token-10")).isNotNull();
+    }
+    
+    @Test
+    void evictUserDropsOnlyThatUsersTokens() {
+        cache.put("token-a", principal("user-1", Instant.now().plusSeconds(3600)));
+        cache.put("token-b", principal("user-1", Instant.now().plusSeconds(3600)));
+        cache.put("token-c", principal("user-2", Instant.now().plusSeconds(3600)));
+        
+        assertThat(cache.evictUser("user-1")).isEqualTo(2);
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-c")).isNotNull();
+    }
+    
+    @Test
+    void deactivationRevokesTokensIssuedBeforeIt() throws InterruptedException {
+        JwtPrincipal before = new JwtPrincipal("user-1", "user-1@example.com", "USER",
+                Instant.now().minusSeconds(60), Instant.now().plusSeconds(3600));
+        cache.put("token", before);
+        
+        cache.onUserStatusChanged(new UserStatusChangedEvent("user-1", "ACTIVE", "INACTIVE"));
+        
+        assertThat(cache.get("token")).isNull();
+        assertThat(cache.isRevoked(before)).isTrue();
+        
+        Thread.sleep(5);
+        JwtPrincipal after = new JwtPrincipal("user-1", "user-1@example.com", "USER",
+                Instant.now(), Instant.now().plusSeconds(3600));
+        assertThat(cache.isRevoked(after)).isFalse();
+        
+        cache.onUserStatusChanged(new UserStatusChangedEvent("user-1", "INACTIVE", "ACTIVE"));
+        assertThat(cache.isRevoked(before)).isFalse();
+    }
+    
+    private JwtTokenCache newCache(int maxSize) {
+        JwtTokenCache tokenCache = new JwtTokenCache();
+        ReflectionTestUtils.setField(tokenCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(tokenCache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(tokenCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(tokenCache, "tokenLifetimeMs", 86400000L);
+        tokenCache.init();
+        return tokenCache;
+    }
+    
+    private static JwtPrincipal principal(String userId, Instant expiresAt) {
+        return new JwtPrincipal(userId, userId + "@example.com", "USER", Instant.now(), expiresAt);
+    }
+}
@@ -1,5 +1,5 @@
 import { useState, useEffect } from 'react';
-import { getAllBookings, approveBooking, cancelBooking, getPendingNotifications } from '../../services/adminService';
+import { getAllBookings, approveBooking, cancelBooking, getPendingNotifications, subscribeAdminEvents } from '../../services/adminService';
 import { toast } from 'react-toastify';
 import './AdminBookings.css';
 
@@ -15,15 +15,18 @@ const AdminBookings = () => {
 
   useEffect(() => {
     loadBookings();
+  }, [page, statusFilter]);
+
+  useEffect(() => {
     loadPendingNotifications();
-    
-    // Refresh notifications every 10 seconds
-    const interval = setInterval(() => {
+
+    // Live updates instead of polling: reload the pending list when the approval queue changes
+    const unsubscribe = subscribeAdminEvents(() => {
       loadPendingNotifications();
-    }, 10000);
-    
-    return () => clearInterval(interval);
-  }, [page, statusFilter]);
+    });
+
+    return unsubscribe;
+  }, []);
 
   const loadBookings = async () => {
     try {
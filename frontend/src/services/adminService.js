@@ -1,4 +1,5 @@
 import api from './api';
+import { API_CONFIG } from '../config/api.config';
 
 /**
  * Admin Service
@@ -46,6 +47,82 @@ export const getPendingNotifications = async () => {
   return response.data;
 };
 
+/**
+ * Subscribe to live admin events (Server-Sent Events over fetch, so the JWT header is sent)
+ * Reconnects automatically and resumes from the last received event id
+ *
+ * @param onEvent Called with (type, data) for APPROVAL_NEEDED, BOOKING_APPROVED, BOOKING_CANCELLED, RESYNC
+ * @returns Function that closes the stream
+ */
+export const subscribeAdminEvents = (onEvent) => {
+  let lastEventId = null;
+  let closed = false;
+  let controller = null;
+
+  const handleBlock = (block) => {
+    let id = null;
+    let type = 'message';
+    const dataLines = [];
+    block.split('\n').forEach((line) => {
+      if (line.startsWith('id:')) id = line.slice(3).trim();
+      else if (line.startsWith('event:')) type = line.slice(6).trim();
+      else if (line.startsWith('data:')) dataLines.push(line.slice(5).trim());
+    });
+    if (id) lastEventId = id;
+    if (dataLines.length === 0) return; // heartbeat
+    let data = dataLines.join('\n');
+    try {
+      data = JSON.parse(data);
+    } catch {
+      // plain text (RESYNC)
+    }
+    onEvent(type, data);
+  };
+
+  const connect = async () => {
+    while (!closed) {
+      controller = new AbortController();
+      try {
+        const headers = { Accept: 'text/event-stream' };
+        const token = localStorage.getItem('token');
+        if (token) headers.Authorization = `Bearer ${token}`;
+        if (lastEventId) headers['Last-Event-ID'] = lastEventId;
+
+        const response = await fetch(`${API_CONFIG.BASE_URL}/admin/events/stream`, {
+          headers,
+          signal: controller.signal,
+        });
+        if (!response.ok || !response.body) throw new Error(`Event stream failed: ${response.status}`);
+
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+        while (!closed) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += decoder.decode(value, { stream: true }).replace(/\r\n/g, '\n');
+          let separator;
+          while ((separator = buffer.indexOf('\n\n')) >= 0) {
+            handleBlock(buffer.slice(0, separator));
+            buffer = buffer.slice(separator + 2);
+          }
+        }
+      } catch (err) {
+        if (closed) return;
+        console.error('Admin event stream error:', err);
+      }
+      // Reconnect after a short pause
+      await new Promise((resolve) => setTimeout(resolve, 3000));
+    }
+  };
+
+  connect();
+  return () => {
+    closed = true;
+    if (controller) controller.abort();
+  };
+};
+
 // ==================== USERS ====================
 
 export const getAllUsers = async (page = 0, size = 20) => {